@@ -3,7 +3,7 @@
  * Es werden die grundlegenden Rechenoperationen fr komplexe Zahlen untersttzt.
  *
  * @author Daniel Mendler
- * @version 0.3
+ * @version 0.4
  */
 public class Complex {
     private double real, imag;
@@ -115,6 +115,16 @@ public class Complex {
         return Math.sqrt(real * real + imag * imag);
     }
 
+    /**
+     * Das Quadrat des Betrags der komplexen Zahl wird zurckgegeben.
+     * Im Gegensatz zu <code>abs()</code> wird keine Wurzel gezogen.
+     *
+     * @return Das Quadrat des Betrags
+     */
+    public double absSquared() {
+        return real * real + imag * imag;
+    }
+
     /**
      * Die konjugierte komplexe Zahl wird zurckgegeben.
      *
@@ -254,6 +264,69 @@ public class Complex {
         return new Complex(this.imag / imag, -real / imag);
     }
 
+    /**
+     * Die komplexe Zahl <code>z</code> wird zu dieser Zahl addiert.
+     * Im Gegensatz zu <code>add</code> wird kein neues Objekt erzeugt.
+     *
+     * @param z Die komplexe Zahl, die addiert werden soll
+     * @return Diese komplexe Zahl
+     */
+    public Complex addInPlace(Complex z) {
+        real += z.real;
+        imag += z.imag;
+        return this;
+    }
+
+    /**
+     * Die reelle Zahl <code>real</code> wird zu dieser Zahl addiert.
+     *
+     * @param real Die reelle Zahl, die addiert werden soll
+     * @return Diese komplexe Zahl
+     */
+    public Complex addInPlace(double real) {
+        this.real += real;
+        return this;
+    }
+
+    /**
+     * Die imaginre Zahl <code>imag</code> wird zu dieser Zahl addiert.
+     *
+     * @param imag Die imaginre Zahl, die addiert werden soll
+     * @return Diese komplexe Zahl
+     */
+    public Complex addImagInPlace(double imag) {
+        this.imag += imag;
+        return this;
+    }
+
+    /**
+     * Diese Zahl wird mit der komplexen Zahl <code>z</code> multipliziert.
+     *
+     * @param z Die komplexe Zahl, mit der multipliziert werden soll
+     * @return Diese komplexe Zahl
+     */
+    public Complex multiplyInPlace(Complex z) {
+        double tmp = real * z.imag + imag * z.real;
+        real = real * z.real - imag * z.imag;
+        imag = tmp;
+        return this;
+    }
+
+    /**
+     * Diese Zahl wird quadriert und die komplexe Zahl <code>c</code> addiert,
+     * also z = z * z + c. Das Ergebnis ist dasselbe wie bei
+     * <code>z.multiply(z).add(c)</code>, es wird aber kein Objekt erzeugt.
+     *
+     * @param c Die komplexe Zahl, die addiert werden soll
+     * @return Diese komplexe Zahl
+     */
+    public Complex squareAddInPlace(Complex c) {
+        double tmp = real * imag + imag * real + c.imag;
+        real = real * real - imag * imag + c.real;
+        imag = tmp;
+        return this;
+    }
+
     /**
      * Es wird geprft, ob der Betrag der komplexen Zahl unendlich gro oder klein ist.
      * Der Wert unendlich ist definiert als 1.0 / 0.0 bzw. -1.0 / 0.0.
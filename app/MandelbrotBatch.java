@@ -0,0 +1,552 @@
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.IllegalFormatException;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+
+import render.AutoKernel;
+import render.Antialiasing;
+import render.Coloring;
+import render.DoubleDoubleKernel;
+import render.DoubleKernel;
+import render.FloatKernel;
+import render.Gradient;
+import render.HistogramColoring;
+import render.IterationField;
+import render.Kernel;
+import render.Palette;
+import render.PerturbationKernel;
+import render.PngSink;
+import render.PpmSink;
+import render.RasterSink;
+import render.RenderCoordinator;
+import render.RenderEngine;
+import render.RenderMetrics;
+import render.RenderWorker;
+import render.StripRenderer;
+import render.TileStore;
+import render.Viewport;
+import render.ZoomAnimator;
+
+/**
+ * Berechnet ein Bild ohne Fenster und schreibt es als PNG oder PPM, z.B.
+ * <pre>
+ * java -cp Mandelbrot.jar MandelbrotBatch --center -0.75,0 --range 2.5 --size 1920x1080 --output out.png
+ * </pre>
+ * Wie bei <code>MandelbrotComponent</code> ist <code>range</code> die Breite
+ * der krzeren Seite. Die Zeiten und der Durchsatz werden auf der Konsole
+ * ausgegeben.
+ *
+ * Mit <code>--strip</code> wird das Bild in Streifen berechnet und sofort
+ * geschrieben, so dass auch Bilder passen, die grer als der Speicher sind.
+ * Mit <code>--pyramid</code> werden statt eines Bildes die Kacheln der Stufen
+ * 0 bis <code>--levels</code> in einen <code>TileStore</code> geschrieben;
+ * schon vorhandene Kacheln werden dabei bersprungen.
+ *
+ * Mit <code>--coordinator port</code> wird das Bild auf Worker verteilt, die
+ * mit <code>--worker host:port</code> gestartet werden, z.B. mehrere auf
+ * demselben Rechner. Das Bild ist dasselbe wie ohne Verteilung.
+ *
+ * Mit <code>--frames</code> wird eine Zoomfahrt auf <code>--center</code>
+ * von <code>--range</code> bis <code>--end-range</code> berechnet. Die Bilder
+ * werden nummeriert geschrieben oder bei <code>--output -</code> als PPM
+ * hintereinander auf die Standardausgabe, z.B. fr
+ * <pre>
+ * ... --frames 600 --end-range 1e-10 --output - | ffmpeg -f image2pipe -c:v ppm -r 30 -i - zoom.mp4
+ * </pre>
+ *
+ * Mit <code>--antialias</code> werden die Kanten des fertigen Bildes mit
+ * <code>Antialiasing</code> geglttet, 16 Abtastungen nur fr die Pixel,
+ * die sich von ihren Nachbarn um mehr als die Schwelle unterscheiden.
+ *
+ * Mit <code>--metrics</code> sammelt die Engine <code>RenderMetrics</code>,
+ * die am Ende und auf Wunsch regelmig auf die Fehlerausgabe geschrieben
+ * werden und ber JMX zu sehen sind.
+ */
+public class MandelbrotBatch {
+
+    static final int[] COLORS = {
+        0xffff00, 0xffc800, 0xff0000, 0xffafaf, 0xff00ff, 0x00ff00, 0x00ffff, 0x0000ff,
+    };
+    static final int INTERIOR = 0x000000;
+
+    private static final String USAGE =
+        "Aufruf: MandelbrotBatch [Optionen]\n"
+        + "  --center re,im     Mitte des Bildes (-0.75,0)\n"
+        + "  --range r          Breite der krzeren Seite (2.5)\n"
+        + "  --size BxH         Gre in Pixeln (800x600)\n"
+        + "  --iterations n     Maximale Anzahl der Iterationen (1000)\n"
+        + "  --kernel k         auto, simd, double, vector, float, double-double, perturbation (auto)\n"
+        + "  --threads n        Anzahl der Threads (Anzahl der Prozessoren)\n"
+        + "  --coloring c       palette, gradient, histogram (gradient)\n"
+        + "  --output datei     .png oder .ppm (mandelbrot.png)\n"
+        + "  --strip h          In Streifen von h Zeilen berechnen und schreiben (0, das ganze Bild)\n"
+        + "  --inflight n       So viele Streifen gleichzeitig (Anzahl der Threads + 1)\n"
+        + "  --pyramid dir      Kacheln in eine Pyramide schreiben, range ist die Kante von Stufe 0\n"
+        + "  --levels n         Stufen 0 bis n der Pyramide (4)\n"
+        + "  --coordinator port Das Bild auf Worker verteilen, die sich an diesem Port melden\n"
+        + "  --lease n          Kante der verteilten Rechtecke in Pixeln, Vielfaches von 32 (128)\n"
+        + "  --timeout s        So lange darf ein Worker fr ein Rechteck brauchen (60)\n"
+        + "  --worker host:port Als Worker fr einen Koordinator rechnen\n"
+        + "  --frames n         Eine Zoomfahrt aus n Bildern berechnen, --output mit %d oder -\n"
+        + "  --end-range r      Bereich des letzten Bildes der Zoomfahrt (1e-10)\n"
+        + "  --antialias t      Kanten gltten, die sich um mehr als t (0-255) unterscheiden, z.B. 16 (aus)\n"
+        + "  --metrics s        Metriken sammeln, alle s Sekunden und am Ende ausgeben (0, nur am Ende)";
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        try {
+            run(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Fehler beim Schreiben: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private static void run(String[] args) throws IOException {
+        BigDecimal centerReal = new BigDecimal("-0.75"), centerImag = BigDecimal.ZERO;
+        double range = 2.5, endRange = 1e-10;
+        int width = 800, height = 600, iterations = 1000;
+        int threads = Runtime.getRuntime().availableProcessors(), strip = 0, inFlight = 0, levels = 4;
+        int coordinator = -1, lease = 128, timeout = 60, frames = 0, antialias = -1;
+        int metrics = -1;
+        String kernelName = "auto", coloringName = "gradient", output = "mandelbrot.png", pyramid = null;
+        String worker = null;
+
+        for (int i = 0; i < args.length; ++i) {
+            String option = args[i];
+            if (option.equals("--help") || option.equals("-h")) {
+                System.out.println(USAGE);
+                return;
+            }
+            if (i + 1 == args.length)
+                throw new IllegalArgumentException("Wert fehlt: " + option);
+            String value = args[++i];
+            try {
+                switch (option) {
+                case "--center":
+                    String[] c = value.split(",");
+                    if (c.length != 2)
+                        throw new IllegalArgumentException("Mitte muss re,im sein: " + value);
+                    centerReal = new BigDecimal(c[0].trim());
+                    centerImag = new BigDecimal(c[1].trim());
+                    break;
+                case "--range":
+                    range = Double.parseDouble(value);
+                    break;
+                case "--size":
+                    String[] s = value.toLowerCase(Locale.ROOT).split("x");
+                    if (s.length != 2)
+                        throw new IllegalArgumentException("Gre muss BxH sein: " + value);
+                    width = Integer.parseInt(s[0].trim());
+                    height = Integer.parseInt(s[1].trim());
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "--kernel":
+                    kernelName = value;
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--coloring":
+                    coloringName = value;
+                    break;
+                case "--output":
+                    output = value;
+                    break;
+                case "--strip":
+                    strip = Integer.parseInt(value);
+                    break;
+                case "--inflight":
+                    inFlight = Integer.parseInt(value);
+                    break;
+                case "--pyramid":
+                    pyramid = value;
+                    break;
+                case "--levels":
+                    levels = Integer.parseInt(value);
+                    break;
+                case "--coordinator":
+                    coordinator = Integer.parseInt(value);
+                    break;
+                case "--lease":
+                    lease = Integer.parseInt(value);
+                    break;
+                case "--timeout":
+                    timeout = Integer.parseInt(value);
+                    break;
+                case "--worker":
+                    worker = value;
+                    break;
+                case "--frames":
+                    frames = Integer.parseInt(value);
+                    break;
+                case "--end-range":
+                    endRange = Double.parseDouble(value);
+                    break;
+                case "--metrics":
+                    metrics = Integer.parseInt(value);
+                    if (metrics < 0)
+                        throw new IllegalArgumentException("Abstand darf nicht negativ sein: " + value);
+                    break;
+                case "--antialias":
+                    antialias = Integer.parseInt(value);
+                    if (antialias < 0 || antialias > 255)
+                        throw new IllegalArgumentException("Schwelle muss zwischen 0 und 255 liegen: " + value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unbekannte Option: " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Keine Zahl bei " + option + ": " + value);
+            }
+        }
+        if (width <= 0 || height <= 0 || iterations <= 0 || threads <= 0 || !(range > 0))
+            throw new IllegalArgumentException("Gre, Iterationen, Threads und Bereich mssen positiv sein");
+        if (strip < 0 || inFlight < 0)
+            throw new IllegalArgumentException("Streifenhhe und Anzahl drfen nicht negativ sein");
+        if (strip == 0 && (long)width * height > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Bild zu gro fr den Speicher, --strip verwenden");
+        if (strip > 0 && coloringName.equals("histogram"))
+            throw new IllegalArgumentException("histogram braucht das ganze Bild und geht nicht mit --strip");
+        if (inFlight == 0)
+            inFlight = threads + 1;
+        if (coordinator >= 0 && (strip > 0 || pyramid != null))
+            throw new IllegalArgumentException("--coordinator geht nicht mit --strip oder --pyramid");
+        if (frames < 0 || !(endRange > 0))
+            throw new IllegalArgumentException("Bilder und Bereich drfen nicht negativ sein");
+        if (frames > 0 && (strip > 0 || coordinator >= 0 || pyramid != null))
+            throw new IllegalArgumentException("--frames geht nicht mit --strip, --coordinator oder --pyramid");
+        if (antialias >= 0 && (strip > 0 || pyramid != null || frames > 0))
+            throw new IllegalArgumentException("--antialias geht nicht mit --strip, --pyramid oder --frames");
+        if (worker != null) {
+            runWorker(worker, threads);
+            return;
+        }
+        if (pyramid != null) {
+            if (levels < 0 || levels > 30)
+                throw new IllegalArgumentException("Stufen mssen zwischen 0 und 30 liegen");
+            RenderEngine engine = engine(threads, metrics);
+            try {
+                renderPyramid(engine, kernel(kernelName), Paths.get(pyramid), centerReal, centerImag, range,
+                              iterations, !coloringName.equals("palette"), levels, threads);
+            } finally {
+                shutdown(engine);
+            }
+            return;
+        }
+        boolean ppm = output.toLowerCase(Locale.ROOT).endsWith(".ppm");
+        if (!ppm && !output.toLowerCase(Locale.ROOT).endsWith(".png") && !(frames > 0 && output.equals("-")))
+            throw new IllegalArgumentException("Ausgabe muss auf .png oder .ppm enden: " + output);
+        if (frames > 0 && !output.equals("-")) {
+            try {
+                if (String.format(Locale.ROOT, output, 0).equals(String.format(Locale.ROOT, output, 1)))
+                    throw new IllegalArgumentException("Ausgabe braucht %d fr die Nummer des Bildes: " + output);
+            } catch (IllegalFormatException e) {
+                throw new IllegalArgumentException("Ungltiges Muster fr die Ausgabe: " + output);
+            }
+        }
+
+        Kernel kernel = kernel(kernelName);
+        Coloring coloring = coloring(coloringName);
+        double step = range / Math.min(width, height);
+        Viewport view = new Viewport(centerReal.subtract(new BigDecimal(width / 2 * step)),
+                                     centerImag.subtract(new BigDecimal(height / 2 * step)), step, width, height);
+        boolean smooth = !(coloring instanceof Palette);
+
+        if (frames > 0) {
+            RenderEngine engine = engine(threads, metrics);
+            try {
+                renderAnimation(engine, centerReal, centerImag, range, endRange, frames, width, height, kernel,
+                                iterations, coloring, smooth, output, inFlight);
+            } finally {
+                shutdown(engine);
+            }
+            return;
+        }
+        RenderEngine engine = engine(threads, metrics);
+        Antialiasing edges = antialias >= 0 ? new Antialiasing(engine, antialias) : null;
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output), 1 << 16)) {
+            RasterSink sink = ppm ? new PpmSink(out) : new PngSink(out);
+            System.out.printf(Locale.ROOT, "%dx%d, %d Iterationen, Kernel %s, %d Threads%n",
+                              width, height, iterations, kernelName, threads);
+            if (strip > 0) {
+                renderStrips(engine, view, kernel, iterations, coloring, smooth, sink, strip, inFlight);
+            } else if (coordinator >= 0) {
+                try (RenderCoordinator workers = new RenderCoordinator(coordinator, lease, timeout * 1000)) {
+                    System.out.println("Warte auf Worker an Port " + workers.port());
+                    renderImage(engine, workers, view, kernel, kernelName, iterations, coloring, smooth, edges,
+                                sink);
+                    System.out.println(workers);
+                }
+            } else {
+                renderImage(engine, null, view, kernel, kernelName, iterations, coloring, smooth, edges, sink);
+            }
+        } finally {
+            shutdown(engine);
+        }
+        System.out.println("Geschrieben: " + output);
+    }
+
+    /**
+     * Die Engine wird erzeugt, mit Metriken falls <code>metrics</code> nicht
+     * negativ ist. Sie werden ber JMX angemeldet und alle
+     * <code>metrics</code> Sekunden auf die Fehlerausgabe geschrieben, die
+     * bei <code>--output -</code> frei bleibt.
+     */
+    private static RenderEngine engine(int threads, int metrics) {
+        RenderEngine engine = new RenderEngine(threads);
+        if (metrics >= 0) {
+            RenderMetrics m = new RenderMetrics();
+            engine.setMetrics(m);
+            try {
+                m.register("MandelbrotBatch");
+            } catch (JMException e) {
+                System.err.println("Metriken nicht ber JMX verfgbar: " + e.getMessage());
+            }
+            if (metrics > 0)
+                m.startLog(metrics, System.err);
+        }
+        return engine;
+    }
+
+    /**
+     * Die Engine wird beendet, vorher werden ihre Metriken ausgegeben.
+     */
+    private static void shutdown(RenderEngine engine) {
+        RenderMetrics metrics = engine.getMetrics();
+        if (metrics != null) {
+            metrics.stopLog();
+            System.err.println(metrics);
+        }
+        engine.shutdown();
+    }
+
+    /**
+     * Das ganze Bild wird berechnet, verteilt falls <code>workers</code>
+     * gesetzt ist, dann gefrbt, an den Kanten geglttet falls
+     * <code>edges</code> gesetzt ist, und geschrieben.
+     */
+    private static void renderImage(RenderEngine engine, RenderCoordinator workers, Viewport view, Kernel kernel,
+                                    String kernelName, int iterations, Coloring coloring, boolean smooth,
+                                    Antialiasing edges, RasterSink sink) throws IOException {
+        int width = view.width(), height = view.height();
+        IterationField field = new IterationField(width, height, smooth);
+        int[] pixels = new int[width * height];
+        long start = System.nanoTime();
+        if (workers != null)
+            workers.render(view, kernelName, iterations, field);
+        else
+            engine.render(view, kernel, iterations, field);
+        long rendered = System.nanoTime();
+        coloring.paint(field, pixels);
+        long colored = System.nanoTime();
+        RenderMetrics metrics = engine.getMetrics();
+        if (metrics != null)
+            metrics.recordColoring(colored - rendered);
+        int smoothed = edges != null ? edges.apply(view, kernel, field, coloring, pixels) : 0;
+        long antialiased = System.nanoTime();
+        sink.start(width, height);
+        sink.write(pixels, 0, height);
+        sink.finish();
+        long written = System.nanoTime();
+        if (metrics != null)
+            metrics.recordBlit(written - antialiased);
+
+        long sum = 0;
+        for (int n : field.iterations())
+            sum += n;
+        double seconds = (rendered - start) / 1e9;
+        System.out.printf(Locale.ROOT, "Rechnen   %8.1f ms  %8.2f MPixel/s  %8.1f MIter/s%n",
+                          seconds * 1e3, width * (double)height / seconds / 1e6, sum / seconds / 1e6);
+        System.out.printf(Locale.ROOT, "Frben    %8.1f ms%n", (colored - rendered) / 1e6);
+        if (edges != null)
+            System.out.printf(Locale.ROOT, "Gltten   %8.1f ms  %d Pixel (%.1f%%) mit %d Abtastungen%n",
+                              (antialiased - colored) / 1e6, smoothed, 100.0 * smoothed / field.iterations().length,
+                              Antialiasing.SAMPLES);
+        System.out.printf(Locale.ROOT, "Schreiben %8.1f ms%n", (written - antialiased) / 1e6);
+    }
+
+    private static void renderStrips(RenderEngine engine, Viewport view, Kernel kernel, int iterations,
+                                     Coloring coloring, boolean smooth, RasterSink sink, int strip, int inFlight)
+        throws IOException {
+        long start = System.nanoTime();
+        long sum = new StripRenderer(engine, strip, inFlight).render(view, kernel, iterations, coloring, smooth, sink);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        // Iterationen, geglttete Iterationen und Farben pro Pixel eines Streifens
+        long buffers = (long)inFlight * strip * view.width() * (smooth ? 12 : 8);
+        System.out.printf(Locale.ROOT, "Streifen  %d Zeilen, %d gleichzeitig, %.1f MiB Puffer%n",
+                          strip, inFlight, buffers / 1048576.0);
+        System.out.printf(Locale.ROOT, "Gesamt    %8.1f ms  %8.2f MPixel/s  %8.1f MIter/s%n", seconds * 1e3,
+                          view.width() * (double)view.height() / seconds / 1e6, sum / seconds / 1e6);
+    }
+
+    /**
+     * Die Bilder einer Zoomfahrt werden berechnet und nummeriert bzw. auf die
+     * Standardausgabe geschrieben. Die Meldungen gehen dann auf die
+     * Fehlerausgabe.
+     */
+    private static void renderAnimation(RenderEngine engine, BigDecimal centerReal, BigDecimal centerImag,
+                                        double range, double endRange, int frames, int width, int height,
+                                        Kernel kernel, int iterations, Coloring coloring, boolean smooth,
+                                        String output, int inFlight) throws IOException {
+        boolean stdout = output.equals("-");
+        PrintStream log = stdout ? System.err : System.out;
+        OutputStream pipe = stdout ? new BufferedOutputStream(System.out, 1 << 16) : null;
+        Viewport last = ZoomAnimator.viewport(centerReal, centerImag, range, endRange, frames, frames - 1,
+                                              width, height);
+        log.printf(Locale.ROOT, "%d Bilder %dx%d, Bereich %.6g bis %.6g, %d Bilder pro Faktor 2, %d gleichzeitig%n",
+                   frames, width, height, range, last.step() * Math.min(width, height),
+                   ZoomAnimator.framesPerOctave(range, endRange, frames), inFlight);
+
+        long start = System.nanoTime();
+        long reused = new ZoomAnimator(engine, inFlight).render(
+            centerReal, centerImag, range, endRange, frames, width, height, kernel, iterations, coloring, smooth,
+            (frame, view, pixels) -> {
+                if (stdout) {
+                    RasterSink sink = new PpmSink(pipe);
+                    sink.start(width, height);
+                    sink.write(pixels, 0, height);
+                    sink.finish();
+                    return;
+                }
+                String name = String.format(Locale.ROOT, output, frame);
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(name), 1 << 16)) {
+                    RasterSink sink = name.toLowerCase(Locale.ROOT).endsWith(".ppm") ? new PpmSink(out)
+                        : new PngSink(out);
+                    sink.start(width, height);
+                    sink.write(pixels, 0, height);
+                    sink.finish();
+                }
+            });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.printf(Locale.ROOT, "Gesamt    %8.1f ms  %8.2f Bilder/s, %.1f%% der Pixel bernommen%n",
+                   seconds * 1e3, frames / seconds, 100.0 * reused / ((double)frames * width * height));
+    }
+
+    /**
+     * Die fehlenden Kacheln der Stufen 0 bis <code>levels</code> werden von
+     * <code>threads</code> Threads berechnet. Nach jeder Stufe wird gesichert,
+     * ein abgebrochener Lauf setzt dort wieder an.
+     */
+    private static void renderPyramid(RenderEngine engine, Kernel kernel, Path dir, BigDecimal centerReal,
+                                      BigDecimal centerImag, double range, int iterations, boolean smooth,
+                                      int levels, int threads) throws IOException {
+        BigDecimal half = new BigDecimal(range / 2);
+        try (TileStore store = TileStore.exists(dir) ? TileStore.open(dir)
+             : TileStore.create(dir, centerReal.subtract(half), centerImag.subtract(half), range, iterations, smooth)) {
+            System.out.printf(Locale.ROOT, "Pyramide %s, %d Iterationen, %d Kacheln vorhanden%n",
+                              dir, store.maxIter(), store.size());
+            ExecutorService workers = Executors.newFixedThreadPool(threads);
+            try {
+                for (int level = 0; level <= levels; ++level) {
+                    long side = 1L << level, count = side * side;
+                    int l = level;
+                    AtomicLong next = new AtomicLong(), rendered = new AtomicLong();
+                    Callable<Void> worker = () -> {
+                        for (long i; (i = next.getAndIncrement()) < count;) {
+                            if (store.render(engine, kernel, l, i % side, i / side))
+                                rendered.incrementAndGet();
+                        }
+                        return null;
+                    };
+                    long start = System.nanoTime();
+                    List<Future<Void>> done = workers.invokeAll(Collections.nCopies(threads, worker));
+                    for (Future<Void> f : done)
+                        f.get();
+                    store.flush();
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf(Locale.ROOT, "Stufe %2d: %8d von %8d Kacheln berechnet, %8.1f ms, %8.0f Kacheln/s%n",
+                                      level, rendered.get(), count, seconds * 1e3, rendered.get() / seconds);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException)
+                    throw (IOException)e.getCause();
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                workers.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Als Worker wird gerechnet, bis der Koordinator fertig ist. Luft er
+     * noch nicht, wird eine Minute lang jede Sekunde neu versucht.
+     */
+    private static void runWorker(String address, int threads) throws IOException {
+        int colon = address.lastIndexOf(':');
+        if (colon < 0)
+            throw new IllegalArgumentException("Worker braucht host:port: " + address);
+        String host = address.substring(0, colon);
+        int port = Integer.parseInt(address.substring(colon + 1));
+        RenderEngine engine = new RenderEngine(threads);
+        try {
+            RenderWorker worker = new RenderWorker(engine, MandelbrotBatch::kernel);
+            for (int attempt = 1;; ++attempt) {
+                try {
+                    long start = System.nanoTime();
+                    long leases = worker.run(host, port);
+                    System.out.printf(Locale.ROOT, "%d Rechtecke in %.1f s berechnet%n",
+                                      leases, (System.nanoTime() - start) / 1e9);
+                    return;
+                } catch (ConnectException e) {
+                    if (attempt == 60)
+                        throw e;
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+            }
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    static Kernel kernel(String name) {
+        double bailout = DoubleKernel.BAILOUT_ABS;
+        switch (name) {
+        case "auto":          return new AutoKernel(bailout, true);
+        case "simd":          return new AutoKernel(bailout, true, true);
+        case "double":        return new DoubleKernel(bailout, true);
+        case "vector":        return DoubleKernel.vectorized(bailout, true);
+        case "float":         return new FloatKernel(bailout, true);
+        case "double-double": return new DoubleDoubleKernel(bailout, true);
+        case "perturbation":  return new PerturbationKernel(bailout);
+        default: throw new IllegalArgumentException("Unbekannter Kernel: " + name);
+        }
+    }
+
+    static Coloring coloring(String name) {
+        switch (name) {
+        case "palette":   return Palette.cyclic(COLORS, INTERIOR);
+        case "gradient":  return new Gradient(COLORS, 4 * COLORS.length, INTERIOR);
+        case "histogram": return new HistogramColoring(COLORS, INTERIOR);
+        default: throw new IllegalArgumentException("Unbekannte Frbung: " + name);
+        }
+    }
+}
\ No newline at end of file
@@ -1,90 +1,145 @@
-import java.awt.Color;
 import java.awt.Component;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
 import java.awt.Graphics;
-import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import javax.management.JMException;
 
-public class MandelbrotComponent extends Component implements ComponentListener, Runnable {
+import render.AutoKernel;
+import render.DoubleKernel;
+import render.Interior;
+import render.Kernel;
+import render.Palette;
+import render.RenderEngine;
+import render.RenderMetrics;
+import render.TileCache;
+import render.Viewport;
+
+public class MandelbrotComponent extends Component implements ComponentListener {
+
+    private static final boolean interiorChecks =
+        Boolean.parseBoolean(System.getProperty("mandelbrot.interiorChecks", "true"));
+
+    // Der Kernel mit Complex-Objekten, auch fr KernelBenchmark
+    static final Kernel COMPLEX_KERNEL = (cr, ci, maxIter) -> maxIter - mandelbrot(new Complex(cr, ci), maxIter);
 
     private double range = 2.5;
     private Complex start = new Complex(-2.0, -1.2);
-    private double step;
     private int iterations = 100;
-    private Image image = null;
-    private boolean imageFinished = false, imageThreadRestart = false;
-    private Graphics imageGraph;
-    private Thread imageThread = null;
+    private volatile BufferedImage image = null;
+    private final RenderEngine engine = new RenderEngine();
+    private final RenderMetrics metrics = new RenderMetrics();
+    private final String metricsName = "MandelbrotComponent@" + Integer.toHexString(System.identityHashCode(this));
+    // Mit -Dmandelbrot.simd=true und --add-modules jdk.incubator.vector per Vector API,
+    // bei der bersicht mit float
+    private final Kernel kernel = Boolean.getBoolean("mandelbrot.simd")
+        ? new AutoKernel(DoubleKernel.BAILOUT_ABS, interiorChecks, true)
+        : COMPLEX_KERNEL;
+    private final Palette palette = grayPalette(iterations);
 
     public MandelbrotComponent() {
+        engine.setSubdivide(Boolean.getBoolean("mandelbrot.subdivide"));
+        engine.setProgressive(true);
+        // Beim Verbreitern des Fensters bleibt der Pixelabstand gleich
+        engine.setTileCache(new TileCache(Long.getLong("mandelbrot.cacheMiB", 32) << 20));
+        engine.setMetrics(metrics);
         addComponentListener(this);
     }
 
-    public void paint(Graphics graph) {
-        if (imageFinished)
-            graph.drawImage(image, 0, 0, this);
-        else
-            graph.clearRect(0, 0, getWidth(), getHeight());
+    /**
+     * Solange die Komponente angezeigt wird, sind die Metriken in jconsole
+     * unter render zu sehen, mit -Dmandelbrot.metrics=s alle s Sekunden auch
+     * auf der Konsole.
+     */
+    public void addNotify() {
+        super.addNotify();
+        try {
+            metrics.register(metricsName);
+        } catch (JMException e) {
+            System.err.println("Metriken nicht ber JMX verfgbar: " + e.getMessage());
+        }
+        long period = Long.getLong("mandelbrot.metrics", 0);
+        if (period > 0)
+            metrics.startLog(period, System.err);
     }
 
-    public void run() {
-        Complex c = start;
-        for (int y = 0; y < getHeight(); ++y) {
-            int lastX = 0, value = 0, lastValue = -1;
-            for (int x = 0; x < getWidth(); ++x) {
+    public void removeNotify() {
+        metrics.stopLog();
+        try {
+            metrics.unregister(metricsName);
+        } catch (JMException e) {
+            // Die Anmeldung war schon fehlgeschlagen
+        }
+        super.removeNotify();
+    }
 
-                if (imageThreadRestart) {
-                     imageThreadRestart = false;
-                     c = start;
-                     x = y = lastX = 0;
-                     lastValue = 0;
-                }
+    /**
+     * Die Threads der Engine werden beendet. Danach wird nichts mehr berechnet.
+     */
+    public void close() {
+        engine.shutdown();
+    }
 
-                value = (int)(Math.min(mandelbrot(c, iterations), 255) / (double)Math.min(iterations, 255) * 255);
-                if (value != lastValue) {
-                    if (lastValue != -1) {
-                        imageGraph.setColor(new Color(lastValue, lastValue, lastValue));
-                        imageGraph.drawLine(lastX, y, x - 1, y);
-                    }
-                    lastValue = value;
-                    lastX = x;
-                }
-                c = c.add(step);
-            }
-            imageGraph.setColor(new Color(value, value, value));
-            imageGraph.drawLine(lastX, y, getWidth() - 1, y);
-            c.real(start.real());
-            c = c.addImag(step);
+    public void paint(Graphics graph) {
+        BufferedImage current = image;
+        if (current != null) {
+            long start = System.nanoTime();
+            graph.drawImage(current, 0, 0, this);
+            metrics.recordBlit(System.nanoTime() - start);
+        } else {
+            graph.clearRect(0, 0, getWidth(), getHeight());
         }
+    }
 
-        imageFinished = true;
-        repaint();
+    private static Palette grayPalette(int iterations) {
+        int[] colors = new int[Math.min(iterations, 255) + 1];
+        for (int i = 0; i < colors.length; ++i) {
+            int value = (int)(i / (double)Math.min(iterations, 255) * 255);
+            colors[i] = (value << 16) | (value << 8) | value;
+        }
+        return Palette.remaining(colors);
     }
 
-    private int mandelbrot(Complex c, int iterations) {
-        Complex z = c;
+    private static int mandelbrot(Complex c, int iterations) {
+        if (interiorChecks && Interior.contains(c.real(), c.imag()))
+            return 0;
+        Complex z = new Complex(c), old = new Complex(c);
+        int period = 0, limit = Interior.PERIOD_START;
         while (iterations > 0) {
-            if (z.abs() > 2)
+            // Entspricht z.abs() > 2, da sqrt(x) > 2 genau fr x > nextUp(4) gilt
+            if (z.absSquared() > DoubleKernel.BAILOUT_ABS)
                 break;
-            z = z.multiply(z).add(c);
+            z.squareAddInPlace(c);
             --iterations;
+            if (interiorChecks) {
+                if (Math.abs(z.real() - old.real()) < Interior.PERIOD_EPSILON
+                    && Math.abs(z.imag() - old.imag()) < Interior.PERIOD_EPSILON)
+                    return 0;
+                if (++period == limit) {
+                    period = 0;
+                    limit <<= 1;
+                    old.set(z);
+                }
+            }
         }
         return iterations;
     }
 
     public void componentResized(ComponentEvent event) {
-        step = range / Math.min(getWidth(), getHeight());
+        int width = getWidth(), height = getHeight();
+        if (width <= 0 || height <= 0)
+            return;
+        double step = range / Math.min(width, height);
 
-        image = createImage(getWidth(), getHeight());
-        imageGraph = image.getGraphics();
-        imageFinished = false;
-
-        if (imageThread != null && imageThread.isAlive())
-            imageThreadRestart = true;
-        else {
-            imageThread = new Thread(this);
-            imageThread.start();
-        }
+        BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt)next.getRaster().getDataBuffer()).getData();
+        // Ein noch laufendes Bild wird dabei verworfen
+        engine.submit(new Viewport(start.real(), start.imag(), step, width, height), kernel, iterations, palette, pixels,
+                      finished -> {
+                          image = next;
+                          repaint();
+                      });
     }
 
     public void componentMoved(ComponentEvent event) { }
@@ -6,14 +6,17 @@ public class MandelbrotMain {
 
     public static void main(String[] args) {
         Frame frame = new Frame("Mandelbrot");
+        MandelbrotComponent component = new MandelbrotComponent();
         frame.addWindowListener(
             new WindowAdapter() {
                 public void windowClosing(WindowEvent event) {
+                    frame.dispose();
+                    component.close();
                     System.exit(0);
                 }
             }
         );
-        frame.add(new MandelbrotComponent());
+        frame.add(component);
         frame.setSize(600, 500);
         frame.setVisible(true);
     }
@@ -0,0 +1,406 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import render.Coloring;
+import render.HistogramColoring;
+import render.IterationField;
+import render.Kernel;
+import render.Palette;
+import render.PngSink;
+import render.RenderEngine;
+import render.RenderMetrics;
+import render.Viewport;
+
+/**
+ * Ein eingebetteter HTTP-Server, der die Menge als Kacheln fr Karten
+ * (XYZ, <code>/tiles/z/x/y.png</code>) ausliefert, z.B.
+ * <pre>
+ * java -cp Mandelbrot.jar MandelbrotServer --port 8080 --center -0.75,0 --range 3
+ * </pre>
+ * Stufe 0 ist eine Kachel mit der Kante <code>range</code> um die Mitte,
+ * jede weitere Stufe halbiert die Kante.
+ *
+ * Die Anfragen laufen auf virtuellen Threads, wenn die Laufzeitumgebung sie
+ * hat, sonst auf einem Pool. Gerechnet, gefrbt und kodiert wird getrennt
+ * davon auf einem Pool mit so vielen Threads wie Prozessoren. Fragen mehrere
+ * Clients gleichzeitig dieselbe Kachel an, wird sie nur einmal berechnet und
+ * alle warten auf dasselbe Ergebnis. Fertige Kacheln bleiben als PNG in einem
+ * LRU-Cache. Da eine Kachel nur von ihrer Lage und den Parametern des
+ * Servers abhngt, kennt der Server ihr ETag ohne sie zu berechnen und
+ * beantwortet <code>If-None-Match</code> sofort mit 304.
+ *
+ * Die <code>RenderMetrics</code> der Engine sind ber JMX als
+ * <code>render:type=RenderMetrics,name="MandelbrotServer"</code> zu sehen,
+ * mit <code>--metrics</code> auch regelmig auf der Konsole.
+ */
+public class MandelbrotServer {
+
+    private static final String USAGE =
+        "Aufruf: MandelbrotServer [Optionen]\n"
+        + "  --port n           Port (8080)\n"
+        + "  --bind adresse     Adresse (localhost)\n"
+        + "  --center re,im     Mitte von Stufe 0 (-0.75,0)\n"
+        + "  --range r          Kante von Stufe 0 (3)\n"
+        + "  --tile n           Kante einer Kachel in Pixeln (256)\n"
+        + "  --iterations n     Maximale Anzahl der Iterationen (1000)\n"
+        + "  --kernel k         auto, simd, double, vector, float, double-double, perturbation (auto)\n"
+        + "  --threads n        Anzahl der Rechenthreads (Anzahl der Prozessoren)\n"
+        + "  --coloring c       palette, gradient (gradient)\n"
+        + "  --cache n          Cache fr fertige Kacheln in MiB (64)\n"
+        + "  --metrics s        Alle s Sekunden die Metriken ausgeben (0, nie)";
+
+    private static final String PREFIX = "/tiles/";
+
+    /**
+     * Hchste Stufe, darber reicht auch die Strungsrechnung nicht mehr.
+     */
+    private static final int MAX_LEVEL = 48;
+
+    private final BigDecimal originReal, originImag;
+    private final double range;
+    private final int tileSize, maxIter;
+    private final Kernel kernel;
+    private final Coloring coloring;
+    private final boolean smooth;
+    private final String version;
+    private final RenderEngine engine;
+    private final RenderMetrics metrics = new RenderMetrics();
+    private final ExecutorService cpu;
+    private final long budget;
+
+    // Fertige und laufende Kacheln, beide mit lock geschtzt
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, byte[]> done = new LinkedHashMap<>(256, 0.75f, true);
+    private final HashMap<String, CompletableFuture<byte[]>> running = new HashMap<>();
+    private long bytes = 0;
+
+    private final AtomicLong requests = new AtomicLong(), rendered = new AtomicLong(),
+        shared = new AtomicLong(), hits = new AtomicLong(), notModified = new AtomicLong();
+
+    MandelbrotServer(BigDecimal centerReal, BigDecimal centerImag, double range, int tileSize, int maxIter,
+                     String kernelName, String coloringName, int threads, long budget) {
+        BigDecimal half = new BigDecimal(range / 2);
+        originReal = centerReal.subtract(half);
+        originImag = centerImag.subtract(half);
+        this.range = range;
+        this.tileSize = tileSize;
+        this.maxIter = maxIter;
+        this.budget = budget;
+        kernel = MandelbrotBatch.kernel(kernelName);
+        coloring = MandelbrotBatch.coloring(coloringName);
+        if (coloring instanceof HistogramColoring)
+            throw new IllegalArgumentException("histogram braucht das ganze Bild und geht nicht mit Kacheln");
+        smooth = !(coloring instanceof Palette);
+        // ndert sich einer der Parameter, ndern sich alle ETags
+        version = Integer.toHexString((centerReal.toString() + ',' + centerImag + ',' + range + ',' + tileSize
+                                       + ',' + maxIter + ',' + kernelName + ',' + coloringName).hashCode());
+        engine = new RenderEngine(threads);
+        engine.setMetrics(metrics);
+        cpu = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "MandelbrotServer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        try {
+            run(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Server kann nicht starten: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private static void run(String[] args) throws IOException {
+        BigDecimal centerReal = new BigDecimal("-0.75"), centerImag = BigDecimal.ZERO;
+        double range = 3;
+        int port = 8080, tileSize = 256, iterations = 1000, cache = 64, metrics = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String bind = "localhost", kernelName = "auto", coloringName = "gradient";
+
+        for (int i = 0; i < args.length; ++i) {
+            String option = args[i];
+            if (option.equals("--help") || option.equals("-h")) {
+                System.out.println(USAGE);
+                return;
+            }
+            if (i + 1 == args.length)
+                throw new IllegalArgumentException("Wert fehlt: " + option);
+            String value = args[++i];
+            try {
+                switch (option) {
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--bind":
+                    bind = value;
+                    break;
+                case "--center":
+                    String[] c = value.split(",");
+                    if (c.length != 2)
+                        throw new IllegalArgumentException("Mitte muss re,im sein: " + value);
+                    centerReal = new BigDecimal(c[0].trim());
+                    centerImag = new BigDecimal(c[1].trim());
+                    break;
+                case "--range":
+                    range = Double.parseDouble(value);
+                    break;
+                case "--tile":
+                    tileSize = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "--kernel":
+                    kernelName = value;
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--coloring":
+                    coloringName = value;
+                    break;
+                case "--cache":
+                    cache = Integer.parseInt(value);
+                    break;
+                case "--metrics":
+                    metrics = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unbekannte Option: " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Keine Zahl bei " + option + ": " + value);
+            }
+        }
+        if (tileSize <= 0 || tileSize > 4096 || iterations <= 0 || threads <= 0 || !(range > 0))
+            throw new IllegalArgumentException("Kachel, Iterationen, Threads und Bereich mssen positiv sein");
+        if (port < 0 || port > 65535 || cache < 0 || metrics < 0)
+            throw new IllegalArgumentException("Ungltiger Port, Cache oder Abstand der Metriken");
+
+        MandelbrotServer tiles = new MandelbrotServer(centerReal, centerImag, range, tileSize, iterations,
+                                                      kernelName, coloringName, threads, (long)cache << 20);
+        try {
+            tiles.metrics.register("MandelbrotServer");
+        } catch (JMException e) {
+            System.err.println("Metriken nicht ber JMX verfgbar: " + e.getMessage());
+        }
+        if (metrics > 0)
+            tiles.metrics.startLog(metrics, System.out);
+        HttpServer server = HttpServer.create(new InetSocketAddress(bind, port), 1024);
+        server.createContext(PREFIX, tiles::handle);
+        server.setExecutor(requestExecutor(threads));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(0);
+            tiles.shutdown();
+            System.out.println(tiles);
+            System.out.println(tiles.metrics);
+        }));
+        System.out.printf(Locale.ROOT, "http://%s:%d%s{z}/{x}/{y}.png, %dx%d Pixel, %d Iterationen, Kernel %s, %d Threads%n",
+                          bind, server.getAddress().getPort(), PREFIX, tileSize, tileSize, iterations, kernelName, threads);
+    }
+
+    /**
+     * Die Anfragen laufen auf je einem virtuellen Thread, wenn es sie gibt
+     * (ab Java 21). Sonst teilen sie sich einen Pool, dessen Threads
+     * meist nur auf eine Kachel warten.
+     */
+    private static ExecutorService requestExecutor(int threads) {
+        try {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(64, 16 * threads));
+        }
+    }
+
+    void shutdown() {
+        cpu.shutdownNow();
+        engine.shutdown();
+    }
+
+    /**
+     * Eine Anfrage wird beantwortet.
+     */
+    void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            long[] tile = parse(exchange.getRequestURI().getPath());
+            if (tile == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            int level = (int)tile[0];
+            String key = level + "/" + tile[1] + "/" + tile[2];
+            String etag = "\"" + version + "-" + key.replace('/', '-') + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=86400");
+            if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            byte[] png;
+            try {
+                png = tile(key, level, tile[1], tile[2]).join();
+            } catch (CompletionException e) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            if (method.equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, png.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(png);
+            }
+        }
+    }
+
+    /**
+     * Der Pfad /tiles/z/x/y.png wird zerlegt. Liegt er auerhalb der
+     * Pyramide, wird null zurckgegeben.
+     */
+    private static long[] parse(String path) {
+        if (!path.startsWith(PREFIX) || !path.endsWith(".png"))
+            return null;
+        String[] parts = path.substring(PREFIX.length(), path.length() - 4).split("/");
+        if (parts.length != 3)
+            return null;
+        try {
+            long level = Integer.parseInt(parts[0]), x = Long.parseLong(parts[1]), y = Long.parseLong(parts[2]);
+            if (level < 0 || level > MAX_LEVEL || x < 0 || y < 0 || x >= 1L << level || y >= 1L << level)
+                return null;
+            return new long[] { level, x, y };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Es wird geprft, ob <code>etag</code> in der Liste von If-None-Match
+     * vorkommt.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null)
+            return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/"))
+                tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Die Kachel wird aus dem Cache genommen. Sonst wird auf die laufende
+     * Berechnung gewartet oder eine neue gestartet. Beides geschieht unter
+     * derselben Sperre, damit eine Kachel zwischen Ende der Berechnung und
+     * Ablage im Cache nicht ein zweites Mal begonnen wird.
+     */
+    private CompletableFuture<byte[]> tile(String key, int level, long x, long y) {
+        synchronized (lock) {
+            byte[] png = done.get(key);
+            if (png != null) {
+                hits.incrementAndGet();
+                return CompletableFuture.completedFuture(png);
+            }
+            CompletableFuture<byte[]> future = running.get(key);
+            if (future != null) {
+                shared.incrementAndGet();
+                return future;
+            }
+            future = CompletableFuture.supplyAsync(() -> encode(level, x, y), cpu);
+            running.put(key, future);
+            future.whenComplete((result, error) -> finish(key, result));
+            return future;
+        }
+    }
+
+    private void finish(String key, byte[] png) {
+        synchronized (lock) {
+            running.remove(key);
+            if (png == null || png.length > budget)
+                return;
+            byte[] old = done.put(key, png);
+            if (old != null)
+                bytes -= old.length;
+            bytes += png.length;
+            for (Iterator<byte[]> i = done.values().iterator(); bytes > budget && i.hasNext();) {
+                bytes -= i.next().length;
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Die Kachel wird berechnet, gefrbt und als PNG kodiert.
+     */
+    private byte[] encode(int level, long x, long y) {
+        double step = Math.scalb(range / tileSize, -level);
+        BigDecimal size = new BigDecimal(step).multiply(BigDecimal.valueOf(tileSize));
+        Viewport view = new Viewport(originReal.add(size.multiply(BigDecimal.valueOf(x))),
+                                     originImag.add(size.multiply(BigDecimal.valueOf(y))),
+                                     step, tileSize, tileSize);
+        IterationField field = new IterationField(tileSize, tileSize, smooth);
+        int[] pixels = new int[tileSize * tileSize];
+        engine.render(view, kernel, maxIter, field);
+        long start = System.nanoTime();
+        coloring.paint(field, pixels);
+        long colored = System.nanoTime();
+        metrics.recordColoring(colored - start);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 14);
+        try {
+            PngSink sink = new PngSink(out, 1);
+            sink.start(tileSize, tileSize);
+            sink.write(pixels, 0, tileSize);
+            sink.finish();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        metrics.recordBlit(System.nanoTime() - colored);
+        rendered.incrementAndGet();
+        return out.toByteArray();
+    }
+
+    public String toString() {
+        synchronized (lock) {
+            return "MandelbrotServer[" + requests + " Anfragen, " + rendered + " berechnet, " + shared
+                + " geteilt, " + hits + " aus dem Cache, " + notModified + " nicht gendert, "
+                + done.size() + " Kacheln, " + (bytes >> 10) + "/" + (budget >> 10) + " KiB]";
+        }
+    }
+}
\ No newline at end of file
@@ -1,5 +1,5 @@
 @echo off
-javac -g:none -deprecation *.java
-jar cvfm Mandelbrot.jar Mandelbrot.mf *.class
-del *.class
+javac -g:none -deprecation --add-modules jdk.incubator.vector *.java render\*.java
+jar cvfm Mandelbrot.jar Mandelbrot.mf *.class render\*.class
+del *.class render\*.class
 start
\ No newline at end of file
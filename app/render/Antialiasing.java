@@ -0,0 +1,225 @@
+package render;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <code>Antialiasing</code> glttet die Kanten eines fertig eingefrbten
+ * Bildes. Nur Pixel, deren Farbe sich von einem der acht Nachbarn in einem
+ * Kanal um mehr als <code>threshold</code> unterscheidet, werden neu
+ * abgetastet und durch den Mittelwert ersetzt. Flchen und sanfte Verlufe
+ * behalten ihre eine Abtastung.
+ *
+ * Ein Kantenpixel erhlt zuerst vier Abtastungen. Unterscheiden sich deren
+ * Farben ebenfalls um mehr als <code>threshold</code>, folgen die brigen
+ * zwlf und das Ergebnis entspricht dort 16-fachem Supersampling; sonst ist
+ * der Pixel der Mittelwert der vier. Die meisten Kantenpixel liegen in
+ * Farbverlufen auerhalb der Menge und brauchen nur die vier.
+ *
+ * Die Abtastungen liegen auf einem gedrehten Gitter: Abtastung k liegt bei
+ * ((k + 1/2) / 16, (5k mod 16 + 1/2) / 16) im Pixel, so dass jede Zeile und
+ * jede Spalte des 16x16-Rasters genau einmal getroffen wird. Der Kernel wird
+ * einmal an einen 16-mal feineren Ausschnitt gebunden, auf dessen Raster alle
+ * Abtastungen liegen: Abtastung k des Pixels (x, y) ist dort der Pixel
+ * (16x + k, 16y + 5k mod 16). So hat auch die Strungsrechnung eine passende
+ * Referenz, ohne dass fr jede Abtastung neu gebunden wird. Der feine
+ * Ausschnitt kann eine hhere Genauigkeitsstufe verlangen als das Bild.
+ */
+public final class Antialiasing {
+
+    /**
+     * Die Anzahl der Abtastungen pro Kantenpixel.
+     */
+    public static final int SAMPLES = 16;
+
+    /**
+     * Die ersten vier Abtastungen, wieder ein gedrehtes Gitter, und die
+     * brigen zwlf.
+     */
+    private static final int[] FIRST = { 2, 6, 10, 14 }, REST = { 0, 1, 3, 4, 5, 7, 8, 9, 11, 12, 13, 15 };
+
+    /**
+     * So viele Kantenpixel berechnet eine Aufgabe hchstens am Stck.
+     */
+    private static final int CHUNK = 64;
+
+    /**
+     * So viele Kantenpixel werden auf einmal abgetastet und eingefrbt, damit
+     * die Abtastungen groer Bilder nicht 16-mal so viel Speicher brauchen.
+     */
+    private static final int BATCH = 1 << 18;
+
+    private final RenderEngine engine;
+    private final int threshold;
+
+    /**
+     * Das Antialiasing wird initialisiert.
+     *
+     * @param engine Die Engine, in deren Threads die Abtastungen berechnet werden
+     * @param threshold Der Unterschied in einem Farbkanal, ab dem ein Pixel als
+     *        Kante gilt, von 0 bis 255; negativ, um jeden Pixel abzutasten
+     */
+    public Antialiasing(RenderEngine engine, int threshold) {
+        if (threshold > 255)
+            throw new IllegalArgumentException("Schwelle muss hchstens 255 sein");
+        this.engine = engine;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Die Kanten von <code>pixels</code> werden geglttet.
+     *
+     * @param view Der Ausschnitt, aus dem <code>field</code> berechnet wurde
+     * @param kernel Der Kernel, der die Iterationen berechnet
+     * @param field Die Iterationen des Ausschnitts
+     * @param coloring Die Frbung, mit der <code>pixels</code> eingefrbt wurde
+     * @param pixels Die Farben im RGB-Format, werden an den Kanten berschrieben
+     * @return Die Anzahl der gegltteten Pixel
+     */
+    public int apply(Viewport view, Kernel kernel, IterationField field, Coloring coloring, int[] pixels) {
+        int width = view.width(), height = view.height();
+        int[] edges = edges(pixels, width, height);
+        if (edges.length == 0)
+            return 0;
+
+        int maxIter = field.maxIter();
+        // Der Pixel j des feinen Ausschnitts liegt bei (j + 1/2) / 16 - 1/2 Pixeln des Bildes
+        BigDecimal offset = new BigDecimal((0.5 - SAMPLES / 2) / SAMPLES * view.step());
+        Viewport fine = new Viewport(view.startRealExact().add(offset), view.startImagExact().add(offset),
+                                     view.step() / SAMPLES, width * SAMPLES, height * SAMPLES);
+        Kernel.Bound bound = kernel.bind(fine, maxIter);
+
+        int batch = Math.min(edges.length, BATCH);
+        IterationField samples = new IterationField(batch * SAMPLES, 1, field.smooth() != null);
+        samples.setMaxIter(maxIter);
+        int[] colors = new int[batch * SAMPLES], refine = new int[batch];
+        boolean[] refined = new boolean[batch];
+        for (int from = 0; from < edges.length; from += batch) {
+            int count = Math.min(batch, edges.length - from), n = 0;
+            engine.invoke(new SampleTask(bound, edges, from, null, samples, width, FIRST, 0, count));
+            coloring.paint(field, samples, colors);
+            for (int j = 0; j < count; ++j) {
+                refined[j] = threshold < 0 || differs(colors, j * SAMPLES);
+                if (refined[j])
+                    refine[n++] = j;
+            }
+            if (n > 0) {
+                engine.invoke(new SampleTask(bound, edges, from, refine, samples, width, REST, 0, n));
+                coloring.paint(field, samples, colors);
+            }
+            for (int j = 0; j < count; ++j)
+                pixels[edges[from + j]] = refined[j] ? average(colors, j * SAMPLES, null)
+                    : average(colors, j * SAMPLES, FIRST);
+        }
+        return edges.length;
+    }
+
+    /**
+     * Es wird geprft, ob sich die ersten vier Abtastungen ab
+     * <code>colors[base]</code> in einem Kanal um mehr als
+     * <code>threshold</code> unterscheiden.
+     */
+    private boolean differs(int[] colors, int base) {
+        int c = colors[base + FIRST[0]];
+        for (int k = 1; k < FIRST.length; ++k) {
+            int d = colors[base + FIRST[k]];
+            if (Math.abs(((c >> 16) & 0xff) - ((d >> 16) & 0xff)) > threshold
+                || Math.abs(((c >> 8) & 0xff) - ((d >> 8) & 0xff)) > threshold
+                || Math.abs((c & 0xff) - (d & 0xff)) > threshold)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Der Mittelwert der Abtastungen <code>samples</code> ab
+     * <code>colors[base]</code> wird zurckgegeben, null fr alle.
+     */
+    private static int average(int[] colors, int base, int[] samples) {
+        int r = 0, g = 0, b = 0, n = samples != null ? samples.length : SAMPLES;
+        for (int k = 0; k < n; ++k) {
+            int c = colors[base + (samples != null ? samples[k] : k)];
+            r += (c >> 16) & 0xff;
+            g += (c >> 8) & 0xff;
+            b += c & 0xff;
+        }
+        return (r + n / 2) / n << 16 | (g + n / 2) / n << 8 | (b + n / 2) / n;
+    }
+
+    /**
+     * Die Indizes der Kantenpixel werden aufsteigend zurckgegeben.
+     */
+    private int[] edges(int[] pixels, int width, int height) {
+        int[] edges = new int[width * height];
+        int count = 0;
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                int i = y * width + x;
+                if (threshold < 0 || isEdge(pixels, width, height, x, y, pixels[i]))
+                    edges[count++] = i;
+            }
+        }
+        return Arrays.copyOf(edges, count);
+    }
+
+    private boolean isEdge(int[] pixels, int width, int height, int x, int y, int c) {
+        for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, height - 1); ++j) {
+            for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, width - 1); ++i) {
+                int d = pixels[j * width + i];
+                if (Math.abs(((c >> 16) & 0xff) - ((d >> 16) & 0xff)) > threshold
+                    || Math.abs(((c >> 8) & 0xff) - ((d >> 8) & 0xff)) > threshold
+                    || Math.abs((c & 0xff) - (d & 0xff)) > threshold)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Die Abtastungen <code>ks</code> der Kantenpixel <code>edges[base + j]</code>
+     * werden nach <code>samples</code> ab Index <code>j * SAMPLES</code>
+     * berechnet, fr j aus <code>positions[from]</code> bis ausschlielich
+     * <code>positions[to]</code>, oder von <code>from</code> bis <code>to</code>,
+     * wenn <code>positions</code> null ist.
+     */
+    private static final class SampleTask extends RecursiveAction {
+        private final Kernel.Bound bound;
+        private final int[] edges, positions, ks;
+        private final IterationField samples;
+        private final int base, width, from, to;
+
+        SampleTask(Kernel.Bound bound, int[] edges, int base, int[] positions, IterationField samples, int width,
+                   int[] ks, int from, int to) {
+            this.bound = bound;
+            this.edges = edges;
+            this.base = base;
+            this.positions = positions;
+            this.samples = samples;
+            this.width = width;
+            this.ks = ks;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (to - from > CHUNK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SampleTask(bound, edges, base, positions, samples, width, ks, from, mid),
+                          new SampleTask(bound, edges, base, positions, samples, width, ks, mid, to));
+                return;
+            }
+            int[] iterations = samples.iterations();
+            float[] smooth = samples.smooth();
+            for (int p = from; p < to; ++p) {
+                int j = positions != null ? positions[p] : p, edge = edges[base + j];
+                int x = edge % width, y = edge / width;
+                for (int k : ks) {
+                    int index = j * SAMPLES + k;
+                    int sx = SAMPLES * x + k, sy = SAMPLES * y + (5 * k) % SAMPLES;
+                    iterations[index] = smooth != null ? bound.iterate(sx, sy, smooth, index) : bound.iterate(sx, sy);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
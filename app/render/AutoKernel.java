@@ -0,0 +1,84 @@
+package render;
+
+/**
+ * Ein Kernel, der fr jeden Ausschnitt die ntige Genauigkeitsstufe whlt.
+ *
+ * @see Precision#required(Viewport)
+ */
+public final class AutoKernel implements Kernel {
+    private final Kernel floatKernel;
+    private final Kernel doubleKernel;
+    private final DoubleDoubleKernel doubleDoubleKernel;
+    private final PerturbationKernel perturbationKernel;
+
+    /**
+     * Der Kernel wird initialisiert.
+     *
+     * @param bailout Die Schranke fr |z|
+     * @param interiorChecks true, wenn innere Punkte frh erkannt werden sollen
+     */
+    public AutoKernel(double bailout, boolean interiorChecks) {
+        this(bailout, interiorChecks, false);
+    }
+
+    /**
+     * Der Kernel wird initialisiert.
+     *
+     * @param bailout Die Schranke fr |z|
+     * @param interiorChecks true, wenn innere Punkte frh erkannt werden sollen
+     * @param simd true, wenn mglichst mit der Vector API gerechnet werden
+     *        soll. Nur dann wird fr bersichtsbilder <code>float</code> verwendet.
+     * @see DoubleKernel#vectorized(double, boolean)
+     * @see FloatKernel#vectorized(double, boolean)
+     */
+    public AutoKernel(double bailout, boolean interiorChecks, boolean simd) {
+        this(bailout, interiorChecks, simd, false);
+    }
+
+    /**
+     * Der Kernel wird initialisiert.
+     *
+     * @param bailout Die Schranke fr |z|
+     * @param interiorChecks true, wenn innere Punkte frh erkannt werden sollen
+     * @param simd true, wenn mglichst mit der Vector API gerechnet werden soll
+     * @param deepening true, wenn ohne Vector API der Zustand offener Pixel
+     *        fr ein greres maxIter aufbewahrt werden soll. Das lohnt nur,
+     *        wenn derselbe Ausschnitt mit hherem Limit erneut berechnet wird,
+     *        und kostet dann etwa 32 Byte pro Pixel, siehe <code>DeepeningKernel</code>.
+     */
+    public AutoKernel(double bailout, boolean interiorChecks, boolean simd, boolean deepening) {
+        doubleKernel = simd ? DoubleKernel.vectorized(bailout, interiorChecks)
+            : deepening ? new DeepeningKernel(bailout, interiorChecks) : new DoubleKernel(bailout, interiorChecks);
+        // Skalar ist float nicht schneller als double, nur mit doppelt so breiten Vektoren
+        floatKernel = simd ? FloatKernel.vectorized(bailout, interiorChecks) : doubleKernel;
+        doubleDoubleKernel = new DoubleDoubleKernel(bailout, interiorChecks);
+        perturbationKernel = new PerturbationKernel(bailout);
+    }
+
+    public int iterate(double cr, double ci, int maxIter) {
+        return doubleKernel.iterate(cr, ci, maxIter);
+    }
+
+    public Bound bind(Viewport view, int maxIter) {
+        return kernel(Precision.required(view)).bind(view, maxIter);
+    }
+
+    /**
+     * Der Kernel fr die Stufe <code>precision</code> wird zurckgegeben.
+     *
+     * @param precision Die Genauigkeitsstufe
+     * @return Der Kernel
+     */
+    public Kernel kernel(Precision precision) {
+        switch (precision) {
+        case FLOAT:
+            return floatKernel;
+        case DOUBLE_DOUBLE:
+            return doubleDoubleKernel;
+        case PERTURBATION:
+            return perturbationKernel;
+        default:
+            return doubleKernel;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package render;
+
+/**
+ * Ein <code>Coloring</code> frbt ein fertig berechnetes
+ * <code>IterationField</code> ein. Das ist ein einziger linearer Durchgang
+ * ber die Pixel, die Kernel werden dafr nicht mehr gebraucht.
+ *
+ * @see Palette
+ * @see Gradient
+ * @see HistogramColoring
+ */
+public interface Coloring {
+
+    /**
+     * Die Pixel werden aus dem Feld eingefrbt.
+     *
+     * @param field Das Feld mit den Iterationen
+     * @param pixels Das Ergebnis im RGB-Format, mindestens so gro wie das Feld
+     */
+    void paint(IterationField field, int[] pixels);
+
+    /**
+     * Zustzliche Abtastungen eines Bildes werden so eingefrbt, wie sie im
+     * Bild <code>field</code> gefrbt wrden. Frbungen, die nur den Pixel
+     * selbst betrachten, brauchen diese Methode nicht zu berschreiben.
+     *
+     * @param field Das Bild, zu dem die Abtastungen gehren
+     * @param samples Die Abtastungen, mit derselben maximalen Anzahl der Iterationen
+     * @param pixels Das Ergebnis im RGB-Format, mindestens so gro wie <code>samples</code>
+     */
+    default void paint(IterationField field, IterationField samples, int[] pixels) {
+        paint(samples, pixels);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,234 @@
+package render;
+
+/**
+ * Ein Kernel mit <code>double</code>, der sich den Zustand der Pixel merkt,
+ * die bei <code>maxIter</code> noch nicht divergiert sind. Wird derselbe
+ * Ausschnitt mit grerem <code>maxIter</code> erneut berechnet, werden nur
+ * diese Pixel ab der gespeicherten Iteration weiter iteriert; die brigen
+ * Ergebnisse werden bernommen.
+ *
+ * Der Zustand kostet etwa 32 Byte pro Pixel; z und n der offenen Pixel
+ * liegen in primitiven Arrays. Er wird erst angelegt, wenn ein Ausschnitt
+ * nach einem fertigen Bild erneut gebunden wird, also beim ersten Vertiefen.
+ * Dieses Bild rechnet noch von vorn und legt den Zustand an, erst die
+ * weiteren setzen ihn fort. Bilder anderer Ausschnitte und Bindungen, die
+ * kein Bild beenden, wie die Abtastungen von <code>Antialiasing</code>,
+ * rechnen wie der <code>DoubleKernel</code> ohne Zustand.
+ *
+ * Meldet die Engine mit <code>Bound.finished()</code> ein fertiges Bild, wird
+ * dessen Zustand aufbewahrt. Das nchste Binden desselben Ausschnitts kopiert
+ * ihn, auf die noch offenen Pixel verdichtet, und schreibt nur in die Kopie.
+ * Gleichzeitige Bilder stren sich so nicht. Verworfene Bilder, Rechtecke und
+ * andere Ausschnitte beginnen von vorn.
+ *
+ * Die Ergebnisse entsprechen denen des <code>DoubleKernel</code>; nur die
+ * Periodenerkennung beginnt beim Fortsetzen von vorn. Pixel, die das Bild
+ * nicht selbst berechnet, etwa gespiegelte oder aus dem Cache bernommene,
+ * werden beim Fortsetzen von Anfang an iteriert.
+ */
+public final class DeepeningKernel implements Kernel {
+
+    /**
+     * Das Ergebnis fr Pixel, die sicher nicht divergieren.
+     */
+    private static final int INSIDE = Integer.MAX_VALUE;
+
+    private final DoubleKernel scalar;
+    private final double bailout;
+    private final boolean interiorChecks;
+    // Der Zustand des letzten fertigen Bildes, wird nur noch gelesen
+    private Orbits finished = null;
+    // Der Ausschnitt des letzten fertigen Bildes
+    private Viewport last = null;
+
+    /**
+     * Der Kernel wird initialisiert.
+     *
+     * @param bailout Die Schranke fr |z|
+     * @param interiorChecks true, wenn innere Punkte frh erkannt werden sollen
+     */
+    public DeepeningKernel(double bailout, boolean interiorChecks) {
+        this.scalar = new DoubleKernel(bailout, interiorChecks);
+        this.bailout = bailout;
+        this.interiorChecks = interiorChecks;
+    }
+
+    public int iterate(double cr, double ci, int maxIter) {
+        return scalar.iterate(cr, ci, maxIter);
+    }
+
+    /**
+     * Ist <code>view</code> der Ausschnitt des letzten fertigen Bildes, wird
+     * dessen Zustand verdichtet kopiert oder, falls es keinen hat, neu
+     * angelegt. Sonst wird ohne Zustand gerechnet.
+     */
+    public Bound bind(Viewport view, int maxIter) {
+        Orbits current;
+        synchronized (this) {
+            current = finished != null && finished.view.equals(view) ? new Orbits(finished)
+                : view.equals(last) ? new Orbits(view) : null;
+        }
+        if (current == null) {
+            Bound bound = scalar.bind(view, maxIter);
+            return new Bound() {
+                public int iterate(int x, int y) {
+                    return bound.iterate(x, y);
+                }
+
+                public int iterate(int x, int y, float[] smooth, int index) {
+                    return bound.iterate(x, y, smooth, index);
+                }
+
+                public boolean mirrors(int y, int mirror) {
+                    return bound.mirrors(y, mirror);
+                }
+
+                public void finished() {
+                    finish(view, null);
+                }
+            };
+        }
+        return new Bound() {
+            public int iterate(int x, int y) {
+                return current.iterate(x, y, maxIter, null, 0);
+            }
+
+            public int iterate(int x, int y, float[] smooth, int index) {
+                return current.iterate(x, y, maxIter, smooth, index);
+            }
+
+            public boolean mirrors(int y, int mirror) {
+                return view.imag(y) == -view.imag(mirror);
+            }
+
+            public void finished() {
+                finish(view, current);
+            }
+        };
+    }
+
+    private synchronized void finish(Viewport view, Orbits orbits) {
+        last = view;
+        finished = orbits;
+    }
+
+    /**
+     * Der Zustand aller Pixel eines Ausschnitts. Fr jeden Pixel ist in
+     * <code>slot</code> der Index seiner Iteration in <code>zr</code>,
+     * <code>zi</code> und <code>n</code> vermerkt, oder -1, wenn das
+     * Ergebnis in <code>result</code> und die geglttete Anzahl in
+     * <code>smoothed</code> feststeht.
+     */
+    private final class Orbits {
+        final Viewport view;
+        final int width;
+        final int[] result, slot;
+        final float[] smoothed;
+        final double[] zr, zi;
+        final int[] n;
+
+        Orbits(Viewport view) {
+            this.view = view;
+            width = view.width();
+            int size = width * view.height();
+            result = new int[size];
+            slot = new int[size];
+            smoothed = new float[size];
+            for (int i = 0; i < size; ++i)
+                slot[i] = i;
+            zr = new double[size];
+            zi = new double[size];
+            n = new int[size];
+        }
+
+        /**
+         * Der Zustand eines fertigen Bildes wird kopiert, die Iterationen
+         * der noch offenen Pixel verdichtet.
+         */
+        Orbits(Orbits previous) {
+            view = previous.view;
+            width = previous.width;
+            result = previous.result.clone();
+            slot = previous.slot.clone();
+            smoothed = previous.smoothed.clone();
+            int live = 0;
+            for (int s : slot) {
+                if (s >= 0)
+                    ++live;
+            }
+            zr = new double[live];
+            zi = new double[live];
+            n = new int[live];
+            for (int i = 0, j = 0; i < slot.length; ++i) {
+                int s = slot[i];
+                if (s >= 0) {
+                    zr[j] = previous.zr[s];
+                    zi[j] = previous.zi[s];
+                    n[j] = previous.n[s];
+                    slot[i] = j++;
+                }
+            }
+        }
+
+        int iterate(int x, int y, int maxIter, float[] smooth, int index) {
+            int i = y * width + x, s = slot[i];
+            if (s < 0) {
+                if (result[i] >= maxIter)
+                    return IterationField.inside(maxIter, smooth, index);
+                if (smooth != null)
+                    smooth[index] = smoothed[i];
+                return result[i];
+            }
+
+            int k = n[s];
+            if (k >= maxIter)
+                return IterationField.inside(maxIter, smooth, index);
+            double cr = view.real(x), ci = view.imag(y), zr, zi;
+            if (k == 0) {
+                if (interiorChecks && Interior.contains(cr, ci))
+                    return inside(i, maxIter, smooth, index);
+                zr = cr;
+                zi = ci;
+            } else {
+                zr = this.zr[s];
+                zi = this.zi[s];
+            }
+
+            double pr = zr, pi = zi;
+            int period = 0, limit = Interior.PERIOD_START;
+            while (k < maxIter) {
+                double mag = zr * zr + zi * zi;
+                if (mag > bailout) {
+                    result[i] = k;
+                    smoothed[i] = IterationField.smooth(k, mag);
+                    slot[i] = -1;
+                    return IterationField.escaped(k, mag, smooth, index); // Wahrscheinlich divergent
+                }
+                double tmp = 2 * zr * zi + ci;
+                zr = zr * zr - zi * zi + cr;
+                zi = tmp;
+                ++k;
+                if (interiorChecks) {
+                    if (Math.abs(zr - pr) < Interior.PERIOD_EPSILON && Math.abs(zi - pi) < Interior.PERIOD_EPSILON)
+                        return inside(i, maxIter, smooth, index); // Periodisch
+                    if (++period == limit) {
+                        period = 0;
+                        limit <<= 1;
+                        pr = zr;
+                        pi = zi;
+                    }
+                }
+            }
+            this.zr[s] = zr;
+            this.zi[s] = zi;
+            n[s] = k;
+            return IterationField.inside(maxIter, smooth, index); // Wahrscheinlich konvergent, vorerst
+        }
+
+        private int inside(int i, int maxIter, float[] smooth, int index) {
+            result[i] = INSIDE;
+            slot[i] = -1;
+            return IterationField.inside(maxIter, smooth, index);
+        }
+    }
+}
\ No newline at end of file
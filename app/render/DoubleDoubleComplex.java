@@ -0,0 +1,169 @@
+package render;
+
+import java.math.BigDecimal;
+
+/**
+ * Ein Objekt der Klasse <code>DoubleDoubleComplex</code> reprsentiert eine
+ * komplexe Zahl, deren Teile jeweils als Summe zweier <code>double</code>
+ * (hi + lo) gespeichert werden. Das ergibt etwa 106 Bit Mantisse.
+ *
+ * Gerechnet wird mit fehlerfreien Transformationen: TwoSum liefert den
+ * Rundungsfehler einer Addition, TwoProd mit <code>Math.fma</code> den einer
+ * Multiplikation. Wie bei den In-place-Methoden von <code>Complex</code>
+ * verndern die Rechenoperationen das Objekt selbst.
+ */
+public final class DoubleDoubleComplex {
+    private double rh, rl, ih, il;
+
+    /**
+     * Die komplexe Zahl wird mit 0 + 0i initialisiert.
+     */
+    public DoubleDoubleComplex() {
+    }
+
+    /**
+     * Die komplexe Zahl wird mit der komplexen Zahl <code>z</code> initialisiert.
+     *
+     * @param z Die komplexe Zahl, mit der initialisiert wird
+     */
+    public DoubleDoubleComplex(DoubleDoubleComplex z) {
+        set(z);
+    }
+
+    /**
+     * Der reelle und der imaginre Teil werden exakt bzw. auf etwa 32
+     * Dezimalstellen genau initialisiert.
+     *
+     * @param real Der reelle Teil der komplexen Zahl
+     * @param imag Der imaginre Teil der komplexen Zahl
+     */
+    public DoubleDoubleComplex(BigDecimal real, BigDecimal imag) {
+        rh = real.doubleValue();
+        rl = real.subtract(new BigDecimal(rh)).doubleValue();
+        ih = imag.doubleValue();
+        il = imag.subtract(new BigDecimal(ih)).doubleValue();
+    }
+
+    /**
+     * Die komplexe Zahl wird auf den Wert der komplexen Zahl <code>z</code> gesetzt.
+     *
+     * @param z Die komplexe Zahl
+     */
+    public void set(DoubleDoubleComplex z) {
+        set(z.rh, z.rl, z.ih, z.il);
+    }
+
+    /**
+     * Die beiden Anteile des reellen und des imaginren Teils werden gesetzt.
+     *
+     * @param realHi Der hherwertige Anteil des reellen Teils
+     * @param realLo Der niederwertige Anteil des reellen Teils
+     * @param imagHi Der hherwertige Anteil des imaginren Teils
+     * @param imagLo Der niederwertige Anteil des imaginren Teils
+     */
+    public void set(double realHi, double realLo, double imagHi, double imagLo) {
+        rh = realHi;
+        rl = realLo;
+        ih = imagHi;
+        il = imagLo;
+    }
+
+    /**
+     * Der reelle Teil wird auf <code>double</code> gerundet zurckgegeben.
+     *
+     * @return Der reelle Teil
+     */
+    public double real() {
+        return rh + rl;
+    }
+
+    /**
+     * Der imaginre Teil wird auf <code>double</code> gerundet zurckgegeben.
+     *
+     * @return Der imaginre Teil
+     */
+    public double imag() {
+        return ih + il;
+    }
+
+    /**
+     * Das Quadrat des Betrags wird mit <code>double</code>-Genauigkeit
+     * zurckgegeben. Das reicht fr den Vergleich mit der Abbruchschranke.
+     *
+     * @return Das Quadrat des Betrags
+     */
+    public double absSquared() {
+        return rh * rh + ih * ih;
+    }
+
+    /**
+     * Die reelle Zahl <code>d</code> wird exakt addiert.
+     *
+     * @param d Die reelle Zahl, die addiert werden soll
+     * @return Diese komplexe Zahl
+     */
+    public DoubleDoubleComplex addInPlace(double d) {
+        double s = rh + d, e = twoSumError(rh, d, s) + rl;
+        rh = s + e;
+        rl = e - (rh - s);
+        return this;
+    }
+
+    /**
+     * Die imaginre Zahl <code>d</code> wird exakt addiert.
+     *
+     * @param d Die imaginre Zahl, die addiert werden soll
+     * @return Diese komplexe Zahl
+     */
+    public DoubleDoubleComplex addImagInPlace(double d) {
+        double s = ih + d, e = twoSumError(ih, d, s) + il;
+        ih = s + e;
+        il = e - (ih - s);
+        return this;
+    }
+
+    /**
+     * Diese Zahl wird quadriert und die komplexe Zahl <code>c</code> addiert,
+     * also z = z * z + c.
+     *
+     * @param c Die komplexe Zahl, die addiert werden soll
+     * @return Diese komplexe Zahl
+     */
+    public DoubleDoubleComplex squareAddInPlace(DoubleDoubleComplex c) {
+        // re - im + c.re
+        double p = rh * rh, pe = Math.fma(rh, rh, -p) + 2 * rh * rl;
+        double q = ih * ih, qe = Math.fma(ih, ih, -q) + 2 * ih * il;
+        double s = p - q, se = twoSumError(p, -q, s) + (pe - qe);
+        double t = s + c.rh, te = twoSumError(s, c.rh, t) + se + c.rl;
+
+        // 2 re im + c.im
+        double m = rh * ih, me = Math.fma(rh, ih, -m) + rh * il + rl * ih;
+        double u = 2 * m + c.ih, ue = twoSumError(2 * m, c.ih, u) + 2 * me + c.il;
+
+        rh = t + te;
+        rl = te - (rh - t);
+        ih = u + ue;
+        il = ue - (ih - u);
+        return this;
+    }
+
+    /**
+     * Der Rundungsfehler der Addition <code>s = a + b</code> wird zurckgegeben (TwoSum).
+     */
+    static double twoSumError(double a, double b, double s) {
+        double bb = s - a;
+        return (a - (s - bb)) + (b - bb);
+    }
+
+    /**
+     * Die exakte Stringreprsentation der komplexen Zahl wird zurckgegeben.
+     *
+     * @return Die Stringreprsentation der komplexen Zahl
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        BigDecimal real = new BigDecimal(rh).add(new BigDecimal(rl));
+        BigDecimal imag = new BigDecimal(ih).add(new BigDecimal(il));
+        return "(" + real + (imag.signum() < 0 ? (" - " + imag.negate()) : (" + " + imag)) + "i)";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package render;
+
+import java.math.BigDecimal;
+
+/**
+ * Ein Kernel fr mittlere Zoomtiefen, der mit <code>DoubleDoubleComplex</code>
+ * rechnet. Mit etwa 106 Bit Mantisse reicht er bis zu einem Pixelabstand von
+ * etwa 1e-28 relativ zu den Koordinaten.
+ *
+ * Innere Punkte werden nur ber die Hauptkardioide und den Kreis der Periode 2
+ * erkannt, da die feste Schranke der Periodenerkennung bei dieser Zoomtiefe
+ * grer als der Pixelabstand wre.
+ */
+public final class DoubleDoubleKernel implements Kernel {
+    private final double bailout;
+    private final boolean interiorChecks;
+
+    /**
+     * Der Kernel wird initialisiert.
+     *
+     * @param bailout Die Schranke fr |z|
+     * @param interiorChecks true, wenn innere Punkte frh erkannt werden sollen
+     */
+    public DoubleDoubleKernel(double bailout, boolean interiorChecks) {
+        this.bailout = bailout;
+        this.interiorChecks = interiorChecks;
+    }
+
+    public int iterate(double cr, double ci, int maxIter) {
+        DoubleDoubleComplex c = new DoubleDoubleComplex();
+        c.set(cr, 0, ci, 0);
+        return iterate(c, maxIter, null, 0);
+    }
+
+    /**
+     * Die Koordinaten der Pixel werden einmal pro Bild aus dem exakten
+     * Startpunkt berechnet und als hi- und lo-Anteil abgelegt.
+     */
+    public Bound bind(Viewport view, int maxIter) {
+        BigDecimal step = new BigDecimal(view.step());
+        double[] realHi = new double[view.width()], realLo = new double[view.width()];
+        double[] imagHi = new double[view.height()], imagLo = new double[view.height()];
+        split(view.startRealExact(), step, realHi, realLo);
+        split(view.startImagExact(), step, imagHi, imagLo);
+        mirror(view.axis(), imagHi, imagLo);
+        return new Bound() {
+            public int iterate(int x, int y) {
+                return iterate(x, y, null, 0);
+            }
+
+            public int iterate(int x, int y, float[] smooth, int index) {
+                DoubleDoubleComplex c = new DoubleDoubleComplex();
+                c.set(realHi[x], realLo[x], imagHi[y], imagLo[y]);
+                return DoubleDoubleKernel.this.iterate(c, maxIter, smooth, index);
+            }
+
+            public boolean mirrors(int y, int mirror) {
+                return imagHi[y] == -imagHi[mirror] && imagLo[y] == -imagLo[mirror];
+            }
+        };
+    }
+
+    private static void split(BigDecimal start, BigDecimal step, double[] hi, double[] lo) {
+        for (int i = 0; i < hi.length; ++i) {
+            BigDecimal v = start.add(step.multiply(BigDecimal.valueOf(i)));
+            hi[i] = v.doubleValue();
+            lo[i] = v.subtract(new BigDecimal(hi[i])).doubleValue();
+        }
+    }
+
+    /**
+     * Wie in <code>Viewport</code> werden die Zeilen jenseits der Achse zu
+     * den Spiegelbildern ihrer Gegenstcke, die Zeile auf der Achse zu 0.
+     */
+    private static void mirror(int axis, double[] hi, double[] lo) {
+        for (int i = (axis + 1) / 2; axis >= 0 && i <= axis && i < hi.length; ++i) {
+            hi[i] = 2 * i == axis ? 0 : -hi[axis - i];
+            lo[i] = 2 * i == axis ? 0 : -lo[axis - i];
+        }
+    }
+
+    private int iterate(DoubleDoubleComplex c, int maxIter, float[] smooth, int index) {
+        if (interiorChecks && Interior.contains(c.real(), c.imag()))
+            return IterationField.inside(maxIter, smooth, index);
+        DoubleDoubleComplex z = new DoubleDoubleComplex(c);
+        int n = 0;
+        while (n < maxIter) {
+            double magnitude = z.absSquared();
+            if (magnitude > bailout)
+                return IterationField.escaped(n, magnitude, smooth, index); // Wahrscheinlich divergent
+            z.squareAddInPlace(c);
+            ++n;
+        }
+        return IterationField.inside(maxIter, smooth, index); // Wahrscheinlich konvergent
+    }
+}
\ No newline at end of file
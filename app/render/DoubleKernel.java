@@ -0,0 +1,136 @@
+package render;
+
+/**
+ * Der skalare Kernel, der mit <code>double</code> rechnet.
+ * Optional werden Punkte in der Hauptkardioide und im Kreis der Periode 2
+ * sofort erkannt und periodische Folgen nach Brent abgebrochen.
+ */
+public final class DoubleKernel implements Kernel {
+
+    /**
+     * Abbruch bei |z| > 4.
+     */
+    public static final double BAILOUT = 4.0;
+
+    /**
+     * Abbruch genau wie bei <code>Complex.abs() > 2</code>:
+     * Die gerundete Wurzel ist erst fr x > nextUp(4) grer als 2.
+     */
+    public static final double BAILOUT_ABS = Math.nextUp(4.0);
+
+    private final double bailout;
+    private final boolean interiorChecks;
+
+    /**
+     * Der Kernel wird initialisiert.
+     *
+     * @param bailout Die Schranke fr |z|
+     * @param interiorChecks true, wenn innere Punkte frh erkannt werden sollen.
+     *        Mit false entspricht das Ergebnis genau der einfachen Iteration.
+     */
+    public DoubleKernel(double bailout, boolean interiorChecks) {
+        this.bailout = bailout;
+        this.interiorChecks = interiorChecks;
+    }
+
+    /**
+     * Ein Kernel mit denselben Ergebnissen wird zurckgegeben, der ganze
+     * Zeilen mit der Vector API berechnet. Ist das Modul
+     * <code>jdk.incubator.vector</code> nicht geladen oder hat der Prozessor
+     * keine passenden Vektoren, wird ein gewhnlicher <code>DoubleKernel</code>
+     * zurckgegeben.
+     *
+     * @param bailout Die Schranke fr |z|
+     * @param interiorChecks true, wenn innere Punkte frh erkannt werden sollen
+     * @return Der Kernel
+     */
+    public static Kernel vectorized(double bailout, boolean interiorChecks) {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (Kernel)Class.forName("render.VectorKernel")
+                    .getDeclaredConstructor(double.class, boolean.class)
+                    .newInstance(bailout, interiorChecks);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Weiter mit dem skalaren Kernel
+            }
+        }
+        return new DoubleKernel(bailout, interiorChecks);
+    }
+
+    public int iterate(double cr, double ci, int maxIter) {
+        return iterate(cr, ci, maxIter, null, 0);
+    }
+
+    public Bound bind(Viewport view, int maxIter) {
+        return new Bound() {
+            public int iterate(int x, int y) {
+                return DoubleKernel.this.iterate(view.real(x), view.imag(y), maxIter, null, 0);
+            }
+
+            public int iterate(int x, int y, float[] smooth, int index) {
+                return DoubleKernel.this.iterate(view.real(x), view.imag(y), maxIter, smooth, index);
+            }
+
+            public boolean mirrors(int y, int mirror) {
+                return view.imag(y) == -view.imag(mirror);
+            }
+        };
+    }
+
+    /**
+     * Wie <code>iterate(cr, ci, maxIter)</code>. Ist <code>smooth</code>
+     * nicht null, wird dort die geglttete Anzahl abgelegt.
+     */
+    int iterate(double cr, double ci, int maxIter, float[] smooth, int index) {
+        if (!interiorChecks)
+            return iterate(cr, ci, maxIter, bailout, smooth, index);
+        if (Interior.contains(cr, ci))
+            return IterationField.inside(maxIter, smooth, index);
+
+        double zr = cr, zi = ci, pr = zr, pi = zi;
+        int n = 0, period = 0, limit = Interior.PERIOD_START;
+        while (n < maxIter) {
+            double magnitude = zr * zr + zi * zi;
+            if (magnitude > bailout)
+                return IterationField.escaped(n, magnitude, smooth, index); // Wahrscheinlich divergent
+            double tmp = 2 * zr * zi + ci;
+            zr = zr * zr - zi * zi + cr;
+            zi = tmp;
+            ++n;
+            if (Math.abs(zr - pr) < Interior.PERIOD_EPSILON && Math.abs(zi - pi) < Interior.PERIOD_EPSILON)
+                return IterationField.inside(maxIter, smooth, index); // Periodisch
+            if (++period == limit) {
+                period = 0;
+                limit <<= 1;
+                pr = zr;
+                pi = zi;
+            }
+        }
+        return IterationField.inside(maxIter, smooth, index); // Wahrscheinlich konvergent
+    }
+
+    /**
+     * Die einfache Iteration ohne weitere Tests.
+     */
+    static int iterate(double cr, double ci, int maxIter, double bailout) {
+        return iterate(cr, ci, maxIter, bailout, null, 0);
+    }
+
+    /**
+     * Die einfache Iteration ohne weitere Tests, optional mit gegltteter Anzahl.
+     */
+    static int iterate(double cr, double ci, int maxIter, double bailout, float[] smooth, int index) {
+        double zr = cr, zi = ci;
+        int n = 0;
+        while (n < maxIter) {
+            double magnitude = zr * zr + zi * zi;
+            if (magnitude > bailout)
+                return IterationField.escaped(n, magnitude, smooth, index); // Wahrscheinlich divergent
+            double tmp = 2 * zr * zi + ci;
+            zr = zr * zr - zi * zi + cr;
+            zi = tmp;
+            ++n;
+        }
+        return IterationField.inside(maxIter, smooth, index); // Wahrscheinlich konvergent
+    }
+}
\ No newline at end of file
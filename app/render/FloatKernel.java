@@ -0,0 +1,98 @@
+package render;
+
+/**
+ * Der skalare Kernel, der mit <code>float</code> rechnet. Er reicht fr
+ * bersichtsbilder, bei denen der Pixelabstand gro gegenber der
+ * Genauigkeit von <code>float</code> ist, und ist mit der Vector API doppelt
+ * so breit wie der <code>double</code>-Kernel.
+ * Die Tests auf innere Punkte entsprechen denen des <code>DoubleKernel</code>.
+ */
+public final class FloatKernel implements Kernel {
+    private final double bailout;
+    private final boolean interiorChecks;
+
+    /**
+     * Der Kernel wird initialisiert.
+     *
+     * @param bailout Die Schranke fr |z|
+     * @param interiorChecks true, wenn innere Punkte frh erkannt werden sollen
+     */
+    public FloatKernel(double bailout, boolean interiorChecks) {
+        this.bailout = bailout;
+        this.interiorChecks = interiorChecks;
+    }
+
+    /**
+     * Wie <code>DoubleKernel.vectorized</code>, aber mit <code>float</code>.
+     *
+     * @param bailout Die Schranke fr |z|
+     * @param interiorChecks true, wenn innere Punkte frh erkannt werden sollen
+     * @return Der Kernel
+     * @see DoubleKernel#vectorized(double, boolean)
+     */
+    public static Kernel vectorized(double bailout, boolean interiorChecks) {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (Kernel)Class.forName("render.FloatVectorKernel")
+                    .getDeclaredConstructor(double.class, boolean.class)
+                    .newInstance(bailout, interiorChecks);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Weiter mit dem skalaren Kernel
+            }
+        }
+        return new FloatKernel(bailout, interiorChecks);
+    }
+
+    public int iterate(double cr, double ci, int maxIter) {
+        return iterate(cr, ci, maxIter, null, 0);
+    }
+
+    public Bound bind(Viewport view, int maxIter) {
+        return new Bound() {
+            public int iterate(int x, int y) {
+                return FloatKernel.this.iterate(view.real(x), view.imag(y), maxIter, null, 0);
+            }
+
+            public int iterate(int x, int y, float[] smooth, int index) {
+                return FloatKernel.this.iterate(view.real(x), view.imag(y), maxIter, smooth, index);
+            }
+
+            public boolean mirrors(int y, int mirror) {
+                return view.imag(y) == -view.imag(mirror);
+            }
+        };
+    }
+
+    /**
+     * Wie <code>iterate(cr, ci, maxIter)</code>. Ist <code>smooth</code>
+     * nicht null, wird dort die geglttete Anzahl abgelegt.
+     */
+    int iterate(double cr, double ci, int maxIter, float[] smooth, int index) {
+        if (interiorChecks && Interior.contains(cr, ci))
+            return IterationField.inside(maxIter, smooth, index);
+
+        float fr = (float)cr, fi = (float)ci;
+        float zr = fr, zi = fi, pr = zr, pi = zi;
+        int n = 0, period = 0, limit = Interior.PERIOD_START;
+        while (n < maxIter) {
+            float magnitude = zr * zr + zi * zi;
+            if (magnitude > bailout)
+                return IterationField.escaped(n, magnitude, smooth, index); // Wahrscheinlich divergent
+            float tmp = 2 * zr * zi + fi;
+            zr = zr * zr - zi * zi + fr;
+            zi = tmp;
+            ++n;
+            if (interiorChecks) {
+                if (Math.abs(zr - pr) < Interior.PERIOD_EPSILON && Math.abs(zi - pi) < Interior.PERIOD_EPSILON)
+                    return IterationField.inside(maxIter, smooth, index); // Periodisch
+                if (++period == limit) {
+                    period = 0;
+                    limit <<= 1;
+                    pr = zr;
+                    pi = zi;
+                }
+            }
+        }
+        return IterationField.inside(maxIter, smooth, index); // Wahrscheinlich konvergent
+    }
+}
\ No newline at end of file
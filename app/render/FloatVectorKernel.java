@@ -0,0 +1,140 @@
+package render;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Wie <code>VectorKernel</code>, aber mit <code>float</code>. Ein Vektor hat
+ * doppelt so viele Spuren. Die Zhler liegen in einem <code>IntVector</code>
+ * gleicher Lnge, da <code>float</code> nur bis 2^24 genau zhlt.
+ * Die Ergebnisse sind pixelgleich zum <code>FloatKernel</code>.
+ */
+final class FloatVectorKernel implements Kernel {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> COUNT = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Die kleinste float-Schranke, fr die |z - p| < PERIOD_EPSILON gleich bleibt.
+     */
+    private static final float PERIOD_EPSILON = (float)Interior.PERIOD_EPSILON < Interior.PERIOD_EPSILON
+        ? Math.nextUp((float)Interior.PERIOD_EPSILON) : (float)Interior.PERIOD_EPSILON;
+
+    private final FloatKernel scalar;
+    private final float bailout;
+    private final boolean interiorChecks;
+
+    FloatVectorKernel(double bailout, boolean interiorChecks) {
+        if (SPECIES.length() < 2 || COUNT.length() != SPECIES.length())
+            throw new UnsupportedOperationException("Keine Vektoren mit mehreren float");
+        this.scalar = new FloatKernel(bailout, interiorChecks);
+        // Die grte float-Schranke, fr die |z| > bailout gleich bleibt
+        float b = (float)bailout;
+        this.bailout = b > bailout ? Math.nextDown(b) : b;
+        this.interiorChecks = interiorChecks;
+    }
+
+    public int iterate(double cr, double ci, int maxIter) {
+        return scalar.iterate(cr, ci, maxIter);
+    }
+
+    public Bound bind(Viewport view, int maxIter) {
+        double[] real = new double[view.width()];
+        float[] realFloat = new float[view.width()];
+        for (int x = 0; x < real.length; ++x) {
+            real[x] = view.real(x);
+            realFloat[x] = (float)real[x];
+        }
+        return new Bound() {
+            public int iterate(int x, int y) {
+                return scalar.iterate(real[x], view.imag(y), maxIter, null, 0);
+            }
+
+            public int iterate(int x, int y, float[] smooth, int index) {
+                return scalar.iterate(real[x], view.imag(y), maxIter, smooth, index);
+            }
+
+            public boolean mirrors(int y, int mirror) {
+                return view.imag(y) == -view.imag(mirror);
+            }
+
+            public void iterateRow(int y, int x0, int x1, int[] field, int offset) {
+                iterateRow(y, x0, x1, field, null, offset);
+            }
+
+            public void iterateRow(int y, int x0, int x1, int[] field, float[] smooth, int offset) {
+                double ci = view.imag(y);
+                int[] count = new int[SPECIES.length()];
+                float[] magnitude = new float[SPECIES.length()];
+                boolean[] interior = new boolean[SPECIES.length()];
+                int x = x0;
+                for (int end = x0 + SPECIES.loopBound(x1 - x0); x < end; x += SPECIES.length()) {
+                    if (interiorChecks) {
+                        for (int i = 0; i < interior.length; ++i)
+                            interior[i] = Interior.contains(real[x + i], ci);
+                    }
+                    iterateLanes(realFloat, x, (float)ci, maxIter, interior, count, magnitude);
+                    System.arraycopy(count, 0, field, offset + x, count.length);
+                    if (smooth != null) {
+                        for (int i = 0; i < count.length; ++i)
+                            smooth[offset + x + i] = count[i] < maxIter
+                                ? IterationField.smooth(count[i], magnitude[i]) : maxIter;
+                    }
+                }
+                for (; x < x1; ++x)
+                    field[offset + x] = scalar.iterate(real[x], ci, maxIter, smooth, offset + x);
+            }
+        };
+    }
+
+    /**
+     * Die Pixel <code>real[x]</code> bis <code>real[x + SPECIES.length() - 1]</code>
+     * werden gleichzeitig iteriert, die Anzahl der Iterationen landet in <code>count</code>,
+     * |z| beim Abbruch in <code>magnitude</code>.
+     */
+    private void iterateLanes(float[] real, int x, float ci, int maxIter, boolean[] interior, int[] count,
+                              float[] magnitude) {
+        FloatVector cr = FloatVector.fromArray(SPECIES, real, x);
+        FloatVector cim = FloatVector.broadcast(SPECIES, ci);
+        FloatVector zr = cr, zi = cim, pr = zr, pi = zi, escape = FloatVector.zero(SPECIES);
+        IntVector n = IntVector.zero(COUNT), limitVector = IntVector.broadcast(COUNT, maxIter);
+        VectorMask<Float> active = SPECIES.maskAll(true);
+
+        if (interiorChecks) {
+            VectorMask<Float> inside = VectorMask.fromArray(SPECIES, interior, 0);
+            n = n.blend(limitVector, inside.cast(COUNT));
+            active = active.andNot(inside);
+        }
+
+        int iter = 0, period = 0, limit = Interior.PERIOD_START;
+        while (iter < maxIter) {
+            FloatVector mag = zr.mul(zr).add(zi.mul(zi));
+            VectorMask<Float> escaped = mag.compare(VectorOperators.GT, bailout).and(active);
+            escape = escape.blend(mag, escaped);
+            active = active.andNot(escaped); // Wahrscheinlich divergent
+            if (!active.anyTrue())
+                break;
+            FloatVector tmp = zr.mul(2).mul(zi).add(cim);
+            zr = zr.mul(zr).sub(zi.mul(zi)).add(cr);
+            zi = tmp;
+            n = n.add(1, active.cast(COUNT));
+            ++iter;
+            if (interiorChecks) {
+                VectorMask<Float> periodic = zr.sub(pr).abs().compare(VectorOperators.LT, PERIOD_EPSILON)
+                    .and(zi.sub(pi).abs().compare(VectorOperators.LT, PERIOD_EPSILON)).and(active);
+                n = n.blend(limitVector, periodic.cast(COUNT)); // Periodisch
+                active = active.andNot(periodic);
+                if (++period == limit) {
+                    period = 0;
+                    limit <<= 1;
+                    pr = zr;
+                    pi = zi;
+                }
+            }
+        }
+        n.intoArray(count, 0);
+        escape.intoArray(magnitude, 0);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package render;
+
+/**
+ * Ein <code>Gradient</code> frbt nach der gegltteten Anzahl der
+ * Iterationen und blendet dabei stufenlos zwischen den Farben ber.
+ * Nach <code>period</code> Iterationen wiederholt sich der Verlauf.
+ * Ohne geglttete Werte im Feld wird die ganze Anzahl verwendet.
+ */
+public final class Gradient implements Coloring {
+
+    /**
+     * Die Anzahl der Eintrge der Farbtabelle, eine Zweierpotenz.
+     */
+    private static final int SIZE = 1024;
+
+    private final int[] table = new int[SIZE];
+    private final int interior;
+    private final float scale;
+
+    /**
+     * Der Verlauf wird initialisiert.
+     *
+     * @param colors Die Farben im RGB-Format, zyklisch angeordnet
+     * @param period Die Anzahl der Iterationen fr einen Durchlauf aller Farben
+     * @param interior Die Farbe der Mandelbrotmenge
+     */
+    public Gradient(int[] colors, float period, int interior) {
+        for (int i = 0; i < SIZE; ++i) {
+            double t = (double)i / SIZE * colors.length;
+            int k = (int)t;
+            table[i] = blend(colors[k], colors[(k + 1) % colors.length], t - k);
+        }
+        this.interior = interior;
+        this.scale = SIZE / period;
+    }
+
+    public void paint(IterationField field, int[] pixels) {
+        int[] iterations = field.iterations();
+        float[] smooth = field.smooth();
+        int maxIter = field.maxIter();
+        if (smooth == null) {
+            for (int i = 0; i < iterations.length; ++i) {
+                int n = iterations[i];
+                pixels[i] = n >= maxIter ? interior : table[(int)(n * scale) & (SIZE - 1)];
+            }
+        } else {
+            // Geglttete Werte sind auerhalb der Menge immer kleiner als maxIter
+            for (int i = 0; i < smooth.length; ++i) {
+                float mu = smooth[i];
+                pixels[i] = mu >= maxIter ? interior : table[(int)(mu * scale) & (SIZE - 1)];
+            }
+        }
+    }
+
+    /**
+     * Die Farben <code>a</code> und <code>b</code> werden im Verhltnis
+     * <code>f</code> gemischt.
+     */
+    static int blend(int a, int b, double f) {
+        int r = (int)(((a >> 16) & 0xFF) * (1 - f) + ((b >> 16) & 0xFF) * f + 0.5);
+        int g = (int)(((a >> 8) & 0xFF) * (1 - f) + ((b >> 8) & 0xFF) * f + 0.5);
+        int bl = (int)((a & 0xFF) * (1 - f) + (b & 0xFF) * f + 0.5);
+        return (r << 16) | (g << 8) | bl;
+    }
+}
\ No newline at end of file
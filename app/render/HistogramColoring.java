@@ -0,0 +1,95 @@
+package render;
+
+/**
+ * Eine <code>HistogramColoring</code> verteilt die Farben nach der
+ * Hufigkeit der Iterationen: Jede Anzahl erhlt die Farbe an der Stelle
+ * ihres Anteils an allen Pixeln auerhalb der Menge. So bleibt das Bild
+ * bei jeder Zoomtiefe und jedem <code>maxIter</code> gleichmig bunt.
+ *
+ * Dafr werden zwei lineare Durchgnge gebraucht: einer fr das Histogramm
+ * und einer fr die Farben. Die Tabelle eines vollstndig berechneten Feldes
+ * wird behalten, so dass ein erneutes Frben desselben Bildes, z.B. beim
+ * Wechsel der Frbung oder beim Antialiasing, nur den zweiten Durchgang
+ * braucht. Werte ber <code>maxIter</code> gelten als innen.
+ */
+public final class HistogramColoring implements Coloring {
+    private final int[] colors;
+    private final int interior;
+    private volatile Table table = null;
+
+    /**
+     * Die Farben zum Histogramm eines vollstndig berechneten Feldes.
+     */
+    private static final class Table {
+        final IterationField field;
+        final Viewport view;
+        final Kernel kernel;
+        final int[] lookup;
+
+        Table(IterationField field, Viewport view, Kernel kernel, int[] lookup) {
+            this.field = field;
+            this.view = view;
+            this.kernel = kernel;
+            this.lookup = lookup;
+        }
+    }
+
+    /**
+     * Die Frbung wird initialisiert.
+     *
+     * @param colors Die Farben im RGB-Format, von selten nach hufig erreicht
+     * @param interior Die Farbe der Mandelbrotmenge
+     */
+    public HistogramColoring(int[] colors, int interior) {
+        this.colors = colors.clone();
+        this.interior = interior;
+    }
+
+    public void paint(IterationField field, int[] pixels) {
+        paint(field, field, pixels);
+    }
+
+    /**
+     * Die Abtastungen werden nach dem Histogramm von <code>field</code>
+     * eingefrbt.
+     */
+    public void paint(IterationField field, IterationField samples, int[] pixels) {
+        int[] lookup = lookup(field), values = samples.iterations();
+        int maxIter = lookup.length - 1;
+        for (int i = 0; i < values.length; ++i)
+            pixels[i] = lookup[Math.min(values[i], maxIter)];
+    }
+
+    /**
+     * Die Farben fr 0 bis <code>maxIter</code> Iterationen werden zurckgegeben.
+     */
+    private int[] lookup(IterationField field) {
+        // Ausschnitt und Kernel vor den Iterationen lesen: whrend einer
+        // Berechnung ist der Ausschnitt null und die Tabelle wird nicht behalten
+        Viewport view = field.view();
+        Kernel kernel = field.kernel();
+        int maxIter = field.maxIter();
+        Table cached = table;
+        if (cached != null && view != null && cached.field == field && cached.view == view
+            && cached.kernel == kernel && cached.lookup.length == maxIter + 1)
+            return cached.lookup;
+
+        int[] iterations = field.iterations();
+        int[] lookup = new int[maxIter + 1];
+        for (int n : iterations)
+            ++lookup[Math.min(n, maxIter)];
+
+        long total = iterations.length - lookup[maxIter], sum = 0;
+        int last = colors.length - 1;
+        for (int n = 0; n < maxIter; ++n) {
+            sum += lookup[n];
+            double t = total == 0 ? 0 : (double)sum / total * last;
+            int k = Math.min((int)t, last - 1);
+            lookup[n] = last == 0 ? colors[0] : Gradient.blend(colors[k], colors[k + 1], t - k);
+        }
+        lookup[maxIter] = interior;
+        if (view != null)
+            table = new Table(field, view, kernel, lookup);
+        return lookup;
+    }
+}
\ No newline at end of file
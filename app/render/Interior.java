@@ -0,0 +1,42 @@
+package render;
+
+/**
+ * Tests, mit denen Punkte im Inneren der Mandelbrotmenge frh erkannt werden.
+ * Ohne diese Tests luft jeder innere Punkt bis zur maximalen Anzahl der
+ * Iterationen, was meist den grten Teil der Rechenzeit ausmacht.
+ */
+public final class Interior {
+
+    /**
+     * Kommt die Folge einem frher gespeicherten Wert nher als diese
+     * Toleranz, ist sie periodisch und damit konvergent.
+     */
+    public static final double PERIOD_EPSILON = 1e-14;
+
+    /**
+     * Nach so vielen Iterationen wird der Vergleichswert der
+     * Periodenerkennung zum ersten Mal erneuert. Danach verdoppelt sich
+     * der Abstand jedes Mal (Brent).
+     */
+    public static final int PERIOD_START = 8;
+
+    private Interior() { }
+
+    /**
+     * Es wird geprft, ob c in der Hauptkardioide oder im Kreis der Periode 2 liegt.
+     * Beide Gebiete gehren vollstndig zur Mandelbrotmenge.
+     *
+     * @param cr Der reelle Teil von c
+     * @param ci Der imaginre Teil von c
+     * @return true, wenn c sicher in der Mandelbrotmenge liegt
+     */
+    public static boolean contains(double cr, double ci) {
+        double ci2 = ci * ci;
+        double xr = cr - 0.25;
+        double q = xr * xr + ci2;
+        if (q * (q + xr) < 0.25 * ci2)
+            return true;
+        double xb = cr + 1;
+        return xb * xb + ci2 < 0.0625;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+package render;
+
+/**
+ * Ein <code>IterationField</code> enthlt das Ergebnis eines Bildes ohne
+ * Farben: fr jeden Pixel zeilenweise die Anzahl der Iterationen und
+ * optional die geglttete Anzahl. Eingefrbt wird getrennt davon mit einem
+ * <code>Coloring</code>, so dass ein Wechsel der Farben keine neue
+ * Berechnung braucht.
+ *
+ * Die geglttete Anzahl ist n + 1 - log2(log2 |z_n|) fr den ersten Wert
+ * z_n mit |z_n| > 2. Sie ist stetig ber die Grenzen der Iterationsbnder
+ * hinweg und fr Punkte der Mandelbrotmenge gleich <code>maxIter</code>.
+ *
+ * Das Feld merkt sich den Ausschnitt und den Kernel des letzten vollstndig
+ * berechneten Bildes. Die <code>RenderEngine</code> bernimmt daraus beim
+ * Verschieben und Herauszoomen die Pixel, die im neuen Bild wieder vorkommen.
+ */
+public final class IterationField {
+    private static final double LN2 = Math.log(2);
+
+    private final int width, height;
+    private final int[] iterations;
+    private final float[] smooth;
+    private volatile int maxIter = 0;
+    private volatile Viewport view = null;
+    private volatile Kernel kernel = null;
+
+    /**
+     * Das Feld wird angelegt.
+     *
+     * @param width Die Breite in Pixeln
+     * @param height Die Hhe in Pixeln
+     * @param smooth true, wenn auch die geglttete Anzahl berechnet werden soll
+     */
+    public IterationField(int width, int height, boolean smooth) {
+        this.width = width;
+        this.height = height;
+        iterations = new int[width * height];
+        this.smooth = smooth ? new float[width * height] : null;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Eine Kopie des Felds samt Ausschnitt und Kernel wird zurckgegeben,
+     * z.B. um sie in einem anderen Thread einzufrben, whrend die Engine
+     * schon den nchsten Durchgang in dieses Feld schreibt.
+     *
+     * @return Die Kopie
+     */
+    public IterationField copy() {
+        IterationField copy = new IterationField(width, height, smooth != null);
+        System.arraycopy(iterations, 0, copy.iterations, 0, iterations.length);
+        if (smooth != null)
+            System.arraycopy(smooth, 0, copy.smooth, 0, smooth.length);
+        copy.maxIter = maxIter;
+        copy.view = view;
+        copy.kernel = kernel;
+        return copy;
+    }
+
+    /**
+     * Die Anzahl der Iterationen jedes Pixels wird zurckgegeben.
+     *
+     * @return Die Iterationen, zeilenweise
+     */
+    public int[] iterations() {
+        return iterations;
+    }
+
+    /**
+     * Die geglttete Anzahl der Iterationen jedes Pixels wird zurckgegeben.
+     *
+     * @return Die gegltteten Iterationen, zeilenweise, oder null
+     */
+    public float[] smooth() {
+        return smooth;
+    }
+
+    /**
+     * Die maximale Anzahl der Iterationen, mit der das Feld zuletzt
+     * berechnet wurde, wird zurckgegeben.
+     *
+     * @return Die maximale Anzahl der Iterationen
+     */
+    public int maxIter() {
+        return maxIter;
+    }
+
+    void setMaxIter(int maxIter) {
+        this.maxIter = maxIter;
+    }
+
+    /**
+     * Der Ausschnitt, der zuletzt vollstndig berechnet wurde, wird
+     * zurckgegeben, null whrend einer Berechnung.
+     */
+    Viewport view() {
+        return view;
+    }
+
+    /**
+     * Der Kernel, mit dem <code>view()</code> berechnet wurde, wird zurckgegeben.
+     */
+    Kernel kernel() {
+        return kernel;
+    }
+
+    void setContent(Viewport view, Kernel kernel) {
+        this.view = view;
+        this.kernel = kernel;
+    }
+
+    /**
+     * Fr einen divergenten Punkt wird <code>n</code> zurckgegeben und,
+     * falls <code>smooth</code> nicht null ist, dort die geglttete Anzahl abgelegt.
+     */
+    static int escaped(int n, double magnitude, float[] smooth, int index) {
+        if (smooth != null)
+            smooth[index] = smooth(n, magnitude);
+        return n;
+    }
+
+    /**
+     * Fr einen Punkt der Mandelbrotmenge wird <code>maxIter</code>
+     * zurckgegeben und, falls <code>smooth</code> nicht null ist, dort abgelegt.
+     */
+    static int inside(int maxIter, float[] smooth, int index) {
+        if (smooth != null)
+            smooth[index] = maxIter;
+        return maxIter;
+    }
+
+    /**
+     * Die geglttete Anzahl der Iterationen wird berechnet.
+     *
+     * @param n Die Iteration, in der die Folge divergiert
+     * @param magnitude |z_n| in dieser Iteration
+     * @return Die geglttete Anzahl
+     */
+    static float smooth(int n, double magnitude) {
+        return (float)(n + 1 - Math.log(0.5 * Math.log(magnitude) / LN2) / LN2);
+    }
+}
\ No newline at end of file
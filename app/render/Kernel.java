@@ -0,0 +1,138 @@
+package render;
+
+/**
+ * Ein <code>Kernel</code> berechnet fr einen Punkt c der komplexen Ebene,
+ * nach wie vielen Iterationen von z = z * z + c die Folge divergiert.
+ * Wie in den bisherigen Implementierungen beginnt die Folge bei z = c.
+ *
+ * Vor jedem Bild wird der Kernel mit <code>bind</code> an den Ausschnitt
+ * gebunden. Kernel, die pro Bild etwas vorberechnen mssen, berschreiben
+ * diese Methode.
+ */
+public interface Kernel {
+
+    /**
+     * Die Anzahl der Iterationen bis |z| > 2 wird zurckgegeben.
+     *
+     * @param cr Der reelle Teil von c
+     * @param ci Der imaginre Teil von c
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @return Die Anzahl der Iterationen, <code>maxIter</code> falls die Folge
+     *         wahrscheinlich konvergent ist
+     */
+    int iterate(double cr, double ci, int maxIter);
+
+    /**
+     * Der Kernel wird an den Ausschnitt <code>view</code> gebunden. Mit
+     * -ci entsteht genau die gespiegelte Folge, daher spiegelt der gebundene
+     * Kernel Zeilen mit negierten Koordinaten.
+     *
+     * @param view Der Ausschnitt
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @return Der Kernel fr die Pixel des Ausschnitts
+     */
+    default Bound bind(Viewport view, int maxIter) {
+        return new Bound() {
+            public int iterate(int x, int y) {
+                return Kernel.this.iterate(view.real(x), view.imag(y), maxIter);
+            }
+
+            public boolean mirrors(int y, int mirror) {
+                return view.imag(y) == -view.imag(mirror);
+            }
+        };
+    }
+
+    /**
+     * Ein an einen Ausschnitt gebundener Kernel, der Pixel berechnet.
+     */
+    interface Bound {
+
+        /**
+         * Die Anzahl der Iterationen fr den Pixel (x, y) wird zurckgegeben.
+         *
+         * @param x Die Spalte
+         * @param y Die Zeile
+         * @return Die Anzahl der Iterationen, <code>maxIter</code> falls die
+         *         Folge wahrscheinlich konvergent ist
+         */
+        int iterate(int x, int y);
+
+        /**
+         * Die Pixel <code>x0</code> bis ausschlielich <code>x1</code> der Zeile
+         * <code>y</code> werden berechnet und ab <code>field[offset + x0]</code>
+         * abgelegt. Kernel, die mehrere Pixel gleichzeitig berechnen knnen,
+         * berschreiben diese Methode.
+         *
+         * @param y Die Zeile
+         * @param x0 Die erste Spalte
+         * @param x1 Die Spalte hinter der letzten
+         * @param field Das Ergebnis
+         * @param offset Der Index der Spalte 0 in <code>field</code>
+         */
+        default void iterateRow(int y, int x0, int x1, int[] field, int offset) {
+            for (int x = x0; x < x1; ++x)
+                field[offset + x] = iterate(x, y);
+        }
+
+        /**
+         * Wie <code>iterate(x, y)</code>, zustzlich wird die geglttete Anzahl
+         * der Iterationen in <code>smooth[index]</code> abgelegt. Kernel, die
+         * |z| beim Abbruch nicht kennen, legen die ganze Anzahl ab.
+         *
+         * @param x Die Spalte
+         * @param y Die Zeile
+         * @param smooth Die gegltteten Iterationen
+         * @param index Der Index des Pixels in <code>smooth</code>
+         * @return Die Anzahl der Iterationen
+         * @see IterationField
+         */
+        default int iterate(int x, int y, float[] smooth, int index) {
+            int n = iterate(x, y);
+            smooth[index] = n;
+            return n;
+        }
+
+        /**
+         * Wie <code>iterateRow(y, x0, x1, field, offset)</code>, zustzlich
+         * werden die gegltteten Iterationen ab <code>smooth[offset + x0]</code>
+         * abgelegt.
+         *
+         * @param y Die Zeile
+         * @param x0 Die erste Spalte
+         * @param x1 Die Spalte hinter der letzten
+         * @param field Das Ergebnis
+         * @param smooth Die gegltteten Iterationen
+         * @param offset Der Index der Spalte 0 in <code>field</code> und <code>smooth</code>
+         */
+        default void iterateRow(int y, int x0, int x1, int[] field, float[] smooth, int offset) {
+            for (int x = x0; x < x1; ++x)
+                field[offset + x] = iterate(x, y, smooth, offset + x);
+        }
+
+        /**
+         * Es wird angegeben, ob die Punkte der Zeile <code>y</code> exakt
+         * die Spiegelbilder der Punkte der Zeile <code>mirror</code> an der
+         * reellen Achse sind, so dass beide Zeilen dieselben Ergebnisse
+         * haben. Nur dann kopiert die Engine die Zeile <code>y</code>, statt
+         * sie zu berechnen. Kernel, die das nicht sicher wissen, geben false
+         * zurck.
+         *
+         * @param y Die Zeile, die kopiert werden soll
+         * @param mirror Die Zeile, aus der kopiert wird
+         * @return true, wenn die Zeilen spiegelbildlich sind
+         */
+        default boolean mirrors(int y, int mirror) {
+            return false;
+        }
+
+        /**
+         * Die Engine meldet, dass das Bild fertig ist und keine Pixel mehr
+         * berechnet werden. Kernel, die ihren Zustand fr ein spteres Bild
+         * aufbewahren, drfen ihn erst dann weitergeben. Bei verworfenen
+         * Bildern wird die Methode nicht aufgerufen.
+         */
+        default void finished() {
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package render;
+
+/**
+ * Eine <code>Palette</code> ordnet der Anzahl der Iterationen eines Pixels
+ * eine Farbe im RGB-Format zu. Die Farben liegen in einer vorberechneten
+ * Tabelle, so dass pro Pixel nur ein Array-Zugriff ntig ist.
+ * Als <code>Coloring</code> wird dafr eine Tabelle ber alle Werte von 0
+ * bis <code>maxIter</code> angelegt.
+ */
+public final class Palette implements Coloring {
+    private final int[] colors;
+    private final int interior;
+    private final boolean cyclic;
+    private volatile int[] table = null;
+
+    private Palette(int[] colors, int interior, boolean cyclic) {
+        this.colors = colors.clone();
+        this.interior = interior;
+        this.cyclic = cyclic;
+    }
+
+    /**
+     * Die Farben werden zyklisch nach der Anzahl der Iterationen vergeben.
+     * Punkte der Mandelbrotmenge erhalten die Farbe <code>interior</code>.
+     *
+     * @param colors Die Farben im RGB-Format
+     * @param interior Die Farbe der Mandelbrotmenge
+     * @return Die Palette
+     */
+    public static Palette cyclic(int[] colors, int interior) {
+        return new Palette(colors, interior, true);
+    }
+
+    /**
+     * Die Farben werden nach der Anzahl der verbleibenden Iterationen
+     * (<code>maxIter - n</code>) vergeben. Sind mehr Iterationen brig,
+     * als die Tabelle Eintrge hat, wird die letzte Farbe verwendet.
+     * Punkte der Mandelbrotmenge erhalten also die erste Farbe.
+     *
+     * @param colors Die Farben im RGB-Format
+     * @return Die Palette
+     */
+    public static Palette remaining(int[] colors) {
+        return new Palette(colors, colors[0], false);
+    }
+
+    /**
+     * Die Farbe fr <code>n</code> Iterationen wird zurckgegeben.
+     *
+     * @param n Die Anzahl der Iterationen
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @return Die Farbe im RGB-Format
+     */
+    public int color(int n, int maxIter) {
+        if (n >= maxIter)
+            return interior;
+        if (cyclic)
+            return colors[n % colors.length];
+        int r = maxIter - n;
+        return colors[r < colors.length ? r : colors.length - 1];
+    }
+
+    /**
+     * Werte ber <code>maxIter</code>, z.B. aus einem Durchgang mit hherem
+     * Limit, erhalten die Farbe der Mandelbrotmenge.
+     */
+    public void paint(IterationField field, int[] pixels) {
+        int maxIter = field.maxIter();
+        int[] iterations = field.iterations(), lookup = table(maxIter);
+        for (int i = 0; i < iterations.length; ++i)
+            pixels[i] = lookup[Math.min(iterations[i], maxIter)];
+    }
+
+    /**
+     * Die Farben fr 0 bis <code>maxIter</code> Iterationen werden zurckgegeben.
+     */
+    private int[] table(int maxIter) {
+        int[] lookup = table;
+        if (lookup == null || lookup.length != maxIter + 1) {
+            lookup = new int[maxIter + 1];
+            for (int n = 0; n <= maxIter; ++n)
+                lookup[n] = color(n, maxIter);
+            table = lookup;
+        }
+        return lookup;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,184 @@
+package render;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Ein Kernel fr tiefe Zooms, bei denen der Pixelabstand kleiner ist als die
+ * Genauigkeit von <code>double</code>.
+ *
+ * Fr die Mitte des Ausschnitts wird ein Referenzorbit Z mit
+ * <code>BigDecimal</code> berechnet. Jeder Pixel c = C + dc iteriert dann nur
+ * seine Abweichung dz = z - Z mit <code>double</code>:
+ * dz' = 2 Z dz + dz + dc. Wird |z| kleiner als |dz| oder luft der
+ * Referenzorbit aus, wird auf den Anfang des Orbits zurckgesetzt (Rebasing).
+ * Die ersten Iterationen werden mit einer Reihenentwicklung
+ * dz = A dc + B dc + C dc bersprungen.
+ */
+public final class PerturbationKernel implements Kernel {
+
+    /**
+     * Ist |z| kleiner als dieser Anteil von |Z|, ist die Abweichung
+     * ungenau geworden (Glitch nach Pauldelbrot) und es wird zurckgesetzt.
+     */
+    static final double GLITCH_TOLERANCE = 1e-6;
+
+    /**
+     * Die Reihenentwicklung wird verwendet, solange das kubische Glied
+     * hchstens diesen Anteil des linearen Glieds ausmacht.
+     */
+    static final double SERIES_TOLERANCE = 1e-12;
+
+    /**
+     * So viele Dezimalstellen werden zustzlich zur Grenordnung des
+     * Pixelabstands fr den Referenzorbit verwendet.
+     */
+    static final int EXTRA_DIGITS = 20;
+
+    private final double bailout;
+
+    /**
+     * Der Kernel wird initialisiert.
+     *
+     * @param bailout Die Schranke fr |z|
+     */
+    public PerturbationKernel(double bailout) {
+        this.bailout = bailout;
+    }
+
+    /**
+     * Ein einzelner Punkt braucht keine Strungsrechnung, es wird einfach
+     * mit <code>double</code> iteriert.
+     */
+    public int iterate(double cr, double ci, int maxIter) {
+        return DoubleKernel.iterate(cr, ci, maxIter, bailout);
+    }
+
+    public Bound bind(Viewport view, int maxIter) {
+        return new Reference(view, maxIter, bailout);
+    }
+
+    /**
+     * Der Referenzorbit eines Ausschnitts. <code>orbitReal[k]</code> enthlt
+     * Z_k mit Z_0 = 0, Z_1 = C, damit beim Rebasing dz = z gesetzt werden kann.
+     */
+    static final class Reference implements Bound {
+        final double step, bailout;
+        final int maxIter, centerX, centerY, length;
+        final double[] orbitReal, orbitImag;
+        int skip;
+        double ar, ai, br, bi, cr, ci;
+
+        Reference(Viewport view, int maxIter, double bailout) {
+            this.step = view.step();
+            this.bailout = bailout;
+            this.maxIter = maxIter;
+            centerX = view.width() / 2;
+            centerY = view.height() / 2;
+
+            int digits = Math.max(17, (int)Math.ceil(-Math.log10(step)) + EXTRA_DIGITS);
+            MathContext mc = new MathContext(digits);
+            BigDecimal refReal = view.startRealExact().add(new BigDecimal(centerX * step), mc);
+            BigDecimal refImag = view.startImagExact().add(new BigDecimal(centerY * step), mc);
+
+            double[] re = new double[maxIter + 2], im = new double[maxIter + 2];
+            BigDecimal zr = BigDecimal.ZERO, zi = BigDecimal.ZERO, two = BigDecimal.valueOf(2);
+            int k = 0;
+            while (k < re.length) {
+                re[k] = zr.doubleValue();
+                im[k] = zi.doubleValue();
+                ++k;
+                if (re[k - 1] * re[k - 1] + im[k - 1] * im[k - 1] > bailout)
+                    break;
+                BigDecimal tmp = two.multiply(zr).multiply(zi, mc).add(refImag, mc);
+                zr = zr.multiply(zr, mc).subtract(zi.multiply(zi, mc), mc).add(refReal, mc);
+                zi = tmp;
+            }
+            length = k;
+            orbitReal = re;
+            orbitImag = im;
+
+            double dx = Math.max(centerX, view.width() - centerX) * step;
+            double dy = Math.max(centerY, view.height() - centerY) * step;
+            series(Math.hypot(dx, dy));
+        }
+
+        /**
+         * Es wird bestimmt, wie viele Iterationen mit der Reihenentwicklung
+         * fr alle Pixel mit |dc| <= <code>radius</code> bersprungen werden.
+         */
+        private void series(double radius) {
+            // dz_1 = dc, also A_1 = 1, B_1 = C_1 = 0
+            double ar = 1, ai = 0, br = 0, bi = 0, cr = 0, ci = 0;
+            int k = 1;
+            double r2 = radius * radius, r3 = r2 * radius;
+            while (k + 1 < length - 1 && k + 1 < maxIter) {
+                double zr = orbitReal[k], zi = orbitImag[k];
+                // A' = 2 Z A + 1, B' = 2 Z B + A, C' = 2 Z C + 2 A B
+                double nar = 2 * (zr * ar - zi * ai) + 1;
+                double nai = 2 * (zr * ai + zi * ar);
+                double nbr = 2 * (zr * br - zi * bi) + ar * ar - ai * ai;
+                double nbi = 2 * (zr * bi + zi * br) + 2 * ar * ai;
+                double ncr = 2 * (zr * cr - zi * ci) + 2 * (ar * br - ai * bi);
+                double nci = 2 * (zr * ci + zi * cr) + 2 * (ar * bi + ai * br);
+                double a = Math.hypot(nar, nai), c = Math.hypot(ncr, nci);
+                double zNext = Math.hypot(orbitReal[k + 1], orbitImag[k + 1]) + a * radius;
+                if (!Double.isFinite(a) || !Double.isFinite(c) || c * r3 > SERIES_TOLERANCE * a * radius
+                    || zNext * zNext > bailout)
+                    break;
+                ar = nar;
+                ai = nai;
+                br = nbr;
+                bi = nbi;
+                cr = ncr;
+                ci = nci;
+                ++k;
+            }
+            skip = k;
+            this.ar = ar;
+            this.ai = ai;
+            this.br = br;
+            this.bi = bi;
+            this.cr = cr;
+            this.ci = ci;
+        }
+
+        public int iterate(int x, int y) {
+            return iterate(x, y, null, 0);
+        }
+
+        public int iterate(int x, int y, float[] smooth, int index) {
+            double dcr = (x - centerX) * step, dci = (y - centerY) * step;
+
+            // dz_skip = A dc + B dc + C dc
+            double dc2r = dcr * dcr - dci * dci, dc2i = 2 * dcr * dci;
+            double dc3r = dc2r * dcr - dc2i * dci, dc3i = dc2r * dci + dc2i * dcr;
+            double dr = ar * dcr - ai * dci + br * dc2r - bi * dc2i + cr * dc3r - ci * dc3i;
+            double di = ar * dci + ai * dcr + br * dc2i + bi * dc2r + cr * dc3i + ci * dc3r;
+
+            int k = skip, n = skip - 1;
+            while (n < maxIter) {
+                double zr = orbitReal[k], zi = orbitImag[k];
+                double fr = zr + dr, fi = zi + di;
+                double f2 = fr * fr + fi * fi;
+                if (f2 > bailout)
+                    return IterationField.escaped(n, f2, smooth, index); // Wahrscheinlich divergent
+                if (f2 < dr * dr + di * di || f2 < GLITCH_TOLERANCE * (zr * zr + zi * zi) || k == length - 1) {
+                    // Rebasing: weiter mit dz = z am Anfang des Referenzorbits
+                    dr = fr;
+                    di = fi;
+                    k = 0;
+                    zr = 0;
+                    zi = 0;
+                }
+                double tr = 2 * zr + dr, ti = 2 * zi + di;
+                double tmp = tr * di + ti * dr + dci;
+                dr = tr * dr - ti * di + dcr;
+                di = tmp;
+                ++k;
+                ++n;
+            }
+            return IterationField.inside(maxIter, smooth, index); // Wahrscheinlich konvergent
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+package render;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Schreibt ein Bild als PNG (8 Bit RGB), ohne das ganze Bild zu kennen.
+ *
+ * Alle Zeilen bilden einen einzigen zlib-Datenstrom. Jede Zeile wird
+ * einzeln gefiltert und komprimiert, nach jedem Aufruf von <code>write</code>
+ * wird der Datenstrom mit <code>SYNC_FLUSH</code> geleert. Die Ausgabe wird
+ * als IDAT-Chunks geschrieben, so dass der Speicherbedarf nur von der
+ * Breite des Bildes abhngt. Jede Zeile wird mit dem Filter Sub
+ * (Differenz zum linken Pixel) gefiltert, der keine vorige Zeile braucht
+ * und fr weiche Farbverlufe gut komprimiert.
+ */
+public final class PngSink implements RasterSink {
+    private static final byte[] SIGNATURE = { (byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+    private static final int FILTER_SUB = 1;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int width, rowsLeft;
+    private byte[] row = new byte[0];
+
+    /**
+     * Es wird mit der blichen Kompressionsstufe 6 komprimiert.
+     *
+     * @param out Der Datenstrom, in den geschrieben wird
+     */
+    public PngSink(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param out Der Datenstrom, in den geschrieben wird
+     * @param level Die Kompressionsstufe von 0 bis 9, 1 ist am schnellsten
+     */
+    public PngSink(OutputStream out, int level) {
+        this.out = out;
+        deflater = new Deflater(level);
+    }
+
+    /**
+     * @throws IllegalArgumentException Wenn eine Zeile des Bildes nicht in
+     *         ein Array passt
+     */
+    public void start(int width, int height) throws IOException {
+        if (width <= 0 || height <= 0 || width > (Integer.MAX_VALUE - 1) / 3)
+            throw new IllegalArgumentException("Bildgre kann nicht als PNG geschrieben werden: " + width + "x"
+                                               + height);
+        this.width = width;
+        rowsLeft = height;
+        out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8; // Bit pro Kanal
+        header[9] = 2; // RGB
+        writeChunk("IHDR", header, header.length);
+    }
+
+    public void write(int[] pixels, int offset, int rows) throws IOException {
+        if (rows > rowsLeft)
+            throw new IllegalStateException("Mehr Zeilen als im Kopf angegeben");
+        rowsLeft -= rows;
+        int stride = 1 + 3 * width;
+        if (row.length != stride)
+            row = new byte[stride];
+        for (int y = 0; y < rows; ++y) {
+            int r = 0, g = 0, b = 0, o = 0;
+            row[o++] = FILTER_SUB;
+            for (int x = 0, i = offset + y * width; x < width; ++x, ++i) {
+                int rgb = pixels[i];
+                int nr = (rgb >> 16) & 0xff, ng = (rgb >> 8) & 0xff, nb = rgb & 0xff;
+                row[o++] = (byte)(nr - r);
+                row[o++] = (byte)(ng - g);
+                row[o++] = (byte)(nb - b);
+                r = nr;
+                g = ng;
+                b = nb;
+            }
+            deflater.setInput(row, 0, stride);
+            while (!deflater.needsInput())
+                deflate(Deflater.NO_FLUSH);
+        }
+        deflate(Deflater.SYNC_FLUSH);
+    }
+
+    /**
+     * Die Ausgabe des Deflaters wird als IDAT-Chunks geschrieben. Bei
+     * <code>NO_FLUSH</code> werden nur volle Chunks geschrieben.
+     */
+    private void deflate(int flush) throws IOException {
+        // Ist der Puffer voll, liegt noch Ausgabe an
+        int n;
+        do {
+            n = deflater.deflate(chunk, 0, chunk.length, flush);
+            if (n > 0)
+                writeChunk("IDAT", chunk, n);
+        } while (n == chunk.length);
+    }
+
+    public void finish() throws IOException {
+        if (rowsLeft != 0)
+            throw new IllegalStateException(rowsLeft + " Zeilen fehlen");
+        deflater.finish();
+        while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            if (n > 0)
+                writeChunk("IDAT", chunk, n);
+        }
+        deflater.end();
+        writeChunk("IEND", chunk, 0);
+        out.flush();
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] head = new byte[8];
+        putInt(head, 0, length);
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(name, 0, head, 4, 4);
+        crc.reset();
+        crc.update(name);
+        crc.update(data, 0, length);
+        out.write(head);
+        out.write(data, 0, length);
+        byte[] tail = new byte[4];
+        putInt(tail, 0, (int)crc.getValue());
+        out.write(tail);
+    }
+
+    private static void putInt(byte[] b, int i, int value) {
+        b[i] = (byte)(value >>> 24);
+        b[i + 1] = (byte)(value >>> 16);
+        b[i + 2] = (byte)(value >>> 8);
+        b[i + 3] = (byte)value;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package render;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Schreibt ein Bild als binres PPM (P6): ein kurzer Textkopf, danach je
+ * drei Bytes pro Pixel ohne Kompression.
+ */
+public final class PpmSink implements RasterSink {
+    private final OutputStream out;
+    private int width, rowsLeft;
+    private byte[] buffer = new byte[0];
+
+    /**
+     * @param out Der Datenstrom, in den geschrieben wird
+     */
+    public PpmSink(OutputStream out) {
+        this.out = out;
+    }
+
+    public void start(int width, int height) throws IOException {
+        this.width = width;
+        rowsLeft = height;
+        out.write(("P6\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public void write(int[] pixels, int offset, int rows) throws IOException {
+        if (rows > rowsLeft)
+            throw new IllegalStateException("Mehr Zeilen als im Kopf angegeben");
+        rowsLeft -= rows;
+        if (buffer.length < 3 * width)
+            buffer = new byte[3 * width];
+        for (int y = 0; y < rows; ++y) {
+            for (int x = 0, i = offset + y * width; x < width; ++x, ++i) {
+                int rgb = pixels[i];
+                buffer[3 * x] = (byte)(rgb >> 16);
+                buffer[3 * x + 1] = (byte)(rgb >> 8);
+                buffer[3 * x + 2] = (byte)rgb;
+            }
+            out.write(buffer, 0, 3 * width);
+        }
+    }
+
+    public void finish() throws IOException {
+        if (rowsLeft != 0)
+            throw new IllegalStateException(rowsLeft + " Zeilen fehlen");
+        out.flush();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package render;
+
+/**
+ * Die Genauigkeitsstufen der Kernel. Je tiefer gezoomt wird, desto
+ * genauer (und langsamer) muss gerechnet werden.
+ */
+public enum Precision {
+    /** Rechnung mit <code>float</code> fr bersichtsbilder */
+    FLOAT,
+    /** Gewhnliche Rechnung mit <code>double</code> */
+    DOUBLE,
+    /** Rechnung mit <code>DoubleDoubleComplex</code> (etwa 106 Bit Mantisse) */
+    DOUBLE_DOUBLE,
+    /** Strungsrechnung um einen genau berechneten Referenzorbit */
+    PERTURBATION;
+
+    /**
+     * So viele Einheiten der letzten Stelle muss der Pixelabstand
+     * mindestens betragen, damit mit <code>double</code> gerechnet werden kann.
+     */
+    static final double DOUBLE_ULPS = 1024;
+
+    /**
+     * Dasselbe fr <code>float</code>. Die Reserve ist grer, da sich die
+     * Rundungsfehler bei nur 24 Bit Mantisse schneller bemerkbar machen.
+     * Bei 2,5 auf 600 Pixeln wird noch mit <code>float</code> gerechnet.
+     */
+    static final double FLOAT_ULPS = 8192;
+
+    /**
+     * Die Einheit der letzten Stelle von Double-Double im Verhltnis zu der
+     * von <code>double</code>. Fr Double-Double gilt dieselbe Reserve von
+     * <code>DOUBLE_ULPS</code>.
+     */
+    static final double DOUBLE_DOUBLE_ULP = 0x1p-53;
+
+    /**
+     * Die Stufe, die fr den Ausschnitt <code>view</code> ntig ist, wird
+     * zurckgegeben. Sie hngt davon ab, wie gro der Pixelabstand im
+     * Verhltnis zu den Koordinaten ist.
+     *
+     * @param view Der Ausschnitt
+     * @return Die ntige Genauigkeitsstufe
+     */
+    public static Precision required(Viewport view) {
+        double step = view.step(), magnitude = magnitude(view), ulp = Math.ulp(magnitude);
+        if (step >= Math.ulp((float)magnitude) * FLOAT_ULPS)
+            return FLOAT;
+        if (step >= ulp * DOUBLE_ULPS)
+            return DOUBLE;
+        if (step >= ulp * DOUBLE_DOUBLE_ULP * DOUBLE_ULPS)
+            return DOUBLE_DOUBLE;
+        return PERTURBATION;
+    }
+
+    /**
+     * Der grte Betrag einer Koordinate im Ausschnitt, mindestens 2,
+     * da die Folge bis |z| = 2 iteriert wird.
+     */
+    static double magnitude(Viewport view) {
+        double endReal = view.startReal() + view.step() * view.width();
+        double endImag = view.startImag() + view.step() * view.height();
+        return Math.max(2, Math.max(Math.max(Math.abs(view.startReal()), Math.abs(endReal)),
+                                    Math.max(Math.abs(view.startImag()), Math.abs(endImag))));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package render;
+
+import java.io.IOException;
+
+/**
+ * Ein <code>RasterSink</code> nimmt die Zeilen eines Bildes im RGB-Format
+ * der Reihe nach entgegen und schreibt sie z.B. in eine Datei. So muss nie
+ * das ganze Bild im Speicher liegen.
+ *
+ * @see StripRenderer
+ */
+public interface RasterSink {
+
+    /**
+     * Ein Bild der angegebenen Gre beginnt.
+     *
+     * @param width Die Breite in Pixeln
+     * @param height Die Hhe in Pixeln
+     * @throws IOException Wenn nicht geschrieben werden kann
+     */
+    void start(int width, int height) throws IOException;
+
+    /**
+     * Die nchsten <code>rows</code> Zeilen werden geschrieben.
+     *
+     * @param pixels Die Pixel im RGB-Format, zeilenweise
+     * @param offset Der Index des ersten Pixels
+     * @param rows Die Anzahl der Zeilen
+     * @throws IOException Wenn nicht geschrieben werden kann
+     */
+    void write(int[] pixels, int offset, int rows) throws IOException;
+
+    /**
+     * Das Bild ist vollstndig. Der Datenstrom wird nicht geschlossen.
+     *
+     * @throws IOException Wenn nicht geschrieben werden kann
+     */
+    void finish() throws IOException;
+}
\ No newline at end of file
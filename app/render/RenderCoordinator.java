@@ -0,0 +1,379 @@
+package render;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Der <code>RenderCoordinator</code> verteilt die Berechnung eines
+ * Ausschnitts ber TCP auf <code>RenderWorker</code> in anderen JVMs.
+ *
+ * Der Ausschnitt wird in Rechtecke von <code>leaseSize</code> Pixeln zerlegt.
+ * Jeder Worker holt sich das nchste freie Rechteck, sobald er Platz hat; er
+ * hlt bis zu <code>PREFETCH</code> Rechtecke, damit er zwischen zwei
+ * Ergebnissen nicht auf das Netz warten muss. Sind keine freien Rechtecke
+ * mehr brig, bernimmt ein unttiger Worker ein Rechteck, das noch bei einem
+ * anderen liegt. Das erste Ergebnis gilt, beide sind gleich.
+ *
+ * Schickt ein Worker lnger als <code>timeout</code> Millisekunden kein
+ * Ergebnis oder bricht die Verbindung ab, wird er getrennt und seine
+ * Rechtecke werden neu vergeben. Worker knnen jederzeit dazukommen.
+ *
+ * Die Worker berechnen ihre Rechtecke mit
+ * <code>RenderEngine.render(view, kernel, maxIter, region, x0, y0)</code>,
+ * das Ergebnis ist daher genau dasselbe wie in einem einzelnen Prozess.
+ * Das Protokoll steht in <code>WireFormat</code>.
+ */
+public final class RenderCoordinator implements Closeable {
+
+    /**
+     * So viele Rechtecke hlt ein Worker hchstens gleichzeitig.
+     */
+    private static final int PREFETCH = 2;
+
+    private final ServerSocket server;
+    private final int leaseSize, timeout;
+    private final Set<Connection> connections = new HashSet<>();
+    private Job job = null;
+    private int jobs = 0;
+    private long issued = 0, reissued = 0, stolen = 0, received = 0;
+    private volatile boolean closed = false;
+
+    /**
+     * Der Koordinator wartet ab sofort auf Worker.
+     *
+     * @param port Der Port, 0 fr einen freien
+     * @param leaseSize Die Kante eines Rechtecks, ein Vielfaches von
+     *        <code>RenderEngine.TILE_SIZE</code>
+     * @param timeout So viele Millisekunden darf ein Worker fr ein Rechteck brauchen
+     * @throws IOException Wenn der Port nicht geffnet werden kann
+     */
+    public RenderCoordinator(int port, int leaseSize, int timeout) throws IOException {
+        if (leaseSize <= 0 || leaseSize % RenderEngine.TILE_SIZE != 0)
+            throw new IllegalArgumentException("Die Kante muss ein Vielfaches von " + RenderEngine.TILE_SIZE
+                                               + " sein: " + leaseSize);
+        if (timeout <= 0)
+            throw new IllegalArgumentException("Zeitlimit muss positiv sein");
+        this.leaseSize = leaseSize;
+        this.timeout = timeout;
+        server = new ServerSocket(port);
+        Thread t = new Thread(this::accept, "RenderCoordinator");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    public synchronized int workers() {
+        return connections.size();
+    }
+
+    /**
+     * Der Ausschnitt <code>view</code> wird von den Workern in das Feld
+     * <code>field</code> berechnet. Die Methode kehrt erst zurck, wenn alle
+     * Rechtecke da sind, und wartet solange auch auf Worker.
+     *
+     * @param view Der Ausschnitt
+     * @param kernel Der Name des Kernels, wie ihn die Worker kennen
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @param field Das Ergebnis, so gro wie der Ausschnitt
+     * @throws IOException Wenn ein Worker den Auftrag ablehnt oder der
+     *         Koordinator geschlossen wird
+     */
+    public void render(Viewport view, String kernel, int maxIter, IterationField field) throws IOException {
+        if (field.width() != view.width() || field.height() != view.height())
+            throw new IllegalArgumentException("Feld und Ausschnitt sind verschieden gro");
+        field.setContent(null, null);
+        field.setMaxIter(maxIter);
+        synchronized (this) {
+            if (job != null)
+                throw new IllegalStateException("Es luft schon ein Auftrag");
+            Job current = new Job(++jobs, view, kernel, maxIter, field, leaseSize);
+            job = current;
+            notifyAll();
+            try {
+                while (current.remaining > 0 && current.error == null && !closed)
+                    wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Verteilte Berechnung unterbrochen");
+            } finally {
+                job = null;
+            }
+            if (current.error != null)
+                throw new IOException("Worker lehnt den Auftrag ab: " + current.error);
+            if (current.remaining > 0)
+                throw new IOException("Koordinator wurde geschlossen");
+        }
+    }
+
+    /**
+     * Der Port und alle Verbindungen werden geschlossen. Die Worker beenden
+     * sich daraufhin.
+     */
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        synchronized (this) {
+            for (Connection c : connections) {
+                try {
+                    c.socket.close();
+                } catch (IOException e) {
+                    // Die Verbindung ist schon weg
+                }
+            }
+            notifyAll();
+        }
+    }
+
+    public synchronized String toString() {
+        return "RenderCoordinator[" + connections.size() + " Worker, " + issued + " Rechtecke vergeben, "
+            + reissued + " neu vergeben, " + stolen + " bernommen, " + (received >> 10) + " KiB empfangen]";
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                Connection c = new Connection(socket);
+                synchronized (this) {
+                    connections.add(c);
+                }
+                Thread t = new Thread(c, "RenderCoordinator " + socket.getRemoteSocketAddress());
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                if (closed)
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Das nchste Rechteck fr einen Worker wird zurckgegeben. Gibt es keins,
+     * wird gewartet, falls <code>wait</code> gesetzt ist, sonst null
+     * zurckgegeben. Nach dem Schlieen wird immer null zurckgegeben.
+     */
+    private synchronized Lease next(Connection c, boolean wait) {
+        for (;;) {
+            if (closed)
+                return null;
+            if (job != null && job.error == null) {
+                Lease lease = job.pending.poll();
+                while (lease != null && lease.done)
+                    lease = job.pending.poll();
+                if (lease == null && (lease = steal(c)) != null)
+                    ++stolen;
+                if (lease != null) {
+                    ++lease.holders;
+                    ++lease.issues;
+                    ++issued;
+                    return lease;
+                }
+            }
+            if (!wait)
+                return null;
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Das lteste Rechteck, das bisher nur ein anderer Worker hlt, wird
+     * zurckgegeben.
+     */
+    private Lease steal(Connection c) {
+        for (Lease lease : job.leases) {
+            if (!lease.done && lease.holders == 1 && lease.issues == 1 && !c.outstanding.contains(lease))
+                return lease;
+        }
+        return null;
+    }
+
+    /**
+     * Das Ergebnis eines Rechtecks wird bernommen, falls es noch fehlt.
+     */
+    private synchronized void complete(Lease lease, IterationField region, int bytes) {
+        --lease.holders;
+        received += bytes;
+        if (lease.done || lease.job != job)
+            return;
+        lease.done = true;
+        IterationField field = lease.job.field;
+        for (int y = 0; y < lease.height; ++y) {
+            int dst = (lease.y0 + y) * field.width() + lease.x0;
+            System.arraycopy(region.iterations(), y * lease.width, field.iterations(), dst, lease.width);
+            if (field.smooth() != null)
+                System.arraycopy(region.smooth(), y * lease.width, field.smooth(), dst, lease.width);
+        }
+        if (--lease.job.remaining == 0)
+            notifyAll();
+    }
+
+    /**
+     * Die Rechtecke eines getrennten Workers werden neu vergeben, soweit
+     * sie nicht fertig sind und kein anderer Worker sie hlt.
+     */
+    private synchronized void release(Connection c, String error) {
+        connections.remove(c);
+        for (Lease lease : c.outstanding) {
+            if (--lease.holders == 0 && !lease.done && lease.job == job) {
+                job.pending.addFirst(lease);
+                ++reissued;
+            }
+        }
+        c.outstanding.clear();
+        if (error != null && job != null)
+            job.error = error;
+        notifyAll();
+    }
+
+    private final class Connection implements Runnable {
+        final Socket socket;
+        final ArrayDeque<Lease> outstanding = new ArrayDeque<>();
+        private DataInputStream in;
+        private DataOutputStream out;
+        private Job sent = null;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        public void run() {
+            String error = null;
+            try (socket) {
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(timeout);
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                if (in.readInt() != WireFormat.MAGIC || in.readInt() != WireFormat.VERSION)
+                    return;
+                for (;;) {
+                    Lease lease;
+                    while (outstanding.size() < PREFETCH && (lease = next(this, outstanding.isEmpty())) != null)
+                        send(lease);
+                    if (outstanding.isEmpty())
+                        return;
+                    error = receive();
+                    if (error != null)
+                        return;
+                }
+            } catch (IOException e) {
+                // Worker abgebrochen oder zu langsam, seine Rechtecke gehen an andere
+            } finally {
+                release(this, error);
+            }
+        }
+
+        private void send(Lease lease) throws IOException {
+            outstanding.add(lease);
+            Job job = lease.job;
+            if (sent != job) {
+                out.writeByte(WireFormat.JOB);
+                out.writeInt(job.id);
+                out.writeUTF(job.view.startRealExact().toString());
+                out.writeUTF(job.view.startImagExact().toString());
+                out.writeDouble(job.view.step());
+                out.writeInt(job.view.width());
+                out.writeInt(job.view.height());
+                out.writeInt(job.maxIter);
+                out.writeUTF(job.kernel);
+                out.writeBoolean(job.field.smooth() != null);
+                sent = job;
+            }
+            out.writeByte(WireFormat.LEASE);
+            out.writeInt(job.id);
+            out.writeInt(lease.id);
+            out.writeInt(lease.x0);
+            out.writeInt(lease.y0);
+            out.writeInt(lease.width);
+            out.writeInt(lease.height);
+            out.flush();
+        }
+
+        /**
+         * Das Ergebnis des ltesten Rechtecks wird gelesen. Lehnt der Worker
+         * den Auftrag ab, wird seine Meldung zurckgegeben.
+         */
+        private String receive() throws IOException {
+            int type = in.read();
+            if (type < 0)
+                throw new EOFException();
+            if (type == WireFormat.ERROR)
+                return in.readUTF();
+            if (type != WireFormat.RESULT)
+                throw new IOException("Unbekannte Nachricht " + type);
+            int jobId = in.readInt(), leaseId = in.readInt(), length = in.readInt();
+            Lease lease = outstanding.peek();
+            if (lease == null || lease.job.id != jobId || lease.id != leaseId || length < 0)
+                throw new IOException("Unerwartetes Ergebnis " + jobId + "/" + leaseId);
+            byte[] data = new byte[length];
+            in.readFully(data);
+            IterationField region = new IterationField(lease.width, lease.height, lease.job.field.smooth() != null);
+            WireFormat.decode(data, region);
+            outstanding.poll();
+            complete(lease, region, length);
+            return null;
+        }
+    }
+
+    private static final class Job {
+        final int id, maxIter;
+        final Viewport view;
+        final String kernel;
+        final IterationField field;
+        final List<Lease> leases = new ArrayList<>();
+        final ArrayDeque<Lease> pending;
+        int remaining;
+        String error = null;
+
+        Job(int id, Viewport view, String kernel, int maxIter, IterationField field, int leaseSize) {
+            this.id = id;
+            this.view = view;
+            this.kernel = kernel;
+            this.maxIter = maxIter;
+            this.field = field;
+            for (int y0 = 0; y0 < view.height(); y0 += leaseSize) {
+                for (int x0 = 0; x0 < view.width(); x0 += leaseSize)
+                    leases.add(new Lease(this, leases.size(), x0, y0, Math.min(leaseSize, view.width() - x0),
+                                         Math.min(leaseSize, view.height() - y0)));
+            }
+            pending = new ArrayDeque<>(leases);
+            remaining = leases.size();
+        }
+    }
+
+    private static final class Lease {
+        final Job job;
+        final int id, x0, y0, width, height;
+        // Von wie vielen Workern das Rechteck gerade berechnet wird und wie oft es vergeben wurde
+        int holders = 0, issues = 0;
+        boolean done = false;
+
+        Lease(Job job, int id, int x0, int y0, int width, int height) {
+            this.job = job;
+            this.id = id;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,1095 @@
+package render;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Die <code>RenderEngine</code> zerlegt einen Ausschnitt in Kacheln und
+ * berechnet diese parallel in einem <code>ForkJoinPool</code>.
+ * Da Kacheln im Inneren der Mandelbrotmenge viel teurer sind als auen,
+ * werden die Kacheln rekursiv halbiert, so dass freie Threads sich per
+ * Work-Stealing die restliche Arbeit nehmen knnen.
+ *
+ * Optional wird jede Kachel nach Mariani-Silver unterteilt: Es wird nur der
+ * Rand eines Rechtecks berechnet. Hat der ganze Rand dieselbe Anzahl von
+ * Iterationen, wird das Innere damit gefllt, sonst wird das Rechteck
+ * geviertelt und jedes Viertel als eigene Aufgabe weiter unterteilt.
+ * Bei gegltteten Iterationen muss auch deren Wert auf dem ganzen Rand
+ * gleich sein, sonst entstnden flache Flecken mit Kanten im Verlauf. Das
+ * trifft praktisch nur im Inneren der Menge zu.
+ *
+ * Im progressiven Modus wird das Bild zuerst mit 1/16, dann mit 1/4 und
+ * zuletzt mit voller Auflsung berechnet. Jeder Durchgang bernimmt die
+ * bereits berechneten Punkte des vorigen und fllt die brigen Pixel
+ * blockweise auf.
+ *
+ * Mit <code>submit</code> wird ein Bild im Hintergrund berechnet. Jeder
+ * Auftrag erhlt eine Generationsnummer. Sobald ein neuerer Auftrag kommt,
+ * brechen die Kacheln des alten an der nchsten Zeile ab und es wird
+ * hchstens ein Auftrag vorgemerkt.
+ *
+ * Ist ein <code>TileCache</code> gesetzt, liegen die Kacheln auf dessen
+ * Raster der komplexen Ebene statt am Rand des Ausschnitts. Vollstndige
+ * Kacheln werden dann im ersten Durchgang aus dem Cache bernommen und nach
+ * dem letzten Durchgang dort abgelegt.
+ *
+ * Wird in ein <code>IterationField</code> berechnet, das schon ein
+ * vollstndiges Bild mit demselben Kernel und derselben maximalen Anzahl
+ * der Iterationen enthlt, werden dessen Pixel bernommen, soweit sie im
+ * neuen Ausschnitt wieder vorkommen. Das ist beim Verschieben um ganze
+ * Pixel und beim Herauszoomen um ganzzahlige Faktoren der Fall.
+ *
+ * Die Mandelbrotmenge ist symmetrisch zur reellen Achse. Liegt die Achse im
+ * Ausschnitt auf einer Pixelzeile oder genau zwischen zwei Zeilen, sind die
+ * Koordinaten der Zeilen dort genau symmetrisch (siehe
+ * <code>Viewport.axis</code>). Die Zeilen der kleineren Seite werden dann
+ * nicht berechnet, sondern nach jedem Durchgang von ihren Spiegelbildern
+ * kopiert. Das gilt nur fr die Zeilen, deren Punkte der Kernel exakt
+ * gespiegelt berechnet, so dass das Bild dasselbe bleibt wie ohne
+ * Spiegelung.
+ *
+ * Ein Rechteck eines Ausschnitts kann auch fr sich berechnet werden, mit
+ * denselben Pixeln wie im ganzen Bild. So lsst sich ein Bild auf mehrere
+ * Rechner verteilen, siehe <code>RenderCoordinator</code>.
+ *
+ * Sind <code>RenderMetrics</code> gesetzt, misst jede Kachel ihre Zeit und
+ * zhlt ihre Pixel, siehe dort.
+ */
+public class RenderEngine {
+
+    /**
+     * Die Kantenlnge einer Kachel in Pixeln.
+     */
+    public static final int TILE_SIZE = 32;
+
+    /**
+     * Rechtecke mit hchstens so vielen inneren Pixeln werden bei der
+     * Unterteilung direkt berechnet.
+     */
+    private static final int SUBDIVIDE_MIN_AREA = 16;
+
+    /**
+     * Rechtecke mit mindestens so vielen inneren Pixeln werden bei der
+     * Unterteilung als eigene Aufgaben parallel berechnet.
+     */
+    private static final int SUBDIVIDE_FORK_AREA = 256;
+
+    /**
+     * Die Blockgre des ersten progressiven Durchgangs. Jeder weitere
+     * Durchgang halbiert sie.
+     */
+    private static final int PROGRESSIVE_BLOCK = 4;
+
+    /**
+     * So weit darf ein bernommener Pixel hchstens (in Pixeln) von seiner
+     * Lage abweichen, wie beim Raster des <code>TileCache</code>.
+     */
+    private static final double ALIGNMENT_TOLERANCE = 1.0 / TileCache.PHASES;
+
+    private final ForkJoinPool pool;
+    private volatile boolean subdivide = false, progressive = false, symmetric = true;
+    private volatile TileCache cache = null;
+    private volatile RenderMetrics metrics = null;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Object lock = new Object();
+    private Frame next = null;
+    private RenderListener nextListener = null;
+    private Thread submitThread = null;
+    private boolean shutdown = false;
+
+    /**
+     * Die Engine verwendet einen Thread pro Prozessor.
+     */
+    public RenderEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Die Engine verwendet <code>threads</code> Threads.
+     *
+     * @param threads Die Anzahl der Threads
+     */
+    public RenderEngine(int threads) {
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Der Ausschnitt <code>view</code> wird berechnet. Fr jeden Pixel wird die
+     * Anzahl der Iterationen zeilenweise in <code>field</code> geschrieben.
+     * Die Methode kehrt erst zurck, wenn alle Kacheln fertig sind.
+     *
+     * @param view Der Ausschnitt
+     * @param kernel Der Kernel, der die Iterationen berechnet
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @param field Das Ergebnis, mindestens <code>width * height</code> gro
+     */
+    public void render(Viewport view, Kernel kernel, int maxIter, int[] field) {
+        render(frame(view, kernel, maxIter, field, null, null, null, null), null);
+    }
+
+    /**
+     * Der Ausschnitt <code>view</code> wird in das Feld <code>field</code>
+     * berechnet, auf Wunsch des Felds mit gegltteten Iterationen.
+     * Eingefrbt wird danach getrennt mit einem <code>Coloring</code>.
+     *
+     * @param view Der Ausschnitt
+     * @param kernel Der Kernel, der die Iterationen berechnet
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @param field Das Ergebnis, so gro wie der Ausschnitt
+     */
+    public void render(Viewport view, Kernel kernel, int maxIter, IterationField field) {
+        render(frame(view, kernel, maxIter, field.iterations(), field, null, null, null), null);
+    }
+
+    /**
+     * Wie <code>render(view, kernel, maxIter, field)</code>, ein Teil der
+     * Pixel steht aber schon in <code>field</code>: die im Rechteck (x0, y0)
+     * bis ausschlielich (x1, y1) und, falls <code>known</code> grer als 1
+     * ist, die, deren Spalte und Zeile Vielfache von <code>known</code> sind.
+     */
+    void render(Viewport view, Kernel kernel, int maxIter, IterationField field, int known,
+                int x0, int y0, int x1, int y1) {
+        field.setContent(null, null);
+        Frame frame = frame(view, kernel, maxIter, field.iterations(), field, null, null, null);
+        if (known > 1)
+            frame.lattice = known;
+        frame.reusedX0 = x0;
+        frame.reusedY0 = y0;
+        frame.reusedX1 = x1;
+        frame.reusedY1 = y1;
+        render(frame, null);
+    }
+
+    /**
+     * Das Rechteck mit der Ecke (x0, y0) in der Gre von <code>region</code>
+     * wird aus dem Ausschnitt <code>view</code> berechnet. Die Pixel sind
+     * dieselben, die <code>render</code> ohne Cache und ohne Unterteilung fr
+     * den ganzen Ausschnitt berechnet: Der Kernel wird an den ganzen Ausschnitt
+     * gebunden, jede Zeile wird in denselben Kachelspalten berechnet und
+     * gespiegelte Zeilen werden von ihrem Spiegelbild genommen. Dazu muss das
+     * Rechteck links und rechts auf Kachelgrenzen oder dem Rand liegen.
+     *
+     * @param view Der ganze Ausschnitt
+     * @param kernel Der Kernel, der die Iterationen berechnet
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @param region Das Ergebnis fr das Rechteck
+     * @param x0 Die erste Spalte des Rechtecks
+     * @param y0 Die erste Zeile des Rechtecks
+     */
+    public void render(Viewport view, Kernel kernel, int maxIter, IterationField region, int x0, int y0) {
+        int x1 = x0 + region.width(), y1 = y0 + region.height();
+        if (x0 < 0 || y0 < 0 || x1 > view.width() || y1 > view.height() || x0 % TILE_SIZE != 0
+            || x1 % TILE_SIZE != 0 && x1 != view.width())
+            throw new IllegalArgumentException("Rechteck liegt nicht auf den Kachelspalten: " + x0 + "," + y0
+                                               + " " + region.width() + "x" + region.height());
+        Frame frame = new Frame(view, kernel, maxIter, false, false, symmetric, null, null, null, null,
+                                null, null, null, 0);
+        frame.bind();
+        region.setContent(null, null);
+        region.setMaxIter(maxIter);
+        pool.invoke(new RegionTask(frame, region, x0, y0, y0, y1));
+    }
+
+    /**
+     * Der Ausschnitt <code>view</code> wird berechnet und die Farbe jedes Pixels
+     * direkt in <code>pixels</code> geschrieben, z.B. in den Datenpuffer eines
+     * <code>BufferedImage</code> vom Typ <code>TYPE_INT_RGB</code>.
+     * Jede Kachel schreibt in einen eigenen Bereich, daher ist keine
+     * Synchronisation ntig.
+     *
+     * @param view Der Ausschnitt
+     * @param kernel Der Kernel, der die Iterationen berechnet
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @param palette Die Palette, mit der die Pixel eingefrbt werden
+     * @param pixels Das Ergebnis, mindestens <code>width * height</code> gro
+     */
+    public void render(Viewport view, Kernel kernel, int maxIter, Palette palette, int[] pixels) {
+        render(view, kernel, maxIter, palette, pixels, null);
+    }
+
+    /**
+     * Wie <code>render(view, kernel, maxIter, palette, pixels)</code>, nach
+     * jedem Durchgang wird aber <code>listener</code> benachrichtigt.
+     *
+     * @param view Der Ausschnitt
+     * @param kernel Der Kernel, der die Iterationen berechnet
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @param palette Die Palette, mit der die Pixel eingefrbt werden
+     * @param pixels Das Ergebnis, mindestens <code>width * height</code> gro
+     * @param listener Wird nach jedem Durchgang benachrichtigt, darf null sein
+     */
+    public void render(Viewport view, Kernel kernel, int maxIter, Palette palette, int[] pixels, RenderListener listener) {
+        render(frame(view, kernel, maxIter, new int[view.width() * view.height()], null, palette, pixels, null),
+               listener);
+    }
+
+    /**
+     * Der Ausschnitt <code>view</code> wird im Hintergrund berechnet und
+     * eingefrbt. Ein noch laufender oder wartender Auftrag wird verworfen;
+     * dessen Listener wird nicht mehr benachrichtigt.
+     *
+     * @param view Der Ausschnitt
+     * @param kernel Der Kernel, der die Iterationen berechnet
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @param palette Die Palette, mit der die Pixel eingefrbt werden
+     * @param pixels Das Ergebnis, mindestens <code>width * height</code> gro
+     * @param listener Wird nach jedem Durchgang benachrichtigt, darf null sein
+     * @return Die Generationsnummer des Auftrags
+     */
+    public long submit(Viewport view, Kernel kernel, int maxIter, Palette palette, int[] pixels, RenderListener listener) {
+        return submit(frame(view, kernel, maxIter, new int[view.width() * view.height()], null, palette, pixels,
+                            generation), listener);
+    }
+
+    /**
+     * Der Ausschnitt <code>view</code> wird im Hintergrund in das Feld
+     * <code>field</code> berechnet. Der Listener frbt es blicherweise mit
+     * einem <code>Coloring</code> ein. Ein noch laufender oder wartender
+     * Auftrag wird verworfen.
+     *
+     * @param view Der Ausschnitt
+     * @param kernel Der Kernel, der die Iterationen berechnet
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @param field Das Ergebnis, so gro wie der Ausschnitt
+     * @param listener Wird nach jedem Durchgang benachrichtigt, darf null sein
+     * @return Die Generationsnummer des Auftrags
+     */
+    public long submit(Viewport view, Kernel kernel, int maxIter, IterationField field, RenderListener listener) {
+        return submit(frame(view, kernel, maxIter, field.iterations(), field, null, null, generation), listener);
+    }
+
+    private long submit(Frame frame, RenderListener listener) {
+        synchronized (lock) {
+            if (shutdown)
+                throw new IllegalStateException("RenderEngine wurde beendet");
+            next = frame;
+            nextListener = listener;
+            if (submitThread == null) {
+                submitThread = new Thread(this::runSubmitted, "RenderEngine");
+                submitThread.setDaemon(true);
+                submitThread.start();
+            }
+            lock.notifyAll();
+            return frame.generation;
+        }
+    }
+
+    /**
+     * Der laufende und der wartende Auftrag werden verworfen.
+     */
+    public void cancel() {
+        synchronized (lock) {
+            generation.incrementAndGet();
+            next = null;
+            nextListener = null;
+        }
+    }
+
+    private Frame frame(Viewport view, Kernel kernel, int maxIter, int[] field, IterationField target,
+                        Palette palette, int[] pixels, AtomicLong current) {
+        TileCache cache = this.cache;
+        Frame frame = new Frame(view, kernel, maxIter, subdivide, progressive, symmetric, field, target, palette,
+                                pixels, cache, cache == null ? null : TileCache.grid(view, kernel, maxIter),
+                                current, current == null ? 0 : current.incrementAndGet());
+        frame.metrics = metrics;
+        return frame;
+    }
+
+    private void runSubmitted() {
+        for (;;) {
+            Frame frame;
+            RenderListener listener;
+            synchronized (lock) {
+                while (next == null && !shutdown) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (shutdown)
+                    return;
+                frame = next;
+                listener = nextListener;
+                next = null;
+                nextListener = null;
+            }
+            render(frame, listener);
+        }
+    }
+
+    /**
+     * Die Unterteilung nach Mariani-Silver wird ein- oder ausgeschaltet.
+     * Sie spart groe Teile der Berechnung in einfarbigen Gebieten, kann aber
+     * feine Strukturen bersehen, die den Rand eines Rechtecks nicht berhren.
+     *
+     * @param subdivide true, wenn unterteilt werden soll
+     */
+    public void setSubdivide(boolean subdivide) {
+        this.subdivide = subdivide;
+    }
+
+    /**
+     * Es wird zurckgegeben, ob nach Mariani-Silver unterteilt wird.
+     *
+     * @return true, wenn unterteilt wird
+     */
+    public boolean isSubdivide() {
+        return subdivide;
+    }
+
+    /**
+     * Der progressive Modus wird ein- oder ausgeschaltet. Das fertige Bild ist
+     * in beiden Fllen gleich, progressiv ist aber schon nach einem Bruchteil
+     * der Zeit ein grobes Bild zu sehen.
+     *
+     * @param progressive true, wenn grob beginnend verfeinert werden soll
+     */
+    public void setProgressive(boolean progressive) {
+        this.progressive = progressive;
+    }
+
+    /**
+     * Es wird zurckgegeben, ob progressiv berechnet wird.
+     *
+     * @return true, wenn progressiv berechnet wird
+     */
+    public boolean isProgressive() {
+        return progressive;
+    }
+
+    /**
+     * Die Ausnutzung der Symmetrie zur reellen Achse wird ein- oder
+     * ausgeschaltet. Das Bild bleibt dasselbe, da die Koordinaten des
+     * Ausschnitts in beiden Fllen symmetrisch sind.
+     *
+     * @param symmetric true, wenn gespiegelte Zeilen kopiert werden sollen
+     */
+    public void setSymmetric(boolean symmetric) {
+        this.symmetric = symmetric;
+    }
+
+    /**
+     * Es wird zurckgegeben, ob gespiegelte Zeilen kopiert werden.
+     *
+     * @return true, wenn die Symmetrie ausgenutzt wird
+     */
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    /**
+     * Der Cache fr berechnete Kacheln wird gesetzt. Er gilt ab dem nchsten
+     * Auftrag und kann von mehreren Engines geteilt werden.
+     *
+     * @param cache Der Cache, null schaltet ihn ab
+     */
+    public void setTileCache(TileCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Der Cache fr berechnete Kacheln wird zurckgegeben.
+     *
+     * @return Der Cache oder null
+     */
+    public TileCache getTileCache() {
+        return cache;
+    }
+
+    /**
+     * Die Metriken werden gesetzt. Sie gelten ab dem nchsten Auftrag und
+     * knnen von mehreren Engines geteilt werden.
+     *
+     * @param metrics Die Metriken, null schaltet sie ab
+     */
+    public void setMetrics(RenderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Die Metriken werden zurckgegeben.
+     *
+     * @return Die Metriken oder null
+     */
+    public RenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void render(Frame frame, RenderListener listener) {
+        if (frame.tiles() == 0)
+            return;
+        if (frame.metrics != null)
+            frame.stats = new RenderMetrics.FrameStats();
+        boolean complete = false;
+        try {
+            complete = renderPasses(frame, listener);
+        } finally {
+            if (frame.stats != null)
+                frame.metrics.finish(frame.stats, complete, pool.getParallelism());
+        }
+        if (complete && listener != null)
+            listener.frameUpdated(true);
+    }
+
+    /**
+     * Die Durchgnge eines Bildes werden berechnet. Es wird zurckgegeben, ob
+     * das Bild fertig ist.
+     */
+    private boolean renderPasses(Frame frame, RenderListener listener) {
+        frame.bind();
+        if (frame.cancelled())
+            return false;
+        if (frame.target != null) {
+            IterationField target = frame.target;
+            frame.reuse(target.view(), target.kernel(), target.maxIter());
+            target.setContent(null, null);
+            target.setMaxIter(frame.maxIter);
+        }
+        int known = 0;
+        if (frame.progressive && frame.lattice == 0) {
+            for (int block = PROGRESSIVE_BLOCK; block > 1; block >>= 1) {
+                pool.invoke(new TileTask(frame, 0, frame.tiles(), block, known));
+                frame.mirror();
+                known = block;
+                if (frame.cancelled())
+                    return false;
+                if (listener != null)
+                    listener.frameUpdated(false);
+            }
+        }
+        pool.invoke(new TileTask(frame, 0, frame.tiles(), 1, known));
+        frame.mirror();
+        if (frame.cancelled())
+            return false;
+        if (frame.cache != null)
+            frame.store();
+        if (frame.target != null)
+            frame.target.setContent(frame.view, frame.kernel);
+        frame.bound.finished();
+        return true;
+    }
+
+    /**
+     * Eine Aufgabe luft in den Threads der Engine, z.B. die zustzlichen
+     * Abtastungen von <code>Antialiasing</code>.
+     */
+    void invoke(ForkJoinTask<?> task) {
+        pool.invoke(task);
+    }
+
+    /**
+     * Die Threads der Engine werden beendet.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            generation.incrementAndGet();
+            next = null;
+            nextListener = null;
+            lock.notifyAll();
+        }
+        pool.shutdown();
+    }
+
+    private static final class Frame {
+        final Viewport view;
+        final Kernel kernel;
+        final int maxIter, width, tilesX, tilesY, originX, originY;
+        final boolean subdivide, progressive;
+        final boolean symmetric;
+        // Die Zeilen y mit mirrored[y] werden von der Zeile mirrorAxis - y kopiert
+        int mirrorAxis = -1;
+        boolean[] mirrored = null;
+        final int[] field;
+        final float[] smooth;
+        final IterationField target;
+        final Palette palette;
+        final int[] pixels;
+        final TileCache cache;
+        final TileCache.Grid grid;
+        final boolean[] cached;
+        final AtomicLong current;
+        final long generation;
+        Kernel.Bound bound;
+        // Das Rechteck der aus dem vorigen Bild bernommenen Pixel
+        int reusedX0, reusedY0, reusedX1, reusedY1;
+        // Die Pixel, deren Spalte und Zeile Vielfache davon sind, stehen schon im Feld
+        int lattice;
+        RenderMetrics metrics;
+        RenderMetrics.FrameStats stats;
+
+        Frame(Viewport view, Kernel kernel, int maxIter, boolean subdivide, boolean progressive,
+              boolean symmetric, int[] field, IterationField target, Palette palette, int[] pixels, TileCache cache,
+              TileCache.Grid grid, AtomicLong current, long generation) {
+            this.view = view;
+            this.kernel = kernel;
+            this.maxIter = maxIter;
+            this.symmetric = symmetric;
+            this.subdivide = subdivide;
+            this.progressive = progressive;
+            this.field = field;
+            this.target = target;
+            this.smooth = target != null ? target.smooth() : null;
+            this.palette = palette;
+            this.pixels = pixels;
+            this.cache = cache;
+            this.grid = grid;
+            this.current = current;
+            this.generation = generation;
+            width = view.width();
+            originX = grid != null ? grid.originX : 0;
+            originY = grid != null ? grid.originY : 0;
+            tilesX = (originX + view.width() + TILE_SIZE - 1) / TILE_SIZE;
+            tilesY = (originY + view.height() + TILE_SIZE - 1) / TILE_SIZE;
+            cached = grid != null ? new boolean[tilesX * tilesY] : null;
+        }
+
+        /**
+         * Der Kernel wird an den Ausschnitt gebunden. Liegt die reelle Achse
+         * auf einer Pixelzeile oder genau zwischen zwei Zeilen, werden die
+         * Zeilen der kleineren Seite bestimmt, die der Kernel exakt wie ihr
+         * Spiegelbild berechnet.
+         */
+        void bind() {
+            bound = kernel.bind(view, maxIter);
+            // Die Zeilen y und a - y liegen spiegelbildlich zur reellen Achse
+            int a = symmetric ? view.axis() : -1;
+            if (a < 0)
+                return;
+            boolean[] rows = new boolean[view.height()];
+            boolean any = false;
+            for (int y = a / 2 + 1; y <= a && y < rows.length; ++y) {
+                rows[y] = bound.mirrors(y, a - y);
+                any |= rows[y];
+            }
+            if (any) {
+                mirrorAxis = a;
+                mirrored = rows;
+            }
+        }
+
+        /**
+         * Es wird geprft, ob die Zeile y von ihrem Spiegelbild kopiert wird.
+         */
+        boolean mirrored(int y) {
+            return mirrored != null && y >= 0 && y < mirrored.length && mirrored[y];
+        }
+
+        int tiles() {
+            return tilesX * tilesY;
+        }
+
+        /**
+         * Es wird geprft, ob inzwischen ein neuerer Auftrag vorliegt.
+         */
+        boolean cancelled() {
+            return current != null && current.get() != generation;
+        }
+
+        /**
+         * Die Kachel <code>tile</code> wird berechnet. Ist <code>block</code>
+         * grer als 1, wird nur jeder <code>block</code>-te Punkt berechnet und
+         * der Block damit gefllt. Die Punkte, deren Abstand zur Ecke der Kachel
+         * ein Vielfaches von <code>known</code> ist, wurden schon in einem
+         * frheren Durchgang berechnet.
+         */
+        void renderTile(int tile, int block, int known) {
+            if (cancelled())
+                return;
+            long start = stats != null ? System.nanoTime() : 0;
+            int column = tile % tilesX, row = tile / tilesX;
+            int x0 = column * TILE_SIZE - originX, y0 = row * TILE_SIZE - originY;
+            int x1 = Math.min(x0 + TILE_SIZE, view.width()), y1 = Math.min(y0 + TILE_SIZE, view.height());
+            x0 = Math.max(x0, 0);
+            y0 = Math.max(y0, 0);
+            boolean complete = x1 - x0 == TILE_SIZE && y1 - y0 == TILE_SIZE;
+            if (complete && known == 0 && cache != null) {
+                cached[tile] = load(grid.key(column, row), x0, y0);
+                if (stats != null)
+                    (cached[tile] ? stats.hits : stats.misses).increment();
+            }
+            if (cached == null || !cached[tile]) {
+                // Die gespiegelten Zeilen werden ausgelassen
+                for (int y = y0, end; y < y1; y = end) {
+                    end = y + 1;
+                    if (mirrored(y))
+                        continue;
+                    while (end < y1 && !mirrored(end))
+                        ++end;
+                    computeAround(x0, y, x1, end, block, known);
+                }
+            }
+            long computed = stats != null ? System.nanoTime() : 0;
+            if (palette != null && !cancelled()) {
+                for (int y = y0; y < y1; ++y) {
+                    for (int i = y * width + x0, end = y * width + x1; i < end; ++i)
+                        pixels[i] = palette.color(field[i], maxIter);
+                }
+            }
+            if (stats != null) {
+                long end = System.nanoTime();
+                stats.kernelNanos.add(computed - start);
+                stats.coloringNanos.add(end - computed);
+                stats.tileNanos.add(end - start);
+                if (block == 1) {
+                    metrics.recordTile(end - start);
+                    count(x0, y0, x1, y1, cached != null && cached[tile]);
+                }
+            }
+        }
+
+        /**
+         * Die Pixel der Kachel werden gezhlt, die aus dem Cache und die
+         * gespiegelten. Gespiegelte Zeilen sind noch nicht kopiert und zhlen
+         * mit ihrem Spiegelbild. Die Iterationen zhlen, wo der Kernel
+         * rechnet.
+         */
+        void count(int x0, int y0, int x1, int y1, boolean loaded) {
+            int pixels = 0, interior = 0, mirrors = 0;
+            for (int y = y0; y < y1; ++y) {
+                if (mirrored(y))
+                    continue;
+                int weight = mirrored(mirrorAxis - y) ? 2 : 1;
+                int rowInterior = 0;
+                for (int i = y * width + x0, end = y * width + x1; i < end; ++i) {
+                    if (field[i] >= maxIter)
+                        ++rowInterior;
+                }
+                pixels += weight * (x1 - x0);
+                interior += weight * rowInterior;
+                mirrors += (weight - 1) * (x1 - x0);
+            }
+            stats.pixels.add(pixels);
+            stats.interior.add(interior);
+            stats.mirrored.add(mirrors);
+            if (loaded)
+                stats.cached.add(pixels - mirrors);
+        }
+
+        /**
+         * Die Pixel des Rechtecks (x0, y0) bis ausschlielich (x1, y1) werden
+         * ohne die aus dem vorigen Bild bernommenen berechnet.
+         */
+        void computeAround(int x0, int y0, int x1, int y1, int block, int known) {
+            int rx0 = Math.max(x0, reusedX0), ry0 = Math.max(y0, reusedY0);
+            int rx1 = Math.min(x1, reusedX1), ry1 = Math.min(y1, reusedY1);
+            if (rx0 < rx1 && ry0 < ry1) {
+                // Nur die Streifen um die bernommenen Pixel werden berechnet
+                if (stats != null && block == 1)
+                    stats.reused.add((rx1 - rx0) * (ry1 - ry0));
+                computeTile(x0, y0, x1, ry0, block, known);
+                computeTile(x0, ry1, x1, y1, block, known);
+                computeTile(x0, ry0, rx0, ry1, block, known);
+                computeTile(rx1, ry0, x1, ry1, block, known);
+            } else {
+                computeTile(x0, y0, x1, y1, block, known);
+            }
+        }
+
+        /**
+         * Die Pixel des Rechtecks (x0, y0) bis ausschlielich (x1, y1) werden
+         * fr den Durchgang mit der Blockgre <code>block</code> berechnet.
+         */
+        void computeTile(int x0, int y0, int x1, int y1, int block, int known) {
+            if (x0 >= x1 || y0 >= y1)
+                return;
+            if (block > 1) {
+                for (int y = y0; y < y1 && !cancelled(); y += block) {
+                    for (int x = x0; x < x1; x += block) {
+                        if (!(known > 0 && (x - x0) % known == 0 && (y - y0) % known == 0))
+                            compute(x, y);
+                        fill(x, y, Math.min(x + block, x1), Math.min(y + block, y1), y * width + x);
+                    }
+                }
+            } else {
+                // Schon im Feld: die Punkte der groben Durchgnge auf einem Raster ab
+                // der Ecke des Rechtecks, die des vorigen Bildes einer Zoomfahrt auf
+                // einem Raster ab der Ecke des Bildes
+                Lattice points = known > 0 ? new Lattice(x0, y0, known)
+                    : lattice > 1 ? new Lattice(0, 0, lattice) : null;
+                if (points != null && known == 0 && stats != null)
+                    stats.reused.add(points.count(x0, y0, x1, y1));
+                if (subdivide) {
+                    // Ein Rechteck aus einer Zeile oder Spalte hat nur einen Rand
+                    for (int x = x0; x < x1; ++x) {
+                        compute(x, y0, points);
+                        if (y1 - 1 > y0)
+                            compute(x, y1 - 1, points);
+                    }
+                    for (int y = y0 + 1; y < y1 - 1; ++y) {
+                        compute(x0, y, points);
+                        if (x1 - 1 > x0)
+                            compute(x1 - 1, y, points);
+                    }
+                    new SubdivideTask(this, x0, y0, x1 - 1, y1 - 1, points).invoke();
+                } else {
+                    for (int y = y0; y < y1 && !cancelled(); ++y)
+                        computeRow(y, x0, x1, points);
+                }
+            }
+        }
+
+        /**
+         * Die Pixel des Ausschnitts <code>old</code>, die im neuen Ausschnitt
+         * wieder vorkommen, werden an ihre neue Stelle kopiert. Das ist der
+         * Fall, wenn der Pixelabstand ein ganzzahliges Vielfaches des alten ist
+         * und der Startpunkt um ganze alte Pixel verschoben wurde.
+         */
+        void reuse(Viewport old, Kernel oldKernel, int oldMaxIter) {
+            if (old == null || oldKernel != kernel || oldMaxIter != maxIter || old.width() != width
+                || old.height() != view.height() || Precision.required(old) != Precision.required(view))
+                return;
+            double ratio = view.step() / old.step();
+            int scale = (int)ratio;
+            if (scale < 1 || scale != ratio)
+                return;
+            long ox = offset(view.startRealExact(), old.startRealExact(), old.step(), ALIGNMENT_TOLERANCE);
+            long oy = offset(view.startImagExact(), old.startImagExact(), old.step(), ALIGNMENT_TOLERANCE);
+            if (ox == Long.MIN_VALUE || oy == Long.MIN_VALUE)
+                return;
+
+            // Der neue Pixel (x, y) ist der alte (ox + scale * x, oy + scale * y)
+            int x0 = (int)Math.max(0, Math.floorDiv(-ox + scale - 1, scale));
+            int y0 = (int)Math.max(0, Math.floorDiv(-oy + scale - 1, scale));
+            int x1 = (int)Math.min(width, Math.floorDiv(old.width() - 1 - ox, scale) + 1);
+            int y1 = (int)Math.min(view.height(), Math.floorDiv(old.height() - 1 - oy, scale) + 1);
+            if (x0 >= x1 || y0 >= y1)
+                return;
+
+            int[] oldField = field.clone();
+            float[] oldSmooth = smooth != null ? smooth.clone() : null;
+            for (int y = y0; y < y1; ++y) {
+                int src = (int)((oy + (long)scale * y) * width + ox), dst = y * width;
+                for (int x = x0; x < x1; ++x)
+                    field[dst + x] = oldField[src + scale * x];
+                if (oldSmooth != null) {
+                    for (int x = x0; x < x1; ++x)
+                        smooth[dst + x] = oldSmooth[src + scale * x];
+                }
+            }
+            reusedX0 = x0;
+            reusedY0 = y0;
+            reusedX1 = x1;
+            reusedY1 = y1;
+        }
+
+        /**
+         * Die Verschiebung von <code>from</code> nach <code>to</code> wird in
+         * Pixeln der Gre <code>step</code> zurckgegeben,
+         * <code>Long.MIN_VALUE</code> falls sie um mehr als <code>tolerance</code>
+         * von einer ganzen Zahl abweicht.
+         */
+        private static long offset(BigDecimal to, BigDecimal from, double step, double tolerance) {
+            double d = to.subtract(from).divide(new BigDecimal(step), MathContext.DECIMAL64).doubleValue();
+            if (!(Math.abs(d) < Integer.MAX_VALUE))
+                return Long.MIN_VALUE;
+            long n = Math.round(d);
+            return Math.abs(d - n) <= tolerance ? n : Long.MIN_VALUE;
+        }
+
+        /**
+         * Die Kachel mit der Ecke (x0, y0) wird aus dem Cache kopiert, falls
+         * sie dort mit allen bentigten Werten vorliegt.
+         */
+        boolean load(TileCache.Key key, int x0, int y0) {
+            TileCache.Tile tile = cache.get(key);
+            if (tile == null || (smooth != null && tile.smooth == null))
+                return false;
+            for (int y = 0; y < TILE_SIZE; ++y) {
+                int i = (y0 + y) * width + x0;
+                System.arraycopy(tile.iterations, y * TILE_SIZE, field, i, TILE_SIZE);
+                if (smooth != null)
+                    System.arraycopy(tile.smooth, y * TILE_SIZE, smooth, i, TILE_SIZE);
+            }
+            return true;
+        }
+
+        /**
+         * Die gespiegelten Zeilen werden von ihren Spiegelbildern kopiert,
+         * samt Farben.
+         */
+        void mirror() {
+            if (cancelled() || mirrored == null)
+                return;
+            for (int y = 0; y < mirrored.length; ++y) {
+                if (!mirrored[y])
+                    continue;
+                int src = (mirrorAxis - y) * width, dst = y * width;
+                System.arraycopy(field, src, field, dst, width);
+                if (smooth != null)
+                    System.arraycopy(smooth, src, smooth, dst, width);
+                if (palette != null)
+                    System.arraycopy(pixels, src, pixels, dst, width);
+            }
+        }
+
+        /**
+         * Alle vollstndigen Kacheln, die nicht aus dem Cache stammen, werden
+         * dort abgelegt.
+         */
+        void store() {
+            for (int tile = 0; tile < tiles(); ++tile) {
+                int column = tile % tilesX, row = tile / tilesX;
+                int x0 = column * TILE_SIZE - originX, y0 = row * TILE_SIZE - originY;
+                if (!cached[tile] && x0 >= 0 && y0 >= 0 && x0 + TILE_SIZE <= width
+                    && y0 + TILE_SIZE <= view.height())
+                    store(grid.key(column, row), x0, y0);
+            }
+        }
+
+        /**
+         * Die Kachel mit der Ecke (x0, y0) wird in den Cache kopiert.
+         */
+        void store(TileCache.Key key, int x0, int y0) {
+            int[] iterations = new int[TILE_SIZE * TILE_SIZE];
+            float[] values = smooth != null ? new float[iterations.length] : null;
+            for (int y = 0; y < TILE_SIZE; ++y) {
+                int i = (y0 + y) * width + x0;
+                System.arraycopy(field, i, iterations, y * TILE_SIZE, TILE_SIZE);
+                if (smooth != null)
+                    System.arraycopy(smooth, i, values, y * TILE_SIZE, TILE_SIZE);
+            }
+            cache.put(key, new TileCache.Tile(iterations, values));
+        }
+
+        /**
+         * Die Zeile y wird in die Zeile y - y0 von <code>region</code>
+         * berechnet, Kachelspalte fr Kachelspalte ab x0. Gespiegelte Zeilen
+         * werden wie bei <code>mirror</code> von ihrem Spiegelbild genommen.
+         */
+        void computeRegionRow(IterationField region, int x0, int y0, int y) {
+            int source = mirrored(y) ? mirrorAxis - y : y;
+            int x1 = x0 + region.width(), offset = (y - y0) * region.width() - x0;
+            for (int x = x0; x < x1; x += TILE_SIZE) {
+                int end = Math.min(x + TILE_SIZE, x1);
+                if (region.smooth() == null)
+                    bound.iterateRow(source, x, end, region.iterations(), offset);
+                else
+                    bound.iterateRow(source, x, end, region.iterations(), region.smooth(), offset);
+            }
+        }
+
+        void compute(int x, int y) {
+            int i = y * width + x;
+            field[i] = smooth == null ? bound.iterate(x, y) : bound.iterate(x, y, smooth, i);
+            if (stats != null) {
+                stats.computed.increment();
+                stats.iterations.add(field[i]);
+            }
+        }
+
+        /**
+         * Der Pixel (x, y) wird berechnet, falls er nicht auf dem Raster
+         * <code>points</code> der schon bekannten Punkte liegt.
+         */
+        void compute(int x, int y, Lattice points) {
+            if (points == null || !points.contains(x, y))
+                compute(x, y);
+        }
+
+        /**
+         * Die Pixel x0 bis ausschlielich x1 der Zeile y werden berechnet,
+         * ohne die auf dem Raster <code>points</code> der schon bekannten Punkte.
+         */
+        void computeRow(int y, int x0, int x1, Lattice points) {
+            if (points == null || !points.containsRow(y)) {
+                computeRow(y, x0, x1);
+            } else {
+                for (int x = x0; x < x1; ++x)
+                    compute(x, y, points);
+            }
+        }
+
+        void computeRow(int y, int x0, int x1) {
+            int offset = y * width;
+            if (smooth == null)
+                bound.iterateRow(y, x0, x1, field, offset);
+            else
+                bound.iterateRow(y, x0, x1, field, smooth, offset);
+            if (stats != null) {
+                long sum = 0;
+                for (int i = offset + x0, end = offset + x1; i < end; ++i)
+                    sum += field[i];
+                stats.computed.add(x1 - x0);
+                stats.iterations.add(sum);
+            }
+        }
+
+        /**
+         * Das Rechteck (x0, y0) bis ausschlielich (x1, y1) wird mit dem
+         * Wert des Pixels <code>source</code> gefllt.
+         */
+        void fill(int x0, int y0, int x1, int y1, int source) {
+            int value = field[source];
+            for (int y = y0; y < y1; ++y)
+                Arrays.fill(field, y * width + x0, y * width + x1, value);
+            if (smooth != null) {
+                float s = smooth[source];
+                for (int y = y0; y < y1; ++y)
+                    Arrays.fill(smooth, y * width + x0, y * width + x1, s);
+            }
+        }
+
+        /**
+         * Es wird geprft, ob die Pixel i und j dieselbe Anzahl von
+         * Iterationen haben, bei gegltteten Iterationen auch denselben
+         * gegltteten Wert. Sonst wrde das Innere mit einer Farbe gefllt,
+         * wo der Verlauf weitergeht.
+         */
+        boolean same(int i, int j) {
+            return field[i] == field[j] && (smooth == null || smooth[i] == smooth[j]);
+        }
+
+        /**
+         * Das Innere des Rechtecks (x0, y0) - (x1, y1) wird berechnet, ohne
+         * die Punkte auf dem Raster <code>points</code>, falls nicht null.
+         * Der Rand ist bereits berechnet.
+         */
+        void subdivide(int x0, int y0, int x1, int y1, Lattice points) {
+            int innerW = x1 - x0 - 1, innerH = y1 - y0 - 1;
+            if (innerW <= 0 || innerH <= 0 || cancelled())
+                return;
+
+            int corner = y0 * width + x0;
+            boolean uniform = true;
+            for (int x = x0; x <= x1 && uniform; ++x)
+                uniform = same(y0 * width + x, corner) && same(y1 * width + x, corner);
+            for (int y = y0 + 1; y < y1 && uniform; ++y)
+                uniform = same(y * width + x0, corner) && same(y * width + x1, corner);
+
+            if (uniform) {
+                fill(x0 + 1, y0 + 1, x1, y1, corner);
+                // Die bekannten Punkte im Inneren sind schon gezhlt
+                if (stats != null)
+                    stats.filled.add(innerW * innerH - (points != null ? points.count(x0 + 1, y0 + 1, x1, y1) : 0));
+            } else if (innerW * innerH <= SUBDIVIDE_MIN_AREA || innerW < 2 || innerH < 2) {
+                for (int y = y0 + 1; y < y1 && !cancelled(); ++y)
+                    computeRow(y, x0 + 1, x1, points);
+            } else {
+                int xm = (x0 + x1) >>> 1, ym = (y0 + y1) >>> 1;
+                computeRow(ym, x0 + 1, x1, points);
+                for (int y = y0 + 1; y < y1; ++y) {
+                    if (y != ym)
+                        compute(xm, y, points);
+                }
+                if (innerW * innerH >= SUBDIVIDE_FORK_AREA) {
+                    ForkJoinTask.invokeAll(
+                        new SubdivideTask(this, x0, y0, xm, ym, points), new SubdivideTask(this, xm, y0, x1, ym, points),
+                        new SubdivideTask(this, x0, ym, xm, y1, points), new SubdivideTask(this, xm, ym, x1, y1, points));
+                } else {
+                    subdivide(x0, y0, xm, ym, points);
+                    subdivide(xm, y0, x1, ym, points);
+                    subdivide(x0, ym, xm, y1, points);
+                    subdivide(xm, ym, x1, y1, points);
+                }
+            }
+        }
+    }
+
+    /**
+     * Das Raster der Punkte, die schon im Feld stehen: die, deren Abstand zu
+     * (x0, y0) in beiden Richtungen ein Vielfaches von <code>spacing</code>
+     * ist.
+     */
+    private static final class Lattice {
+        final int x0, y0, spacing;
+
+        Lattice(int x0, int y0, int spacing) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.spacing = spacing;
+        }
+
+        boolean containsRow(int y) {
+            return Math.floorMod(y - y0, spacing) == 0;
+        }
+
+        boolean contains(int x, int y) {
+            return containsRow(y) && Math.floorMod(x - x0, spacing) == 0;
+        }
+
+        /**
+         * Die Anzahl der Punkte im Rechteck (x0, y0) bis ausschlielich (x1, y1).
+         */
+        int count(int x0, int y0, int x1, int y1) {
+            return multiples(x0 - this.x0, x1 - this.x0) * multiples(y0 - this.y0, y1 - this.y0);
+        }
+
+        private int multiples(int from, int to) {
+            return from < to ? Math.floorDiv(to - 1, spacing) - Math.floorDiv(from - 1, spacing) : 0;
+        }
+    }
+
+    private static final class TileTask extends RecursiveAction {
+        private final Frame frame;
+        private final int from, to, block, known;
+
+        TileTask(Frame frame, int from, int to, int block, int known) {
+            this.frame = frame;
+            this.from = from;
+            this.to = to;
+            this.block = block;
+            this.known = known;
+        }
+
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileTask(frame, from, mid, block, known), new TileTask(frame, mid, to, block, known));
+            } else {
+                frame.renderTile(from, block, known);
+            }
+        }
+    }
+
+    private static final class RegionTask extends RecursiveAction {
+        private final Frame frame;
+        private final IterationField region;
+        private final int x0, y0, from, to;
+
+        RegionTask(Frame frame, IterationField region, int x0, int y0, int from, int to) {
+            this.frame = frame;
+            this.region = region;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (to - from > TILE_SIZE / 4) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RegionTask(frame, region, x0, y0, from, mid), new RegionTask(frame, region, x0, y0, mid, to));
+            } else {
+                for (int y = from; y < to; ++y)
+                    frame.computeRegionRow(region, x0, y0, y);
+            }
+        }
+    }
+
+    private static final class SubdivideTask extends RecursiveAction {
+        private final Frame frame;
+        private final int x0, y0, x1, y1;
+        private final Lattice points;
+
+        SubdivideTask(Frame frame, int x0, int y0, int x1, int y1, Lattice points) {
+            this.frame = frame;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.points = points;
+        }
+
+        protected void compute() {
+            frame.subdivide(x0, y0, x1, y1, points);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package render;
+
+/**
+ * Ein <code>RenderListener</code> wird benachrichtigt, sobald ein
+ * Durchgang der Berechnung fertig ist und das Bild neu gezeichnet werden kann.
+ */
+public interface RenderListener {
+
+    /**
+     * Ein Durchgang ist fertig.
+     *
+     * @param finished true, wenn das Bild vollstndig berechnet ist,
+     *        false nach einem groben Zwischenschritt
+     */
+    void frameUpdated(boolean finished);
+}
\ No newline at end of file
@@ -0,0 +1,374 @@
+package render;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * <code>RenderMetrics</code> sammelt, wohin die Zeit einer
+ * <code>RenderEngine</code> geht: Bilder, Pixel, Iterationen, der Anteil der
+ * inneren Pixel, die Zeit pro Kachel als Histogramm, die Zeit im Kernel, beim
+ * Frben und bei der Ausgabe, die Treffer im <code>TileCache</code> und die
+ * Auslastung der Threads.
+ *
+ * Die Pixel eines Bildes hat entweder der Kernel berechnet, oder sie stammen
+ * aus dem <code>TileCache</code>, aus dem vorigen Bild im selben Feld, aus
+ * einer gleichfrmigen Flche der Unterteilung oder aus dem Spiegelbild an
+ * der reellen Achse. Jede Herkunft hat ihren eigenen Zhler; Iterationen
+ * zhlen nur fr die vom Kernel berechneten Pixel.
+ *
+ * Gezhlt wird mit <code>LongAdder</code>, die erst beim Lesen
+ * zusammengefasst werden; die Threads der Engine teilen sich so keine
+ * Cache-Zeile. Jede Kachel liest zweimal die Uhr und zhlt ihre inneren
+ * Pixel einmal, die berechneten Zeilen summieren ihre Iterationen. Die Werte eines Bildes werden erst bernommen, wenn es fertig
+ * oder verworfen ist. Rechtecke fr einen <code>RenderCoordinator</code>
+ * werden nicht erfasst.
+ *
+ * Frben und Ausgabe auerhalb der Engine melden die Aufrufer mit
+ * <code>recordColoring</code> und <code>recordBlit</code>.
+ *
+ * Die Auslastung ist die Kachelzeit im Verhltnis zur Kapazitt. Die
+ * Kachelzeit ist die Summe der Zeiten aller Kacheln aller Durchgnge, samt
+ * Frben mit der Palette in der Engine; die Kapazitt ist die Dauer der
+ * Bilder mal der Anzahl der Threads. Beide zhlen auch fr verworfene
+ * Bilder. Die Auslastung sinkt z.B. durch ungleich teure Kacheln am Ende
+ * eines Bildes oder durch das Kopieren gespiegelter Zeilen. Frben auerhalb
+ * der Engine zhlt nicht mit. Bilder, die gleichzeitig berechnet werden,
+ * zhlen ihre Dauer jeweils ganz, die Auslastung erscheint dann zu niedrig.
+ */
+public final class RenderMetrics implements RenderMetricsMBean {
+
+    private static final int BUCKETS = 32;
+
+    private final LongAdder frames = new LongAdder(), cancelled = new LongAdder(), pixels = new LongAdder(),
+        iterations = new LongAdder(), interior = new LongAdder(), computed = new LongAdder(),
+        cached = new LongAdder(), reused = new LongAdder(), filled = new LongAdder(), mirrored = new LongAdder(),
+        frameNanos = new LongAdder(),
+        capacityNanos = new LongAdder(), busyNanos = new LongAdder(), tiles = new LongAdder(),
+        tileNanos = new LongAdder(), kernelNanos = new LongAdder(), coloringNanos = new LongAdder(),
+        blitNanos = new LongAdder(), hits = new LongAdder(), misses = new LongAdder();
+    private final LongAdder[] histogram = new LongAdder[BUCKETS];
+    private volatile Last last = new Last(0, 0, 0, 0);
+    private ScheduledExecutorService log = null;
+
+    public RenderMetrics() {
+        for (int i = 0; i < BUCKETS; ++i)
+            histogram[i] = new LongAdder();
+    }
+
+    /**
+     * Die Werte eines Bildes, solange es berechnet wird.
+     */
+    static final class FrameStats {
+        final long start = System.nanoTime();
+        final LongAdder pixels = new LongAdder(), iterations = new LongAdder(), interior = new LongAdder(),
+            kernelNanos = new LongAdder(), coloringNanos = new LongAdder(), tileNanos = new LongAdder(),
+            hits = new LongAdder(), misses = new LongAdder(), computed = new LongAdder(),
+            cached = new LongAdder(), reused = new LongAdder(), filled = new LongAdder(), mirrored = new LongAdder();
+    }
+
+    /**
+     * Das zuletzt fertige Bild.
+     */
+    private static final class Last {
+        final long nanos, pixels, iterations, interior;
+
+        Last(long nanos, long pixels, long iterations, long interior) {
+            this.nanos = nanos;
+            this.pixels = pixels;
+            this.iterations = iterations;
+            this.interior = interior;
+        }
+    }
+
+    /**
+     * Eine Kachel des letzten Durchgangs hat <code>nanos</code> gebraucht.
+     */
+    void recordTile(long nanos) {
+        tiles.increment();
+        tileNanos.add(nanos);
+        histogram[Math.min(64 - Long.numberOfLeadingZeros(nanos / 1000), BUCKETS - 1)].increment();
+    }
+
+    /**
+     * Ein Bild ist fertig oder wurde verworfen. Nur fertige Bilder zhlen
+     * mit ihren Pixeln.
+     */
+    void finish(FrameStats frame, boolean complete, int threads) {
+        long nanos = System.nanoTime() - frame.start;
+        frameNanos.add(nanos);
+        capacityNanos.add(nanos * threads);
+        kernelNanos.add(frame.kernelNanos.sum());
+        coloringNanos.add(frame.coloringNanos.sum());
+        busyNanos.add(frame.tileNanos.sum());
+        hits.add(frame.hits.sum());
+        misses.add(frame.misses.sum());
+        if (!complete) {
+            cancelled.increment();
+            return;
+        }
+        Last l = new Last(nanos, frame.pixels.sum(), frame.iterations.sum(), frame.interior.sum());
+        frames.increment();
+        pixels.add(l.pixels);
+        iterations.add(l.iterations);
+        interior.add(l.interior);
+        computed.add(frame.computed.sum());
+        cached.add(frame.cached.sum());
+        reused.add(frame.reused.sum());
+        filled.add(frame.filled.sum());
+        mirrored.add(frame.mirrored.sum());
+        last = l;
+    }
+
+    /**
+     * Das Frben eines Bildes auerhalb der Engine hat <code>nanos</code>
+     * gebraucht, z.B. mit einem <code>Coloring</code>.
+     *
+     * @param nanos Die Zeit in Nanosekunden
+     */
+    public void recordColoring(long nanos) {
+        coloringNanos.add(nanos);
+    }
+
+    /**
+     * Die Ausgabe eines Bildes hat <code>nanos</code> gebraucht, z.B.
+     * <code>drawImage</code> oder das Kodieren als PNG.
+     *
+     * @param nanos Die Zeit in Nanosekunden
+     */
+    public void recordBlit(long nanos) {
+        blitNanos.add(nanos);
+    }
+
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    public long getCancelledFrames() {
+        return cancelled.sum();
+    }
+
+    public long getPixels() {
+        return pixels.sum();
+    }
+
+    public long getIterations() {
+        return iterations.sum();
+    }
+
+    public long getComputedPixels() {
+        return computed.sum();
+    }
+
+    public long getCachedPixels() {
+        return cached.sum();
+    }
+
+    public long getReusedPixels() {
+        return reused.sum();
+    }
+
+    public long getFilledPixels() {
+        return filled.sum();
+    }
+
+    public long getMirroredPixels() {
+        return mirrored.sum();
+    }
+
+    public double getComputedPercent() {
+        return percent(computed.sum(), pixels.sum());
+    }
+
+    public double getInteriorPercent() {
+        return percent(interior.sum(), pixels.sum());
+    }
+
+    public double getPixelsPerSecond() {
+        return rate(pixels.sum(), frameNanos.sum());
+    }
+
+    public double getIterationsPerSecond() {
+        return rate(iterations.sum(), frameNanos.sum());
+    }
+
+    public long getTiles() {
+        return tiles.sum();
+    }
+
+    public double getTileMeanMicros() {
+        long n = tiles.sum();
+        return n > 0 ? tileNanos.sum() / 1e3 / n : 0;
+    }
+
+    public long getTileMedianMicros() {
+        return percentile(0.5);
+    }
+
+    public long getTile99PercentMicros() {
+        return percentile(0.99);
+    }
+
+    public long[] getTileHistogram() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; ++i)
+            counts[i] = histogram[i].sum();
+        return counts;
+    }
+
+    /**
+     * Die obere Grenze des Eintrags im Histogramm, bis zu dem der Anteil
+     * <code>p</code> der Kacheln reicht.
+     */
+    private long percentile(double p) {
+        long[] counts = getTileHistogram();
+        long total = 0;
+        for (long c : counts)
+            total += c;
+        long sum = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            sum += counts[i];
+            if (sum > 0 && sum >= p * total)
+                return 1L << i;
+        }
+        return 0;
+    }
+
+    public double getKernelMillis() {
+        return kernelNanos.sum() / 1e6;
+    }
+
+    public double getColoringMillis() {
+        return coloringNanos.sum() / 1e6;
+    }
+
+    public double getBlitMillis() {
+        return blitNanos.sum() / 1e6;
+    }
+
+    public long getCacheHits() {
+        return hits.sum();
+    }
+
+    public long getCacheMisses() {
+        return misses.sum();
+    }
+
+    public double getCacheHitPercent() {
+        long h = hits.sum();
+        return percent(h, h + misses.sum());
+    }
+
+    public double getPoolUtilizationPercent() {
+        return percent(busyNanos.sum(), capacityNanos.sum());
+    }
+
+    public double getLastFrameMillis() {
+        return last.nanos / 1e6;
+    }
+
+    public long getLastFramePixels() {
+        return last.pixels;
+    }
+
+    public long getLastFrameIterations() {
+        return last.iterations;
+    }
+
+    public double getLastFrameInteriorPercent() {
+        Last l = last;
+        return percent(l.interior, l.pixels);
+    }
+
+    /**
+     * Alle Werte werden auf 0 gesetzt. Laufende Bilder werden danach mit
+     * ihren ganzen Werten gezhlt.
+     */
+    public void reset() {
+        for (LongAdder a : new LongAdder[] { frames, cancelled, pixels, iterations, interior, computed, cached,
+                                             reused, filled, mirrored, frameNanos, capacityNanos, busyNanos, tiles,
+                                             tileNanos, kernelNanos, coloringNanos, blitNanos, hits, misses })
+            a.reset();
+        for (LongAdder a : histogram)
+            a.reset();
+        last = new Last(0, 0, 0, 0);
+    }
+
+    /**
+     * Die Metriken werden beim <code>MBeanServer</code> der JVM angemeldet,
+     * als <code>render:type=RenderMetrics,name=name</code>.
+     *
+     * @param name Der Name, unter dem sie erscheinen
+     * @throws JMException Wenn der Name ungltig oder schon vergeben ist
+     */
+    public void register(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName(name));
+    }
+
+    /**
+     * Die Metriken werden beim <code>MBeanServer</code> der JVM abgemeldet.
+     *
+     * @param name Der Name, unter dem sie mit <code>register</code> angemeldet wurden
+     * @throws JMException Wenn unter dem Namen nichts angemeldet ist
+     */
+    public void unregister(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+    }
+
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("render:type=RenderMetrics,name=" + ObjectName.quote(name));
+    }
+
+    /**
+     * Alle <code>period</code> Sekunden wird <code>toString()</code> als Zeile
+     * nach <code>out</code> geschrieben, in einem Daemon-Thread.
+     *
+     * @param period Der Abstand in Sekunden
+     * @param out Das Ziel, z.B. <code>System.err</code>
+     */
+    public synchronized void startLog(long period, PrintStream out) {
+        if (period <= 0)
+            throw new IllegalArgumentException("Abstand muss positiv sein");
+        stopLog();
+        log = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "RenderMetrics");
+            t.setDaemon(true);
+            return t;
+        });
+        log.scheduleAtFixedRate(() -> out.println(this), period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Die regelmige Ausgabe wird beendet.
+     */
+    public synchronized void stopLog() {
+        if (log != null)
+            log.shutdownNow();
+        log = null;
+    }
+
+    private static double percent(long part, long total) {
+        return total > 0 ? 100.0 * part / total : 0;
+    }
+
+    private static double rate(long count, long nanos) {
+        return nanos > 0 ? count * 1e9 / nanos : 0;
+    }
+
+    public String toString() {
+        return String.format(Locale.ROOT, "RenderMetrics[%d Bilder (%d verworfen), %.2f MPixel/s, %.1f MIter/s, "
+                             + "%.1f%% innen, %.1f%% berechnet, %d Kacheln: Mittel %.0f s, Median < %d s, 99%% < %d s, "
+                             + "Kernel %.0f ms, Frben %.0f ms, Ausgabe %.0f ms, Cache %.1f%%, Auslastung %.1f%%]",
+                             getFrames(), getCancelledFrames(), getPixelsPerSecond() / 1e6,
+                             getIterationsPerSecond() / 1e6, getInteriorPercent(), getComputedPercent(), getTiles(), getTileMeanMicros(),
+                             getTileMedianMicros(), getTile99PercentMicros(), getKernelMillis(),
+                             getColoringMillis(), getBlitMillis(), getCacheHitPercent(),
+                             getPoolUtilizationPercent());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+package render;
+
+/**
+ * Die Attribute von <code>RenderMetrics</code> ber JMX, z.B. in jconsole.
+ * Zeiten sind in Millisekunden bzw. bei Kacheln in Mikrosekunden angegeben.
+ */
+public interface RenderMetricsMBean {
+
+    long getFrames();
+
+    long getCancelledFrames();
+
+    long getPixels();
+
+    /**
+     * Die Iterationen der vom Kernel berechneten Pixel.
+     */
+    long getIterations();
+
+    /**
+     * Die Pixel, die der Kernel berechnet hat. Die brigen stammen aus dem
+     * Cache, dem vorigen Bild, gleichfrmigen Flchen oder dem Spiegelbild.
+     */
+    long getComputedPixels();
+
+    long getCachedPixels();
+
+    long getReusedPixels();
+
+    long getFilledPixels();
+
+    long getMirroredPixels();
+
+    double getComputedPercent();
+
+    double getInteriorPercent();
+
+    double getPixelsPerSecond();
+
+    double getIterationsPerSecond();
+
+    long getTiles();
+
+    double getTileMeanMicros();
+
+    long getTileMedianMicros();
+
+    long getTile99PercentMicros();
+
+    /**
+     * Eintrag i zhlt die Kacheln mit einer Zeit unter 2^i Mikrosekunden,
+     * aber mindestens 2^(i-1).
+     */
+    long[] getTileHistogram();
+
+    double getKernelMillis();
+
+    double getColoringMillis();
+
+    double getBlitMillis();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getCacheHitPercent();
+
+    /**
+     * Die Summe der Zeiten aller Kacheln im Verhltnis zur Dauer der Bilder
+     * mal der Anzahl der Threads.
+     */
+    double getPoolUtilizationPercent();
+
+    double getLastFrameMillis();
+
+    long getLastFramePixels();
+
+    long getLastFrameIterations();
+
+    double getLastFrameInteriorPercent();
+
+    void reset();
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package render;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.Socket;
+import java.util.function.Function;
+
+/**
+ * Ein <code>RenderWorker</code> verbindet sich mit einem
+ * <code>RenderCoordinator</code> und berechnet die Rechtecke, die dieser ihm
+ * zuteilt, mit seiner eigenen <code>RenderEngine</code>.
+ *
+ * Der Kernel wird ber seinen Namen bertragen und hier mit
+ * <code>kernels</code> erzeugt. Der Worker rechnet ein Rechteck nach dem
+ * anderen; weitere Zuteilungen warten solange im Socket.
+ */
+public final class RenderWorker {
+    private final RenderEngine engine;
+    private final Function<String, Kernel> kernels;
+
+    /**
+     * Der Worker wird initialisiert.
+     *
+     * @param engine Die Engine, mit der gerechnet wird
+     * @param kernels Erzeugt den Kernel zu seinem Namen, wirft
+     *        <code>IllegalArgumentException</code> bei unbekannten
+     */
+    public RenderWorker(RenderEngine engine, Function<String, Kernel> kernels) {
+        this.engine = engine;
+        this.kernels = kernels;
+    }
+
+    /**
+     * Es wird gerechnet, bis der Koordinator die Verbindung schliet.
+     *
+     * @param host Der Rechner des Koordinators
+     * @param port Dessen Port
+     * @return Die Anzahl der berechneten Rechtecke
+     * @throws IOException Wenn die Verbindung fehlschlgt oder abbricht
+     */
+    public long run(String host, int port) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(WireFormat.MAGIC);
+            out.writeInt(WireFormat.VERSION);
+            out.flush();
+
+            int job = -1, maxIter = 0;
+            Viewport view = null;
+            Kernel kernel = null;
+            boolean smooth = false;
+            long leases = 0;
+            for (;;) {
+                int type = in.read();
+                if (type < 0)
+                    return leases;
+                switch (type) {
+                case WireFormat.JOB:
+                    job = in.readInt();
+                    BigDecimal startReal = new BigDecimal(in.readUTF()), startImag = new BigDecimal(in.readUTF());
+                    double step = in.readDouble();
+                    int width = in.readInt(), height = in.readInt();
+                    view = new Viewport(startReal, startImag, step, width, height);
+                    maxIter = in.readInt();
+                    String name = in.readUTF();
+                    smooth = in.readBoolean();
+                    try {
+                        kernel = kernels.apply(name);
+                    } catch (IllegalArgumentException e) {
+                        out.writeByte(WireFormat.ERROR);
+                        out.writeUTF(e.getMessage());
+                        out.flush();
+                        return leases;
+                    }
+                    break;
+                case WireFormat.LEASE:
+                    int leaseJob = in.readInt(), lease = in.readInt();
+                    int x0 = in.readInt(), y0 = in.readInt(), w = in.readInt(), h = in.readInt();
+                    if (leaseJob != job)
+                        throw new IOException("Zuteilung fr unbekannten Auftrag " + leaseJob);
+                    IterationField region = new IterationField(w, h, smooth);
+                    engine.render(view, kernel, maxIter, region, x0, y0);
+                    byte[] data = WireFormat.encode(region);
+                    out.writeByte(WireFormat.RESULT);
+                    out.writeInt(job);
+                    out.writeInt(lease);
+                    out.writeInt(data.length);
+                    out.write(data);
+                    out.flush();
+                    ++leases;
+                    break;
+                default:
+                    throw new IOException("Unbekannte Nachricht " + type);
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException("Verbindung zum Koordinator abgebrochen", e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package render;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Der <code>StripRenderer</code> berechnet sehr groe Bilder in waagerechten
+ * Streifen und gibt sie der Reihe nach an einen <code>RasterSink</code>.
+ *
+ * Bis zu <code>inFlight</code> Streifen werden gleichzeitig berechnet, jeder
+ * mit den Kacheln der <code>RenderEngine</code>. Geschrieben wird im
+ * aufrufenden Thread in der Reihenfolge der Streifen. Sind alle Streifen
+ * belegt, wartet die Berechnung, bis der lteste geschrieben ist. Der
+ * Speicher wchst damit nur mit Streifengre mal <code>inFlight</code>,
+ * nicht mit der Gre des Bildes.
+ *
+ * Jeder Streifen wird fr sich eingefrbt. Fr <code>HistogramColoring</code>,
+ * das die Verteilung des ganzen Bildes braucht, ergibt das sichtbare Kanten.
+ */
+public final class StripRenderer {
+    private final RenderEngine engine;
+    private final int stripHeight, inFlight;
+
+    /**
+     * Der Renderer wird initialisiert.
+     *
+     * @param engine Die Engine, die die Kacheln der Streifen berechnet
+     * @param stripHeight Die Hhe eines Streifens in Pixeln
+     * @param inFlight Die Anzahl der Streifen, die hchstens gleichzeitig
+     *        berechnet werden oder auf das Schreiben warten
+     */
+    public StripRenderer(RenderEngine engine, int stripHeight, int inFlight) {
+        if (stripHeight <= 0 || inFlight <= 0)
+            throw new IllegalArgumentException("Streifenhhe und Anzahl mssen positiv sein");
+        this.engine = engine;
+        this.stripHeight = stripHeight;
+        this.inFlight = inFlight;
+    }
+
+    /**
+     * Der Ausschnitt <code>view</code> wird streifenweise berechnet,
+     * eingefrbt und geschrieben.
+     *
+     * @param view Der Ausschnitt
+     * @param kernel Der Kernel, der die Iterationen berechnet
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @param coloring Die Frbung, auf jeden Streifen einzeln angewandt
+     * @param smooth true, wenn geglttete Iterationen berechnet werden sollen
+     * @param sink Das Ziel
+     * @return Die Summe der Iterationen aller Pixel
+     * @throws IOException Wenn nicht geschrieben werden kann
+     */
+    public long render(Viewport view, Kernel kernel, int maxIter, Coloring coloring, boolean smooth,
+                       RasterSink sink) throws IOException {
+        int width = view.width(), height = view.height();
+        BigDecimal step = new BigDecimal(view.step());
+        ArrayDeque<CompletableFuture<Strip>> pending = new ArrayDeque<>();
+        ArrayDeque<Strip> free = new ArrayDeque<>();
+        ExecutorService strips = Executors.newFixedThreadPool(inFlight, r -> {
+            Thread t = new Thread(r, "StripRenderer");
+            t.setDaemon(true);
+            return t;
+        });
+        long iterations = 0;
+        try {
+            sink.start(width, height);
+            for (int y0 = 0; y0 < height; y0 += stripHeight) {
+                if (pending.size() == inFlight)
+                    iterations += write(pending.poll(), sink, free);
+
+                int rows = Math.min(stripHeight, height - y0);
+                Strip strip = free.isEmpty() || free.peek().field.height() != rows
+                    ? new Strip(width, rows, smooth) : free.poll();
+                Viewport part = new Viewport(view.startRealExact(),
+                                             view.startImagExact().add(step.multiply(BigDecimal.valueOf(y0))),
+                                             view.step(), width, rows);
+                pending.add(CompletableFuture.supplyAsync(() -> {
+                    engine.render(part, kernel, maxIter, strip.field);
+                    coloring.paint(strip.field, strip.pixels);
+                    return strip;
+                }, strips));
+            }
+            while (!pending.isEmpty())
+                iterations += write(pending.poll(), sink, free);
+            sink.finish();
+        } finally {
+            strips.shutdownNow();
+        }
+        return iterations;
+    }
+
+    /**
+     * Der lteste Streifen wird abgewartet, geschrieben und zur
+     * Wiederverwendung zurckgelegt.
+     */
+    private static long write(CompletableFuture<Strip> next, RasterSink sink, ArrayDeque<Strip> free)
+        throws IOException {
+        Strip strip;
+        try {
+            strip = next.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException)e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error)e.getCause();
+            throw e;
+        }
+        sink.write(strip.pixels, 0, strip.field.height());
+        long sum = 0;
+        for (int n : strip.field.iterations())
+            sum += n;
+        free.push(strip);
+        return sum;
+    }
+
+    private static final class Strip {
+        final IterationField field;
+        final int[] pixels;
+
+        Strip(int width, int rows, boolean smooth) {
+            field = new IterationField(width, rows, smooth);
+            pixels = new int[width * rows];
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,233 @@
+package render;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Ein <code>TileCache</code> speichert die Iterationen bereits berechneter
+ * Kacheln, damit beim Zurckkehren zu einem frheren Ausschnitt nicht alles
+ * neu berechnet werden muss.
+ *
+ * Die Kacheln liegen dazu auf einem festen Raster der komplexen Ebene: Die
+ * Kachel (i, j) einer Zoomstufe beginnt bei
+ * (i * TILE_SIZE + phase) * step. Die Lage eines Ausschnitts im Pixelraster
+ * wird auf 1/<code>PHASES</code> Pixel gerundet. Der Schlssel enthlt
+ * auerdem die maximale Anzahl der Iterationen, den Kernel und dessen
+ * Genauigkeitsstufe, da diese das Ergebnis verndern.
+ *
+ * Werden mehr als <code>budget</code> Bytes belegt, werden die am lngsten
+ * nicht verwendeten Kacheln verworfen (LRU). Alle Methoden sind
+ * synchronisiert, pro Kachel wird nur einmal gesucht bzw. abgelegt.
+ */
+public final class TileCache {
+
+    /**
+     * Die Lage des Ausschnitts wird auf diesen Bruchteil eines Pixels gerundet.
+     */
+    static final int PHASE_BITS = 8, PHASES = 1 << PHASE_BITS;
+
+    /**
+     * <code>RenderEngine.TILE_SIZE</code> als Zweierpotenz.
+     */
+    private static final int TILE_BITS = Integer.numberOfTrailingZeros(RenderEngine.TILE_SIZE);
+
+    /**
+     * Geschtzter Speicherbedarf einer Kachel neben ihren Arrays.
+     */
+    private static final int OVERHEAD = 128;
+
+    private final long budget;
+    private final LinkedHashMap<Key, Tile> tiles = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes = 0, hits = 0, misses = 0, evictions = 0;
+
+    /**
+     * Der Cache wird initialisiert.
+     *
+     * @param budget Der hchstens belegte Speicher in Bytes
+     */
+    public TileCache(long budget) {
+        if (budget < 0)
+            throw new IllegalArgumentException("Negatives Budget: " + budget);
+        this.budget = budget;
+    }
+
+    public long budget() {
+        return budget;
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Alle Kacheln werden verworfen. Die Statistik bleibt erhalten.
+     */
+    public synchronized void clear() {
+        tiles.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Die Statistik wird als String zurckgegeben.
+     *
+     * @return Die Statistik
+     */
+    public synchronized String toString() {
+        long total = hits + misses;
+        return "TileCache[" + tiles.size() + " Kacheln, " + (bytes >> 10) + "/" + (budget >> 10) + " KiB, "
+            + hits + " Treffer, " + misses + " Fehlschlge"
+            + (total > 0 ? " (" + (100 * hits / total) + "%)" : "") + ", " + evictions + " verdrngt]";
+    }
+
+    synchronized Tile get(Key key) {
+        Tile tile = tiles.get(key);
+        if (tile != null)
+            ++hits;
+        else
+            ++misses;
+        return tile;
+    }
+
+    synchronized void put(Key key, Tile tile) {
+        if (tile.bytes() > budget)
+            return;
+        Tile old = tiles.put(key, tile);
+        if (old != null)
+            bytes -= old.bytes();
+        bytes += tile.bytes();
+        for (Iterator<Tile> i = tiles.values().iterator(); bytes > budget && i.hasNext();) {
+            bytes -= i.next().bytes();
+            i.remove();
+            ++evictions;
+        }
+    }
+
+    /**
+     * Das Kachelraster fr den Ausschnitt <code>view</code> wird zurckgegeben.
+     *
+     * @param view Der Ausschnitt
+     * @param kernel Der Kernel, der die Iterationen berechnet
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @return Das Raster
+     */
+    static Grid grid(Viewport view, Kernel kernel, int maxIter) {
+        return new Grid(kernel, Precision.required(view), maxIter, view.step(),
+                        lattice(view.startRealExact(), view.step()), lattice(view.startImagExact(), view.step()));
+    }
+
+    /**
+     * Die Koordinate <code>start</code> wird in Pixel der Gre
+     * <code>step</code> umgerechnet und auf 1/<code>PHASES</code> Pixel gerundet.
+     */
+    private static BigInteger lattice(BigDecimal start, double step) {
+        MathContext mc = new MathContext(20 + Math.max(0, (int)Math.ceil(-Math.log10(step))));
+        return start.multiply(BigDecimal.valueOf(PHASES)).divide(new BigDecimal(step), mc)
+                    .setScale(0, RoundingMode.HALF_EVEN).toBigInteger();
+    }
+
+    /**
+     * Das Kachelraster eines Ausschnitts. Die Spalte 0 des Ausschnitts ist
+     * die Spalte <code>originX</code> der Kachel <code>tileX</code>, entsprechend
+     * fr die Zeilen.
+     */
+    static final class Grid {
+        final Kernel kernel;
+        final Precision precision;
+        final int maxIter, phaseX, phaseY, originX, originY, hash;
+        final double step;
+        final BigInteger tileX, tileY;
+
+        Grid(Kernel kernel, Precision precision, int maxIter, double step, BigInteger startX, BigInteger startY) {
+            this.kernel = kernel;
+            this.precision = precision;
+            this.maxIter = maxIter;
+            this.step = step;
+            // Ganze Pixel abgerundet, der Bruchteil liegt in [0, PHASES)
+            BigInteger mask = BigInteger.valueOf(PHASES - 1);
+            phaseX = startX.and(mask).intValue();
+            phaseY = startY.and(mask).intValue();
+            BigInteger pixelX = startX.shiftRight(PHASE_BITS), pixelY = startY.shiftRight(PHASE_BITS);
+            originX = pixelX.and(BigInteger.valueOf(RenderEngine.TILE_SIZE - 1)).intValue();
+            originY = pixelY.and(BigInteger.valueOf(RenderEngine.TILE_SIZE - 1)).intValue();
+            tileX = pixelX.shiftRight(TILE_BITS);
+            tileY = pixelY.shiftRight(TILE_BITS);
+            hash = ((System.identityHashCode(kernel) * 31 + precision.ordinal()) * 31 + maxIter) * 31
+                + Double.hashCode(step) + phaseX * 17 + phaseY;
+        }
+
+        /**
+         * Der Schlssel der Kachel in Spalte <code>column</code> und Zeile
+         * <code>row</code> des Ausschnitts wird zurckgegeben.
+         */
+        Key key(int column, int row) {
+            return new Key(this, tileX.add(BigInteger.valueOf(column)), tileY.add(BigInteger.valueOf(row)));
+        }
+
+        boolean matches(Grid g) {
+            return kernel == g.kernel && precision == g.precision && maxIter == g.maxIter
+                && Double.compare(step, g.step) == 0 && phaseX == g.phaseX && phaseY == g.phaseY;
+        }
+    }
+
+    static final class Key {
+        private final Grid grid;
+        private final BigInteger x, y;
+        private final int hash;
+
+        Key(Grid grid, BigInteger x, BigInteger y) {
+            this.grid = grid;
+            this.x = x;
+            this.y = y;
+            hash = (grid.hash * 31 + x.hashCode()) * 31 + y.hashCode();
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key))
+                return false;
+            Key k = (Key)obj;
+            return hash == k.hash && x.equals(k.x) && y.equals(k.y) && grid.matches(k.grid);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Die Iterationen einer vollstndigen Kachel, zeilenweise. Die gegltteten
+     * Iterationen sind null, wenn sie nicht berechnet wurden.
+     */
+    static final class Tile {
+        final int[] iterations;
+        final float[] smooth;
+
+        Tile(int[] iterations, float[] smooth) {
+            this.iterations = iterations;
+            this.smooth = smooth;
+        }
+
+        long bytes() {
+            return OVERHEAD + 4L * iterations.length + (smooth != null ? 4L * smooth.length : 0);
+        }
+    }
+}
\ No newline at end of file
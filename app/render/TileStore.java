@@ -0,0 +1,530 @@
+package render;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ein <code>TileStore</code> speichert die Iterationen einer Kachelpyramide
+ * in Dateien, die in den Speicher abgebildet werden
+ * (<code>FileChannel.map</code>). Stufe 0 ist eine einzige Kachel ber das
+ * Quadrat mit der Ecke <code>origin</code> und der Kantenlnge
+ * <code>extent</code>, jede weitere Stufe halbiert den Pixelabstand. Eine
+ * Kachel wird mit (level, tx, ty) angesprochen.
+ *
+ * Im Verzeichnis liegen drei Dateien:
+ * <ul>
+ * <li><code>pyramid.properties</code> mit der Geometrie und der maximalen
+ *     Anzahl der Iterationen,</li>
+ * <li><code>tiles.dat</code> mit den Kacheln in fester Gre, in der
+ *     Reihenfolge, in der sie geschrieben wurden (Little Endian),</li>
+ * <li><code>tiles.idx</code> mit einem Eintrag (level, tx, ty) pro Platz
+ *     in <code>tiles.dat</code> und der Anzahl der gltigen Eintrge.</li>
+ * </ul>
+ * Da ein <code>MappedByteBuffer</code> hchstens 2 GB gro sein kann, wird
+ * <code>tiles.dat</code> in Abschnitten von <code>CHUNK_TILES</code> Kacheln
+ * abgebildet. Die FFM-API fr grere Abbildungen gibt es in Java 17 noch nicht.
+ *
+ * Mehrere Threads drfen gleichzeitig schreiben: Jeder Kachel wird beim
+ * ersten Schreiben atomar ein Platz zugeteilt, und sie wird erst nach dem
+ * Schreiben im Index sichtbar. Eine ersetzte Kachel behlt ihren Platz.
+ * Dieselbe Kachel schreibt und berechnet immer nur ein Thread. Gelesen wird
+ * ohne Kopie ber Sichten auf den abgebildeten Speicher; die Sichten einer
+ * ersetzten Kachel zeigen danach die neuen Werte. Erst <code>flush</code>
+ * oder <code>close</code> machen die Kacheln dauerhaft; nach einem Absturz
+ * gelten nur die bis dahin gesicherten, eine dabei ersetzte Kachel kann
+ * teilweise neu sein.
+ */
+public final class TileStore implements Closeable {
+
+    /**
+     * So viele Kacheln liegen in einem abgebildeten Abschnitt.
+     */
+    static final int CHUNK_TILES = 4096;
+
+    private static final int VERSION = 1;
+    private static final int INDEX_MAGIC = 0x54494c45; // "TILE"
+    private static final int INDEX_HEADER = 16, RECORD = 24;
+
+    private static final String PROPERTIES = "pyramid.properties", DATA = "tiles.dat", INDEX = "tiles.idx";
+
+    private final BigDecimal originReal, originImag;
+    private final double extent;
+    private final int maxIter;
+    private final boolean smooth;
+    private final int tileBytes;
+    private final FileChannel data, index;
+    private final FileLock lock;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong nextSlot;
+    // Schreiber halten die Lesesperre, flush wartet mit der Schreibsperre auf sie
+    private final ReadWriteLock writers = new ReentrantReadWriteLock();
+    // Nicht this: flush hlt this, whrend es auf die Schreiber wartet
+    private final Object mapping = new Object();
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+    private volatile boolean closed = false;
+
+    private TileStore(Path dir, Properties p, boolean create) throws IOException {
+        if (Integer.parseInt(p.getProperty("version")) != VERSION
+            || Integer.parseInt(p.getProperty("tileSize")) != RenderEngine.TILE_SIZE)
+            throw new IOException("Unbekanntes Format in " + dir);
+        originReal = new BigDecimal(p.getProperty("originReal"));
+        originImag = new BigDecimal(p.getProperty("originImag"));
+        extent = Double.parseDouble(p.getProperty("extent"));
+        maxIter = Integer.parseInt(p.getProperty("maxIter"));
+        smooth = Boolean.parseBoolean(p.getProperty("smooth"));
+        tileBytes = RenderEngine.TILE_SIZE * RenderEngine.TILE_SIZE * (smooth ? 8 : 4);
+
+        StandardOpenOption[] options = create
+            ? new StandardOpenOption[] { StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE }
+            : new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE };
+        data = FileChannel.open(dir.resolve(DATA), options);
+        try {
+            index = FileChannel.open(dir.resolve(INDEX), options);
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+        try {
+            // Zwei Prozesse, die gleichzeitig anhngen, wrden sich die Pltze berschreiben
+            lock = index.tryLock();
+            if (lock == null)
+                throw new IOException(dir + " wird schon verwendet");
+            nextSlot = new AtomicLong(create ? 0 : load());
+        } catch (OverlappingFileLockException e) {
+            data.close();
+            index.close();
+            throw new IOException(dir + " ist schon geffnet", e);
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            index.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Eine neue, leere Pyramide wird im Verzeichnis <code>dir</code> angelegt.
+     *
+     * @param dir Das Verzeichnis, es wird bei Bedarf angelegt
+     * @param originReal Der reelle Teil der Ecke von Stufe 0
+     * @param originImag Der imaginre Teil der Ecke von Stufe 0
+     * @param extent Die Kantenlnge von Stufe 0
+     * @param maxIter Die maximale Anzahl der Iterationen aller Kacheln
+     * @param smooth true, wenn auch die gegltteten Iterationen gespeichert werden
+     * @return Die Pyramide
+     * @throws IOException Wenn die Dateien schon existieren oder nicht angelegt werden knnen
+     */
+    public static TileStore create(Path dir, BigDecimal originReal, BigDecimal originImag, double extent,
+                                   int maxIter, boolean smooth) throws IOException {
+        Files.createDirectories(dir);
+        Properties p = new Properties();
+        p.setProperty("version", Integer.toString(VERSION));
+        p.setProperty("tileSize", Integer.toString(RenderEngine.TILE_SIZE));
+        p.setProperty("originReal", originReal.toString());
+        p.setProperty("originImag", originImag.toString());
+        p.setProperty("extent", Double.toString(extent));
+        p.setProperty("maxIter", Integer.toString(maxIter));
+        p.setProperty("smooth", Boolean.toString(smooth));
+        try (OutputStream out = Files.newOutputStream(dir.resolve(PROPERTIES), StandardOpenOption.CREATE_NEW)) {
+            p.store(out, "Mandelbrot-Kachelpyramide");
+        }
+        TileStore store = new TileStore(dir, p, true);
+        store.flush();
+        return store;
+    }
+
+    /**
+     * Es wird geprft, ob im Verzeichnis <code>dir</code> eine Pyramide liegt.
+     *
+     * @param dir Das Verzeichnis
+     * @return true, wenn dort eine Pyramide angelegt wurde
+     */
+    public static boolean exists(Path dir) {
+        return Files.exists(dir.resolve(PROPERTIES));
+    }
+
+    /**
+     * Eine bestehende Pyramide wird geffnet. Alle mit <code>flush</code>
+     * gesicherten Kacheln sind sofort lesbar.
+     *
+     * @param dir Das Verzeichnis
+     * @return Die Pyramide
+     * @throws IOException Wenn die Dateien fehlen oder beschdigt sind
+     */
+    public static TileStore open(Path dir) throws IOException {
+        Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(dir.resolve(PROPERTIES))) {
+            p.load(in);
+        }
+        return new TileStore(dir, p, false);
+    }
+
+    /**
+     * Die gesicherten Eintrge des Index werden gelesen. Zurckgegeben wird
+     * der erste freie Platz.
+     */
+    private long load() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER);
+        index.read(header, 0);
+        header.flip();
+        if (header.remaining() < INDEX_HEADER || header.getInt() != INDEX_MAGIC || header.getInt() != VERSION)
+            throw new IOException("Index beschdigt");
+        long committed = header.getLong();
+        ByteBuffer records = ByteBuffer.allocate(RECORD * 1024);
+        for (long slot = 0; slot < committed;) {
+            records.clear();
+            int n = (int)Math.min(1024, committed - slot);
+            records.limit(n * RECORD);
+            while (records.hasRemaining()) {
+                if (index.read(records, INDEX_HEADER + slot * RECORD + records.position()) < 0)
+                    throw new IOException("Index zu kurz");
+            }
+            records.flip();
+            for (int i = 0; i < n; ++i, ++slot) {
+                int level = records.getInt();
+                records.getInt();
+                long tx = records.getLong(), ty = records.getLong();
+                // Sptere Eintrge derselben Kachel ersetzen frhere
+                Entry e = entry(new Key(level, tx, ty));
+                if (e.slot < 0)
+                    size.incrementAndGet();
+                e.slot = slot;
+                e.stored = true;
+            }
+        }
+        return committed;
+    }
+
+    public int maxIter() {
+        return maxIter;
+    }
+
+    public boolean hasSmooth() {
+        return smooth;
+    }
+
+    /**
+     * Die Anzahl der gespeicherten Kacheln wird zurckgegeben.
+     *
+     * @return Die Anzahl der Kacheln
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Der Ausschnitt der Kachel (level, tx, ty) wird zurckgegeben.
+     *
+     * @param level Die Stufe, 0 ist eine Kachel ber die ganze Pyramide
+     * @param tx Die Spalte, von 0 bis 2^level - 1
+     * @param ty Die Zeile, von 0 bis 2^level - 1
+     * @return Der Ausschnitt, <code>TILE_SIZE</code> Pixel im Quadrat
+     */
+    public Viewport viewport(int level, long tx, long ty) {
+        checkTile(level, tx, ty);
+        double step = Math.scalb(extent / RenderEngine.TILE_SIZE, -level);
+        BigDecimal size = new BigDecimal(step).multiply(BigDecimal.valueOf(RenderEngine.TILE_SIZE));
+        return new Viewport(originReal.add(size.multiply(BigDecimal.valueOf(tx))),
+                            originImag.add(size.multiply(BigDecimal.valueOf(ty))),
+                            step, RenderEngine.TILE_SIZE, RenderEngine.TILE_SIZE);
+    }
+
+    private static void checkTile(int level, long tx, long ty) {
+        if (level < 0 || level > 62 || tx < 0 || ty < 0 || tx >= 1L << level || ty >= 1L << level)
+            throw new IllegalArgumentException("Keine Kachel: " + level + "/" + tx + "/" + ty);
+    }
+
+    public boolean contains(int level, long tx, long ty) {
+        Entry e = entries.get(new Key(level, tx, ty));
+        return e != null && e.stored;
+    }
+
+    private Entry entry(Key key) {
+        return entries.computeIfAbsent(key, k -> new Entry());
+    }
+
+    /**
+     * Die Kachel (level, tx, ty) wird berechnet und gespeichert, falls sie
+     * noch fehlt. Berechnen mehrere Threads dieselbe Kachel, rechnet nur der
+     * erste, die anderen warten auf ihn.
+     *
+     * @param engine Die Engine, mit der gerechnet wird
+     * @param kernel Der Kernel, der die Iterationen berechnet
+     * @param level Die Stufe
+     * @param tx Die Spalte
+     * @param ty Die Zeile
+     * @return true, wenn die Kachel berechnet wurde
+     * @throws IOException Wenn nicht geschrieben werden kann
+     */
+    public boolean render(RenderEngine engine, Kernel kernel, int level, long tx, long ty) throws IOException {
+        if (contains(level, tx, ty))
+            return false;
+        Viewport view = viewport(level, tx, ty);
+        Entry e = entry(new Key(level, tx, ty));
+        synchronized (e) {
+            if (e.stored)
+                return false;
+            IterationField field = new IterationField(RenderEngine.TILE_SIZE, RenderEngine.TILE_SIZE, smooth);
+            engine.render(view, kernel, maxIter, field);
+            write(level, tx, ty, e, field);
+        }
+        return true;
+    }
+
+    /**
+     * Die Kachel (level, tx, ty) wird gespeichert. Eine schon vorhandene
+     * wird ersetzt, Leser sehen danach die neue.
+     *
+     * @param level Die Stufe
+     * @param tx Die Spalte
+     * @param ty Die Zeile
+     * @param field Die Iterationen, <code>TILE_SIZE</code> Pixel im Quadrat
+     * @throws IOException Wenn nicht geschrieben werden kann
+     */
+    public void put(int level, long tx, long ty, IterationField field) throws IOException {
+        checkTile(level, tx, ty);
+        if (field.width() != RenderEngine.TILE_SIZE || field.height() != RenderEngine.TILE_SIZE
+            || (smooth && field.smooth() == null))
+            throw new IllegalArgumentException("Falsches Feld fr die Pyramide");
+        Entry e = entry(new Key(level, tx, ty));
+        synchronized (e) {
+            write(level, tx, ty, e, field);
+        }
+    }
+
+    /**
+     * Die Kachel wird auf ihren Platz geschrieben, beim ersten Mal auf einen
+     * neuen. Der Aufrufer hlt den Monitor von <code>e</code>.
+     */
+    private void write(int level, long tx, long ty, Entry e, IterationField field) throws IOException {
+        writers.readLock().lock();
+        try {
+            ensureOpen();
+            // Innerhalb der Lesesperre, damit flush keinen ungeschriebenen Platz sichert
+            boolean added = e.slot < 0;
+            long slot = added ? nextSlot.getAndIncrement() : e.slot;
+            ByteBuffer tile = slice(slot);
+            int n = RenderEngine.TILE_SIZE * RenderEngine.TILE_SIZE;
+            tile.asIntBuffer().put(0, field.iterations(), 0, n);
+            if (smooth)
+                tile.slice(4 * n, 4 * n).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(0, field.smooth(), 0, n);
+
+            if (added) {
+                ByteBuffer record = ByteBuffer.allocate(RECORD);
+                record.putInt(level).putInt(0).putLong(tx).putLong(ty).flip(); // 0 ist reserviert
+                while (record.hasRemaining())
+                    index.write(record, INDEX_HEADER + slot * RECORD + record.position());
+                e.slot = slot;
+                size.incrementAndGet();
+            }
+            e.stored = true;
+        } finally {
+            writers.readLock().unlock();
+        }
+    }
+
+    /**
+     * Die Kachel (level, tx, ty) wird ohne Kopie zurckgegeben.
+     *
+     * @param level Die Stufe
+     * @param tx Die Spalte
+     * @param ty Die Zeile
+     * @return Die Kachel oder null, wenn sie fehlt
+     */
+    public Tile get(int level, long tx, long ty) {
+        Entry e = entries.get(new Key(level, tx, ty));
+        if (e == null || !e.stored)
+            return null;
+        ensureOpen();
+        return new Tile(slice(e.slot).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN), maxIter);
+    }
+
+    /**
+     * Der Speicher des Platzes <code>slot</code> wird zurckgegeben.
+     */
+    private ByteBuffer slice(long slot) {
+        int chunk = (int)(slot / CHUNK_TILES), offset = (int)(slot % CHUNK_TILES) * tileBytes;
+        return chunk(chunk).slice(offset, tileBytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private MappedByteBuffer chunk(int chunk) {
+        MappedByteBuffer[] c = chunks;
+        if (chunk < c.length)
+            return c[chunk];
+        synchronized (mapping) {
+            c = chunks;
+            if (chunk >= c.length) {
+                c = Arrays.copyOf(c, chunk + 1);
+                long size = (long)CHUNK_TILES * tileBytes;
+                try {
+                    for (int i = chunks.length; i <= chunk; ++i)
+                        c[i] = data.map(FileChannel.MapMode.READ_WRITE, i * size, size);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Abbilden von " + DATA + " fehlgeschlagen", e);
+                }
+                chunks = c;
+            }
+            return c[chunk];
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed)
+            throw new IllegalStateException("TileStore wurde geschlossen");
+    }
+
+    /**
+     * Alle bisher geschriebenen Kacheln werden dauerhaft gesichert. Erst
+     * danach zhlt der Index sie nach einem Neustart mit.
+     *
+     * @throws IOException Wenn nicht geschrieben werden kann
+     */
+    public synchronized void flush() throws IOException {
+        writers.writeLock().lock();
+        try {
+            ensureOpen();
+            long committed = nextSlot.get();
+            for (MappedByteBuffer chunk : chunks)
+                chunk.force();
+            index.force(false);
+            ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER);
+            header.putInt(INDEX_MAGIC).putInt(VERSION).putLong(committed).flip();
+            while (header.hasRemaining())
+                index.write(header, header.position());
+            index.force(false);
+        } finally {
+            writers.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Die Kacheln werden gesichert und die Dateien geschlossen. Bereits
+     * zurckgegebene Kacheln bleiben lesbar, bis sie nicht mehr referenziert
+     * werden.
+     */
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        try {
+            flush();
+        } finally {
+            closed = true;
+            data.close();
+            try {
+                lock.release();
+            } finally {
+                index.close();
+            }
+        }
+    }
+
+    /**
+     * Eine Kachel als Sicht auf den abgebildeten Speicher: zuerst
+     * <code>TILE_SIZE</code> Iterationen, danach gegebenenfalls ebenso viele
+     * geglttete Iterationen, zeilenweise und Little Endian.
+     */
+    public static final class Tile {
+        private final ByteBuffer bytes;
+        private final int maxIter;
+
+        Tile(ByteBuffer bytes, int maxIter) {
+            this.bytes = bytes;
+            this.maxIter = maxIter;
+        }
+
+        /**
+         * Die rohen Bytes der Kachel, z.B. zum Versenden.
+         *
+         * @return Eine nur lesbare Sicht
+         */
+        public ByteBuffer bytes() {
+            return bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * @return Die Iterationen als nur lesbare Sicht
+         */
+        public IntBuffer iterations() {
+            return bytes().limit(4 * RenderEngine.TILE_SIZE * RenderEngine.TILE_SIZE).slice()
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+
+        /**
+         * @return Die gegltteten Iterationen als nur lesbare Sicht, oder null
+         */
+        public FloatBuffer smooth() {
+            int n = 4 * RenderEngine.TILE_SIZE * RenderEngine.TILE_SIZE;
+            if (bytes.capacity() == n)
+                return null;
+            return bytes().position(n).slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        }
+
+        /**
+         * Die Kachel wird in <code>field</code> kopiert, z.B. zum Einfrben
+         * mit einem <code>Coloring</code>.
+         *
+         * @param field Das Feld, <code>TILE_SIZE</code> Pixel im Quadrat
+         */
+        public void copyTo(IterationField field) {
+            iterations().get(0, field.iterations());
+            FloatBuffer s = smooth();
+            if (s != null && field.smooth() != null)
+                s.get(0, field.smooth());
+            field.setContent(null, null);
+            field.setMaxIter(maxIter);
+        }
+    }
+
+    /**
+     * Der Platz einer Kachel. Ihr Monitor schtzt das Schreiben und
+     * Berechnen der Kachel; sichtbar ist sie erst mit <code>stored</code>.
+     */
+    private static final class Entry {
+        // Geschrieben vor stored, gelesen nach stored
+        long slot = -1;
+        volatile boolean stored = false;
+    }
+
+    private static final class Key {
+        final int level;
+        final long x, y;
+
+        Key(int level, long x, long y) {
+            this.level = level;
+            this.x = x;
+            this.y = y;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key))
+                return false;
+            Key k = (Key)obj;
+            return level == k.level && x == k.x && y == k.y;
+        }
+
+        public int hashCode() {
+            return (level * 31 + Long.hashCode(x)) * 31 + Long.hashCode(y);
+        }
+    }
+}
\ No newline at end of file
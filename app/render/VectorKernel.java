@@ -0,0 +1,132 @@
+package render;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Ein Kernel, der mit der Vector API mehrere benachbarte Pixel einer Zeile
+ * gleichzeitig iteriert. Jede Spur hat ihre eigene Maske und ihren eigenen
+ * Zhler; die Schleife endet, sobald alle Spuren divergiert sind oder
+ * <code>maxIter</code> erreicht ist.
+ *
+ * Gerechnet wird in derselben Reihenfolge wie im <code>DoubleKernel</code>,
+ * die Ergebnisse sind also pixelgleich. Da alle Spuren gleichzeitig beginnen,
+ * laufen auch die Perioden der Periodenerkennung gleich.
+ *
+ * Die Klasse braucht das Modul <code>jdk.incubator.vector</code>
+ * (<code>--add-modules jdk.incubator.vector</code>) und wird daher nur ber
+ * <code>DoubleKernel.vectorized</code> erzeugt.
+ */
+final class VectorKernel implements Kernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private final DoubleKernel scalar;
+    private final double bailout;
+    private final boolean interiorChecks;
+
+    VectorKernel(double bailout, boolean interiorChecks) {
+        if (SPECIES.length() < 2)
+            throw new UnsupportedOperationException("Keine Vektoren mit mehreren double");
+        this.scalar = new DoubleKernel(bailout, interiorChecks);
+        this.bailout = bailout;
+        this.interiorChecks = interiorChecks;
+    }
+
+    public int iterate(double cr, double ci, int maxIter) {
+        return scalar.iterate(cr, ci, maxIter);
+    }
+
+    public Bound bind(Viewport view, int maxIter) {
+        double[] real = new double[view.width()];
+        for (int x = 0; x < real.length; ++x)
+            real[x] = view.real(x);
+        return new Bound() {
+            public int iterate(int x, int y) {
+                return scalar.iterate(real[x], view.imag(y), maxIter, null, 0);
+            }
+
+            public int iterate(int x, int y, float[] smooth, int index) {
+                return scalar.iterate(real[x], view.imag(y), maxIter, smooth, index);
+            }
+
+            public boolean mirrors(int y, int mirror) {
+                return view.imag(y) == -view.imag(mirror);
+            }
+
+            public void iterateRow(int y, int x0, int x1, int[] field, int offset) {
+                iterateRow(y, x0, x1, field, null, offset);
+            }
+
+            public void iterateRow(int y, int x0, int x1, int[] field, float[] smooth, int offset) {
+                double ci = view.imag(y);
+                double[] count = new double[SPECIES.length()], magnitude = new double[SPECIES.length()];
+                boolean[] interior = new boolean[SPECIES.length()];
+                int x = x0;
+                for (int end = x0 + SPECIES.loopBound(x1 - x0); x < end; x += SPECIES.length()) {
+                    iterateLanes(real, x, ci, maxIter, count, magnitude, interior);
+                    for (int i = 0; i < count.length; ++i) {
+                        int n = (int)count[i];
+                        field[offset + x + i] = n;
+                        if (smooth != null)
+                            smooth[offset + x + i] = n < maxIter ? IterationField.smooth(n, magnitude[i]) : maxIter;
+                    }
+                }
+                for (; x < x1; ++x)
+                    field[offset + x] = scalar.iterate(real[x], ci, maxIter, smooth, offset + x);
+            }
+        };
+    }
+
+    /**
+     * Die Pixel <code>real[x]</code> bis <code>real[x + SPECIES.length() - 1]</code>
+     * werden gleichzeitig iteriert, die Anzahl der Iterationen landet in <code>count</code>,
+     * |z| beim Abbruch in <code>magnitude</code>.
+     */
+    private void iterateLanes(double[] real, int x, double ci, int maxIter, double[] count, double[] magnitude,
+                              boolean[] interior) {
+        DoubleVector cr = DoubleVector.fromArray(SPECIES, real, x);
+        DoubleVector cim = DoubleVector.broadcast(SPECIES, ci);
+        DoubleVector zr = cr, zi = cim, pr = zr, pi = zi, escape = DoubleVector.zero(SPECIES);
+        DoubleVector n = DoubleVector.zero(SPECIES), limitVector = DoubleVector.broadcast(SPECIES, maxIter);
+        VectorMask<Double> active = SPECIES.maskAll(true);
+
+        if (interiorChecks) {
+            for (int i = 0; i < interior.length; ++i)
+                interior[i] = Interior.contains(real[x + i], ci);
+            VectorMask<Double> inside = VectorMask.fromArray(SPECIES, interior, 0);
+            n = n.blend(limitVector, inside);
+            active = active.andNot(inside);
+        }
+
+        int iter = 0, period = 0, limit = Interior.PERIOD_START;
+        while (iter < maxIter) {
+            DoubleVector mag = zr.mul(zr).add(zi.mul(zi));
+            VectorMask<Double> escaped = mag.compare(VectorOperators.GT, bailout).and(active);
+            escape = escape.blend(mag, escaped);
+            active = active.andNot(escaped); // Wahrscheinlich divergent
+            if (!active.anyTrue())
+                break;
+            DoubleVector tmp = zr.mul(2).mul(zi).add(cim);
+            zr = zr.mul(zr).sub(zi.mul(zi)).add(cr);
+            zi = tmp;
+            n = n.add(1, active);
+            ++iter;
+            if (interiorChecks) {
+                VectorMask<Double> periodic = zr.sub(pr).abs().compare(VectorOperators.LT, Interior.PERIOD_EPSILON)
+                    .and(zi.sub(pi).abs().compare(VectorOperators.LT, Interior.PERIOD_EPSILON)).and(active);
+                n = n.blend(limitVector, periodic); // Periodisch
+                active = active.andNot(periodic);
+                if (++period == limit) {
+                    period = 0;
+                    limit <<= 1;
+                    pr = zr;
+                    pi = zi;
+                }
+            }
+        }
+        n.intoArray(count, 0);
+        escape.intoArray(magnitude, 0);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,192 @@
+package render;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Ein Objekt der Klasse <code>Viewport</code> beschreibt den Ausschnitt der
+ * komplexen Ebene, der berechnet werden soll.
+ * Der Pixel (0, 0) liegt auf dem Startpunkt, jeder weitere Pixel ist um
+ * <code>step</code> in reeller bzw. imaginrer Richtung verschoben.
+ *
+ * Die Koordinaten werden wie in den alten Zeilenschleifen durch fortlaufende
+ * Addition von <code>step</code> berechnet, damit die Pixel exakt gleich bleiben.
+ * Liegt die reelle Achse auf einer Pixelzeile oder genau zwischen zwei
+ * Zeilen, ist das die Achse des Ausschnitts: Die Zeilen jenseits der Achse
+ * bis zum Spiegelbild der ersten Zeile erhalten die negierten imaginren
+ * Teile ihrer Spiegelbilder, die Zeile auf der Achse erhlt 0. Die
+ * Koordinaten sind dann genau symmetrisch und die <code>RenderEngine</code>
+ * kann die Zeilen spiegeln. Dahinter wird wieder fortlaufend addiert.
+ * Fr tiefe Zooms wird der Startpunkt zustzlich exakt als <code>BigDecimal</code>
+ * gespeichert, da <code>double</code> dort nicht mehr ausreicht.
+ */
+public final class Viewport {
+
+    /**
+     * So weit darf die reelle Achse hchstens (in Pixeln) neben einer
+     * Pixelzeile oder der Mitte zwischen zwei Zeilen liegen. Das deckt nur
+     * die Rundung von <code>step</code> ab.
+     */
+    private static final double AXIS_TOLERANCE = 1e-6;
+
+    private final double startReal, startImag, step;
+    private final BigDecimal startRealExact, startImagExact;
+    private final int width, height, axis;
+    private final double[] real, imag;
+
+    /**
+     * Der Ausschnitt wird initialisiert.
+     *
+     * @param startReal Der reelle Teil des Startpunkts
+     * @param startImag Der imaginre Teil des Startpunkts
+     * @param step Der Abstand zweier benachbarter Pixel
+     * @param width Die Breite in Pixeln
+     * @param height Die Hhe in Pixeln
+     */
+    public Viewport(double startReal, double startImag, double step, int width, int height) {
+        this(new BigDecimal(startReal), new BigDecimal(startImag), step, width, height);
+    }
+
+    /**
+     * Der Ausschnitt wird mit einem exakten Startpunkt initialisiert.
+     *
+     * @param startReal Der reelle Teil des Startpunkts
+     * @param startImag Der imaginre Teil des Startpunkts
+     * @param step Der Abstand zweier benachbarter Pixel
+     * @param width Die Breite in Pixeln
+     * @param height Die Hhe in Pixeln
+     */
+    public Viewport(BigDecimal startReal, BigDecimal startImag, double step, int width, int height) {
+        this.startRealExact = startReal;
+        this.startImagExact = startImag;
+        this.startReal = startReal.doubleValue();
+        this.startImag = startImag.doubleValue();
+        this.step = step;
+        this.width = width;
+        this.height = height;
+        real = accumulate(this.startReal, step, width);
+        axis = axis(startImag, step, height);
+        imag = axis < 0 ? accumulate(this.startImag, step, height) : mirror(this.startImag, step, height, axis);
+    }
+
+    private static double[] accumulate(double start, double step, int n) {
+        double[] a = new double[n];
+        double c = start;
+        for (int i = 0; i < n; ++i) {
+            a[i] = c;
+            c += step;
+        }
+        return a;
+    }
+
+    /**
+     * Wie <code>accumulate</code>, die Zeilen y mit axis / 2 &lt; y &lt;= axis
+     * sind aber die Spiegelbilder der Zeilen axis - y.
+     */
+    private static double[] mirror(double start, double step, int n, int axis) {
+        double[] a = new double[n];
+        double c = start;
+        for (int i = 0; i < n; ++i) {
+            if (2 * i == axis)
+                c = 0;
+            else if (2 * i > axis && i <= axis)
+                c = -a[axis - i];
+            a[i] = c;
+            c += step;
+        }
+        return a;
+    }
+
+    /**
+     * Die Zeile y, fr die y und axis - y spiegelbildlich zur reellen Achse
+     * liegen, wird als axis zurckgegeben, -1 wenn die Achse nicht im
+     * Ausschnitt auf einer Zeile oder zwischen zwei Zeilen liegt.
+     */
+    private static int axis(BigDecimal startImag, double step, int n) {
+        if (!(step > 0) || startImag.signum() > 0)
+            return -1;
+        double d = startImag.negate().multiply(BigDecimal.valueOf(2))
+            .divide(new BigDecimal(step), MathContext.DECIMAL64).doubleValue();
+        if (!(d < 2.0 * n))
+            return -1;
+        long a = Math.round(d);
+        return Math.abs(d - a) <= 2 * AXIS_TOLERANCE && a < 2L * n ? (int)a : -1;
+    }
+
+    public double startReal() {
+        return startReal;
+    }
+
+    public double startImag() {
+        return startImag;
+    }
+
+    public BigDecimal startRealExact() {
+        return startRealExact;
+    }
+
+    public BigDecimal startImagExact() {
+        return startImagExact;
+    }
+
+    public double step() {
+        return step;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Die Achse des Ausschnitts wird zurckgegeben: Fr axis / 2 &lt; y &lt;=
+     * axis ist der imaginre Teil der Zeile y genau der negierte der Zeile
+     * axis - y. Liegt die reelle Achse nicht auf einer Zeile oder zwischen
+     * zwei Zeilen, wird -1 zurckgegeben.
+     *
+     * @return Die doppelte Zeile der reellen Achse oder -1
+     */
+    public int axis() {
+        return axis;
+    }
+
+    /**
+     * Zwei Ausschnitte sind gleich, wenn Startpunkt, Pixelabstand und Gre
+     * bereinstimmen.
+     */
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Viewport))
+            return false;
+        Viewport v = (Viewport)obj;
+        return step == v.step && width == v.width && height == v.height
+            && startRealExact.compareTo(v.startRealExact) == 0 && startImagExact.compareTo(v.startImagExact) == 0;
+    }
+
+    public int hashCode() {
+        return ((Double.hashCode(startReal) * 31 + Double.hashCode(startImag)) * 31
+                + Double.hashCode(step)) * 31 + width * 17 + height;
+    }
+
+    /**
+     * Der reelle Teil der Spalte <code>x</code> wird zurckgegeben.
+     *
+     * @param x Die Spalte
+     * @return Der reelle Teil
+     */
+    public double real(int x) {
+        return real[x];
+    }
+
+    /**
+     * Der imaginre Teil der Zeile <code>y</code> wird zurckgegeben.
+     *
+     * @param y Die Zeile
+     * @return Der imaginre Teil
+     */
+    public double imag(int y) {
+        return imag[y];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package render;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Das Protokoll zwischen <code>RenderCoordinator</code> und
+ * <code>RenderWorker</code>. Alle Nachrichten beginnen mit einem Byte fr
+ * ihren Typ und werden mit <code>DataOutputStream</code> geschrieben:
+ * <pre>
+ * Worker:      int MAGIC, int VERSION                 (einmal zu Beginn)
+ * JOB:         int job, UTF startReal, UTF startImag, double step,
+ *              int width, int height, int maxIter, UTF kernel, boolean smooth
+ * LEASE:       int job, int lease, int x0, int y0, int width, int height
+ * RESULT:      int job, int lease, int length, byte[length] Iterationen
+ * ERROR:       UTF Meldung
+ * </pre>
+ * Die Iterationen eines Rechtecks werden zeilenweise als Differenz zum
+ * vorigen Pixel bertragen, mit Vorzeichen im niedrigsten Bit
+ * (ZigZag) und 7 Bit pro Byte. Innen und in einfarbigen Flchen kostet ein
+ * Pixel so ein Byte. Geglttete Iterationen folgen genauso mit den Bits
+ * ihrer <code>float</code>-Werte, damit sie unverndert ankommen.
+ */
+final class WireFormat {
+    static final int MAGIC = 0x4d414e44, VERSION = 1;
+    static final byte JOB = 1, LEASE = 2, RESULT = 3, ERROR = 4;
+
+    private WireFormat() {
+    }
+
+    /**
+     * Die Iterationen von <code>region</code> werden kodiert.
+     */
+    static byte[] encode(IterationField region) {
+        int[] iterations = region.iterations();
+        float[] smooth = region.smooth();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(iterations.length * (smooth != null ? 3 : 1));
+        int previous = 0;
+        for (int n : iterations) {
+            writeVarint(out, n - previous);
+            previous = n;
+        }
+        if (smooth != null) {
+            previous = 0;
+            for (float f : smooth) {
+                int bits = Float.floatToRawIntBits(f);
+                writeVarint(out, bits - previous);
+                previous = bits;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Die Iterationen von <code>region</code> werden aus <code>data</code>
+     * gelesen.
+     *
+     * @throws IOException Wenn die Daten nicht zum Rechteck passen
+     */
+    static void decode(byte[] data, IterationField region) throws IOException {
+        int[] position = { 0 };
+        int[] iterations = region.iterations();
+        int previous = 0;
+        for (int i = 0; i < iterations.length; ++i)
+            iterations[i] = previous += readVarint(data, position);
+        float[] smooth = region.smooth();
+        if (smooth != null) {
+            previous = 0;
+            for (int i = 0; i < smooth.length; ++i)
+                smooth[i] = Float.intBitsToFloat(previous += readVarint(data, position));
+        }
+        if (position[0] != data.length)
+            throw new IOException("Falsche Lnge der Iterationen");
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        int v = (value << 1) ^ (value >> 31);
+        while ((v & ~0x7f) != 0) {
+            out.write((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    private static int readVarint(byte[] data, int[] position) throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (position[0] == data.length)
+                throw new IOException("Iterationen abgeschnitten");
+            int b = data[position[0]++];
+            v |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0)
+                return (v >>> 1) ^ -(v & 1);
+        }
+        throw new IOException("Ungltige Zahl in den Iterationen");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,294 @@
+package render;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Der <code>ZoomAnimator</code> berechnet die Bilder einer Zoomfahrt auf einen
+ * Zielpunkt, von <code>startRange</code> bis <code>endRange</code> als Breite
+ * der krzeren Seite.
+ *
+ * Bis zu <code>inFlight</code> Bilder werden gleichzeitig berechnet, jedes mit
+ * den Kacheln der <code>RenderEngine</code>. Geschrieben wird der Reihe nach
+ * im aufrufenden Thread, wie beim <code>StripRenderer</code>.
+ *
+ * Der Zoom pro Bild wird so gerundet, dass sich der Bereich nach genau
+ * <code>m</code> Bildern halbiert bzw. verdoppelt; der letzte Bereich weicht
+ * dadurch etwas von <code>endRange</code> ab. Wren es mehr als 10%, wird
+ * nicht gerundet und nichts bernommen. Der Zielpunkt liegt auf einer
+ * geraden Spalte und Zeile. Dann liegen die Pixel von Bild k auch in Bild
+ * k + m: Beim Hineinzoomen wird das mittlere Viertel von Bild k zu den
+ * geraden Pixeln von Bild k + m, beim Herauszoomen werden die geraden Pixel
+ * von Bild k zum mittleren Viertel von Bild k + m. Von jedem Bild wird dieses
+ * Viertel aufgehoben, bis Bild k + m es bernimmt, so dass dort nur drei
+ * Viertel der Pixel berechnet werden. Wechselt zwischen den beiden Bildern die
+ * ntige Genauigkeit, wird alles neu berechnet.
+ */
+public final class ZoomAnimator {
+
+    /**
+     * So viele Faktoren 2 darf der letzte Bereich abweichen, etwa 10%.
+     */
+    private static final double MAX_DEVIATION = 0.14;
+
+    private final RenderEngine engine;
+    private final int inFlight;
+
+    /**
+     * Ein fertiges Bild wird geschrieben.
+     */
+    public interface FrameSink {
+
+        /**
+         * @param frame Die Nummer des Bildes, ab 0
+         * @param view Sein Ausschnitt
+         * @param pixels Die Farben, zeilenweise
+         * @throws IOException Wenn nicht geschrieben werden kann
+         */
+        void write(int frame, Viewport view, int[] pixels) throws IOException;
+    }
+
+    /**
+     * Der Animator wird initialisiert.
+     *
+     * @param engine Die Engine, die die Kacheln der Bilder berechnet
+     * @param inFlight Die Anzahl der Bilder, die hchstens gleichzeitig
+     *        berechnet werden oder auf das Schreiben warten
+     */
+    public ZoomAnimator(RenderEngine engine, int inFlight) {
+        if (inFlight <= 0)
+            throw new IllegalArgumentException("Anzahl muss positiv sein");
+        this.engine = engine;
+        this.inFlight = inFlight;
+    }
+
+    /**
+     * Die Anzahl der Bilder, nach denen sich der Bereich genau halbiert oder
+     * verdoppelt, wird zurckgegeben, 0 wenn sich der Bereich insgesamt um
+     * weniger als den Faktor 2 ndert oder der letzte Bereich durch das
+     * Runden um mehr als 10% abweichen wrde.
+     *
+     * @param startRange Der Bereich des ersten Bildes
+     * @param endRange Der Bereich des letzten Bildes
+     * @param frames Die Anzahl der Bilder
+     * @return Die Anzahl der Bilder pro Faktor 2
+     */
+    public static int framesPerOctave(double startRange, double endRange, int frames) {
+        double octaves = Math.abs(Math.log(startRange / endRange) / Math.log(2));
+        if (frames < 2 || octaves < 1)
+            return 0;
+        int m = (int)Math.max(1, Math.round((frames - 1) / octaves));
+        return Math.abs((double)(frames - 1) / m - octaves) <= MAX_DEVIATION ? m : 0;
+    }
+
+    /**
+     * Der Ausschnitt von Bild <code>frame</code> wird zurckgegeben.
+     *
+     * @param centerReal Der reelle Teil des Zielpunkts
+     * @param centerImag Der imaginre Teil des Zielpunkts
+     * @param startRange Der Bereich des ersten Bildes
+     * @param endRange Der gewnschte Bereich des letzten Bildes
+     * @param frames Die Anzahl der Bilder
+     * @param frame Die Nummer des Bildes, ab 0
+     * @param width Die Breite in Pixeln
+     * @param height Die Hhe in Pixeln
+     * @return Der Ausschnitt
+     */
+    public static Viewport viewport(BigDecimal centerReal, BigDecimal centerImag, double startRange,
+                                    double endRange, int frames, int frame, int width, int height) {
+        double step0 = startRange / Math.min(width, height), step;
+        int m = framesPerOctave(startRange, endRange, frames);
+        if (m > 0) {
+            // Alle m Bilder genau ein Faktor 2, damit die Pixel aufeinander liegen
+            int sign = startRange > endRange ? -1 : 1;
+            step = Math.scalb(step0 * Math.pow(2, sign * (double)(frame % m) / m), sign * (frame / m));
+        } else {
+            step = frames > 1 ? step0 * Math.pow(endRange / startRange, (double)frame / (frames - 1)) : step0;
+        }
+        return new Viewport(centerReal.subtract(new BigDecimal(centerX(width) * step)),
+                            centerImag.subtract(new BigDecimal(centerX(height) * step)), step, width, height);
+    }
+
+    /**
+     * Die gerade Spalte, auf der der Zielpunkt liegt.
+     */
+    private static int centerX(int width) {
+        return (width / 2) & ~1;
+    }
+
+    /**
+     * Die Bilder werden berechnet, eingefrbt und der Reihe nach geschrieben.
+     *
+     * @param centerReal Der reelle Teil des Zielpunkts
+     * @param centerImag Der imaginre Teil des Zielpunkts
+     * @param startRange Der Bereich des ersten Bildes
+     * @param endRange Der gewnschte Bereich des letzten Bildes
+     * @param frames Die Anzahl der Bilder
+     * @param width Die Breite in Pixeln
+     * @param height Die Hhe in Pixeln
+     * @param kernel Der Kernel, der die Iterationen berechnet
+     * @param maxIter Die maximale Anzahl der Iterationen
+     * @param coloring Die Frbung, auf jedes Bild einzeln angewandt
+     * @param smooth true, wenn geglttete Iterationen berechnet werden sollen
+     * @param sink Das Ziel
+     * @return Die Anzahl der bernommenen Pixel
+     * @throws IOException Wenn nicht geschrieben werden kann
+     */
+    public long render(BigDecimal centerReal, BigDecimal centerImag, double startRange, double endRange,
+                       int frames, int width, int height, Kernel kernel, int maxIter, Coloring coloring,
+                       boolean smooth, FrameSink sink) throws IOException {
+        int m = framesPerOctave(startRange, endRange, frames);
+        boolean zoomIn = startRange > endRange;
+        // Das aufgehobene Viertel der letzten m Bilder
+        List<CompletableFuture<Quarter>> quarters = new ArrayList<>(Collections.nCopies(Math.max(m, 1), null));
+        ArrayDeque<CompletableFuture<Frame>> pending = new ArrayDeque<>();
+        ArrayDeque<Frame> free = new ArrayDeque<>();
+        ExecutorService pipeline = Executors.newFixedThreadPool(inFlight, r -> {
+            Thread t = new Thread(r, "ZoomAnimator");
+            t.setDaemon(true);
+            return t;
+        });
+        long reused = 0;
+        try {
+            for (int k = 0; k < frames; ++k) {
+                if (pending.size() == inFlight)
+                    reused += write(pending.poll(), sink, free);
+
+                Frame frame = free.isEmpty() ? new Frame(width, height, smooth) : free.poll();
+                frame.index = k;
+                frame.view = viewport(centerReal, centerImag, startRange, endRange, frames, k, width, height);
+                CompletableFuture<Quarter> previous = m > 0 && k >= m ? quarters.get(k % m)
+                    : CompletableFuture.completedFuture(null);
+                // Bild k + m kann beginnen, sobald das Viertel kopiert ist
+                CompletableFuture<Quarter> carry = new CompletableFuture<>();
+                boolean keep = m > 0 && k + m < frames;
+                CompletableFuture<Frame> done = previous.thenApplyAsync(quarter -> {
+                    frame.render(engine, kernel, maxIter, quarter, zoomIn);
+                    carry.complete(keep ? frame.quarter(zoomIn) : null);
+                    coloring.paint(frame.field, frame.pixels);
+                    return frame;
+                }, pipeline);
+                done.whenComplete((f, e) -> {
+                    if (e != null)
+                        carry.completeExceptionally(e);
+                });
+                if (keep)
+                    quarters.set(k % m, carry);
+                pending.add(done);
+            }
+            while (!pending.isEmpty())
+                reused += write(pending.poll(), sink, free);
+        } finally {
+            pipeline.shutdownNow();
+        }
+        return reused;
+    }
+
+    /**
+     * Das lteste Bild wird abgewartet, geschrieben und zur Wiederverwendung
+     * zurckgelegt.
+     */
+    private static long write(CompletableFuture<Frame> next, FrameSink sink, ArrayDeque<Frame> free)
+        throws IOException {
+        Frame frame;
+        try {
+            frame = next.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException)e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error)e.getCause();
+            throw e;
+        }
+        sink.write(frame.index, frame.view, frame.pixels);
+        free.push(frame);
+        return frame.reused;
+    }
+
+    /**
+     * Das Viertel eines Bildes, das Bild k + m bernimmt: (width + 1) / 2
+     * mal (height + 1) / 2 Pixel, zeilenweise.
+     */
+    private static final class Quarter {
+        final Viewport view;
+        final int[] iterations;
+        final float[] smooth;
+
+        Quarter(Viewport view, int size, boolean smooth) {
+            this.view = view;
+            iterations = new int[size];
+            this.smooth = smooth ? new float[size] : null;
+        }
+    }
+
+    private static final class Frame {
+        final IterationField field;
+        final int[] pixels;
+        final int width, height, qw, qh, qx, qy;
+        int index;
+        Viewport view;
+        long reused;
+
+        Frame(int width, int height, boolean smooth) {
+            this.width = width;
+            this.height = height;
+            field = new IterationField(width, height, smooth);
+            pixels = new int[width * height];
+            qw = (width + 1) / 2;
+            qh = (height + 1) / 2;
+            qx = centerX(width) / 2;
+            qy = centerX(height) / 2;
+        }
+
+        /**
+         * Das Bild wird berechnet. Das Viertel von Bild k - m wird vorher auf
+         * die geraden Pixel (beim Hineinzoomen) bzw. in die Mitte kopiert.
+         */
+        void render(RenderEngine engine, Kernel kernel, int maxIter, Quarter quarter, boolean zoomIn) {
+            if (quarter == null || Precision.required(quarter.view) != Precision.required(view)) {
+                reused = 0;
+                field.setContent(null, null);
+                engine.render(view, kernel, maxIter, field);
+                return;
+            }
+            for (int j = 0; j < qh; ++j) {
+                for (int i = 0; i < qw; ++i) {
+                    int dst = zoomIn ? 2 * j * width + 2 * i : (qy + j) * width + qx + i;
+                    field.iterations()[dst] = quarter.iterations[j * qw + i];
+                    if (quarter.smooth != null)
+                        field.smooth()[dst] = quarter.smooth[j * qw + i];
+                }
+            }
+            reused = (long)qw * qh;
+            if (zoomIn)
+                engine.render(view, kernel, maxIter, field, 2, 0, 0, 0, 0);
+            else
+                engine.render(view, kernel, maxIter, field, 0, qx, qy, qx + qw, qy + qh);
+        }
+
+        /**
+         * Das Viertel, das Bild k + m bernimmt, wird kopiert: beim
+         * Hineinzoomen die Mitte, beim Herauszoomen die geraden Pixel.
+         */
+        Quarter quarter(boolean zoomIn) {
+            Quarter quarter = new Quarter(view, qw * qh, field.smooth() != null);
+            for (int j = 0; j < qh; ++j) {
+                for (int i = 0; i < qw; ++i) {
+                    int src = zoomIn ? (qy + j) * width + qx + i : 2 * j * width + 2 * i;
+                    quarter.iterations[j * qw + i] = field.iterations()[src];
+                    if (quarter.smooth != null)
+                        quarter.smooth[j * qw + i] = field.smooth()[src];
+                }
+            }
+            return quarter;
+        }
+    }
+}
\ No newline at end of file
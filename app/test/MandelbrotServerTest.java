@@ -0,0 +1,129 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import javax.imageio.ImageIO;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Der Server muss Kacheln mit ETag ausliefern und eine Anfrage mit passendem
+ * <code>If-None-Match</code> mit 304 beantworten, ohne die Kachel zu
+ * berechnen.
+ */
+class MandelbrotServerTest {
+    private static final int TILE = 64, MAX_ITER = 100;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private MandelbrotServer tiles;
+    private HttpServer server;
+
+    @AfterEach
+    void stop() {
+        if (server != null)
+            server.stop(0);
+        if (tiles != null)
+            tiles.shutdown();
+    }
+
+    private static MandelbrotServer tiles(int maxIter) {
+        return new MandelbrotServer(new BigDecimal("-0.75"), BigDecimal.ZERO, 3, TILE, maxIter, "double",
+                                    "palette", 1, 1 << 20);
+    }
+
+    private void start(MandelbrotServer tiles) throws IOException {
+        this.tiles = tiles;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/tiles/", tiles::handle);
+        server.start();
+    }
+
+    private HttpResponse<byte[]> get(String path, String ifNoneMatch) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+            URI.create("http://localhost:" + server.getAddress().getPort() + path));
+        if (ifNoneMatch != null)
+            request.header("If-None-Match", ifNoneMatch);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static String etag(HttpResponse<?> response) {
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        assertNotNull(etag);
+        return etag;
+    }
+
+    @Test
+    void matchingEtagIsNotModified() throws Exception {
+        start(tiles(MAX_ITER));
+        HttpResponse<byte[]> first = get("/tiles/1/0/1.png", null);
+        assertEquals(200, first.statusCode());
+        assertEquals("image/png", first.headers().firstValue("Content-Type").orElse(null));
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(first.body()));
+        assertEquals(TILE, image.getWidth());
+        assertEquals(TILE, image.getHeight());
+        String etag = etag(first);
+
+        for (String ifNoneMatch : new String[] { etag, "W/" + etag, "\"anders\", " + etag, "*" }) {
+            HttpResponse<byte[]> again = get("/tiles/1/0/1.png", ifNoneMatch);
+            assertEquals(304, again.statusCode(), ifNoneMatch);
+            assertEquals(0, again.body().length);
+            assertEquals(etag, etag(again));
+        }
+
+        HttpResponse<byte[]> other = get("/tiles/1/1/1.png", etag);
+        assertEquals(200, other.statusCode());
+        assertNotEquals(etag, etag(other));
+        assertTrue(tiles.toString().contains(", 2 berechnet"), tiles.toString());
+    }
+
+    @Test
+    void notModifiedIsAnsweredWithoutRendering() throws Exception {
+        start(tiles(MAX_ITER));
+        String etag = etag(get("/tiles/0/0/0.png", "\"anders\""));
+        tiles.shutdown();
+        tiles = tiles(MAX_ITER);
+        server.removeContext("/tiles/");
+        server.createContext("/tiles/", tiles::handle);
+
+        HttpResponse<byte[]> response = get("/tiles/0/0/0.png", etag);
+        assertEquals(304, response.statusCode());
+        assertTrue(tiles.toString().contains(", 0 berechnet"), tiles.toString());
+        assertTrue(tiles.toString().contains(", 1 nicht gendert"), tiles.toString());
+    }
+
+    @Test
+    void changedParametersChangeEtags() throws Exception {
+        start(tiles(MAX_ITER));
+        String etag = etag(get("/tiles/0/0/0.png", null));
+        tiles.shutdown();
+        tiles = tiles(2 * MAX_ITER);
+        server.removeContext("/tiles/");
+        server.createContext("/tiles/", tiles::handle);
+
+        HttpResponse<byte[]> response = get("/tiles/0/0/0.png", etag);
+        assertEquals(200, response.statusCode());
+        assertNotEquals(etag, etag(response));
+    }
+
+    @Test
+    void tilesOutsideThePyramidAreNotFound() throws Exception {
+        start(tiles(MAX_ITER));
+        assertEquals(404, get("/tiles/1/2/0.png", null).statusCode());
+        assertEquals(404, get("/tiles/0/0.png", null).statusCode());
+        assertEquals(404, get("/tiles/-1/0/0.png", "*").statusCode());
+    }
+}
\ No newline at end of file
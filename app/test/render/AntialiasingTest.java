@@ -0,0 +1,106 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Das Antialiasing darf nur Kantenpixel neu abtasten; Flchen mssen ihre
+ * Farbe aus der einen Abtastung des Bildes behalten.
+ */
+class AntialiasingTest {
+    private static final int MAX_ITER = 300, THRESHOLD = 24;
+
+    private final RenderEngine engine = new RenderEngine(2);
+    private final Kernel kernel = new DoubleKernel(DoubleKernel.BAILOUT, true);
+    private final Coloring coloring = new Gradient(new int[] { 0xff0000, 0x00ff00, 0x0000ff, 0xffffff }, 64, 0);
+
+    @AfterEach
+    void shutdown() {
+        engine.shutdown();
+    }
+
+    private int[] paint(Viewport view, IterationField field) {
+        engine.render(view, kernel, MAX_ITER, field);
+        int[] pixels = new int[view.width() * view.height()];
+        coloring.paint(field, pixels);
+        return pixels;
+    }
+
+    private static boolean differs(int c, int d) {
+        return Math.abs(((c >> 16) & 0xff) - ((d >> 16) & 0xff)) > THRESHOLD
+            || Math.abs(((c >> 8) & 0xff) - ((d >> 8) & 0xff)) > THRESHOLD
+            || Math.abs((c & 0xff) - (d & 0xff)) > THRESHOLD;
+    }
+
+    /**
+     * Ein Pixel ist eine Kante, wenn er sich von einem der acht Nachbarn um
+     * mehr als die Schwelle unterscheidet.
+     */
+    private static boolean isEdge(int[] pixels, int width, int height, int x, int y) {
+        for (int dy = -1; dy <= 1; ++dy) {
+            for (int dx = -1; dx <= 1; ++dx) {
+                int nx = x + dx, ny = y + dy;
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height
+                    && differs(pixels[y * width + x], pixels[ny * width + nx]))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void onlyEdgesAreResampled() {
+        Viewport view = new Viewport(-2.1, -1.2, 2.4 / 100, 140, 100);
+        IterationField field = new IterationField(view.width(), view.height(), true);
+        int[] original = paint(view, field), pixels = original.clone();
+        int edges = new Antialiasing(engine, THRESHOLD).apply(view, kernel, field, coloring, pixels);
+
+        int expected = 0, changed = 0;
+        for (int y = 0; y < view.height(); ++y) {
+            for (int x = 0; x < view.width(); ++x) {
+                int i = y * view.width() + x;
+                boolean edge = isEdge(original, view.width(), view.height(), x, y);
+                if (edge)
+                    ++expected;
+                if (pixels[i] != original[i]) {
+                    assertTrue(edge, "Pixel " + x + "," + y);
+                    ++changed;
+                }
+            }
+        }
+        assertEquals(expected, edges);
+        assertTrue(edges > 0 && edges < view.width() * view.height() / 2, edges + " Kanten");
+        assertTrue(changed > edges / 2, changed + " von " + edges + " Kanten gendert");
+    }
+
+    @Test
+    void flatRegionsKeepTheirColor() {
+        // Ganz im Inneren der Hauptkardioide
+        Viewport inside = new Viewport(-0.3, -0.1, 0.2 / 64, 64, 64);
+        IterationField field = new IterationField(inside.width(), inside.height(), true);
+        int[] original = paint(inside, field), pixels = original.clone();
+        assertEquals(0, new Antialiasing(engine, THRESHOLD).apply(inside, kernel, field, coloring, pixels));
+        assertArrayEquals(original, pixels);
+
+        // Weit auerhalb der Menge ist der Verlauf sanft
+        Viewport outside = new Viewport(1.5, 1.5, 0.5 / 64, 64, 64);
+        field = new IterationField(outside.width(), outside.height(), true);
+        original = paint(outside, field);
+        pixels = original.clone();
+        assertEquals(0, new Antialiasing(engine, THRESHOLD).apply(outside, kernel, field, coloring, pixels));
+        assertArrayEquals(original, pixels);
+    }
+
+    @Test
+    void negativeThresholdResamplesEveryPixel() {
+        Viewport view = new Viewport(-0.75 - 0.1, 0.1 - 0.1, 0.2 / 40, 40, 40);
+        IterationField field = new IterationField(view.width(), view.height(), true);
+        int[] pixels = paint(view, field);
+        assertEquals(view.width() * view.height(),
+                     new Antialiasing(engine, -1).apply(view, kernel, field, coloring, pixels));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ein <code>DeepeningKernel</code> setzt die offenen Folgen fort, wenn
+ * derselbe Ausschnitt mit hherem Limit berechnet wird. Das Ergebnis muss
+ * dasselbe sein wie eine Berechnung von vorne.
+ */
+class DeepeningKernelTest {
+    private static final Viewport VIEW = new Viewport(-0.7563, 0.0935, 0.0025 / 150, 200, 150);
+    private static final Viewport OTHER = new Viewport(-1.8, -0.1, 0.003, 100, 70);
+
+    private final RenderEngine engine = new RenderEngine(2);
+    private final Kernel fresh = new DoubleKernel(DoubleKernel.BAILOUT, true);
+
+    @AfterEach
+    void shutdown() {
+        engine.shutdown();
+    }
+
+    private IterationField render(Viewport view, Kernel kernel, int maxIter) {
+        IterationField field = new IterationField(view.width(), view.height(), true);
+        engine.render(view, kernel, maxIter, field);
+        return field;
+    }
+
+    private void assertSameAsFresh(Viewport view, Kernel deepening, int maxIter) {
+        IterationField expected = render(view, fresh, maxIter), actual = render(view, deepening, maxIter);
+        assertArrayEquals(expected.iterations(), actual.iterations(), "maxIter " + maxIter);
+        assertArrayEquals(expected.smooth(), actual.smooth(), "maxIter " + maxIter);
+    }
+
+    @Test
+    void raisingLimitEqualsFreshRender() {
+        engine.setProgressive(true);
+        Kernel deepening = new DeepeningKernel(DoubleKernel.BAILOUT, true);
+        for (int maxIter = 100; maxIter <= 3200; maxIter *= 2)
+            assertSameAsFresh(VIEW, deepening, maxIter);
+    }
+
+    @Test
+    void loweringLimitEqualsFreshRender() {
+        Kernel deepening = new DeepeningKernel(DoubleKernel.BAILOUT, true);
+        assertSameAsFresh(VIEW, deepening, 1000);
+        assertSameAsFresh(VIEW, deepening, 300);
+        assertSameAsFresh(VIEW, deepening, 2000);
+    }
+
+    /**
+     * Ein anderer Ausschnitt dazwischen beginnt von vorne und darf die
+     * Folgen des ersten nicht verwenden.
+     */
+    @Test
+    void otherViewStartsOver() {
+        Kernel deepening = new DeepeningKernel(DoubleKernel.BAILOUT, true);
+        assertSameAsFresh(VIEW, deepening, 200);
+        assertSameAsFresh(OTHER, deepening, 400);
+        assertSameAsFresh(VIEW, deepening, 800);
+        assertSameAsFresh(OTHER, deepening, 1600);
+    }
+
+    /**
+     * Bindungen, die kein Bild beenden, wie die Abtastungen von
+     * <code>Antialiasing</code>, rechnen ohne Zustand und lassen den des
+     * letzten Bildes unberhrt.
+     */
+    @Test
+    void bindingsWithoutFrameKeepState() {
+        Kernel deepening = new DeepeningKernel(DoubleKernel.BAILOUT, true);
+        assertSameAsFresh(VIEW, deepening, 200);
+        assertSameAsFresh(VIEW, deepening, 400);
+        Kernel.Bound expected = fresh.bind(OTHER, 5000), actual = deepening.bind(OTHER, 5000);
+        for (int y = 0; y < OTHER.height(); y += 7) {
+            for (int x = 0; x < OTHER.width(); x += 3)
+                assertEquals(expected.iterate(x, y), actual.iterate(x, y));
+        }
+        Kernel.Bound same = deepening.bind(VIEW, 100);
+        assertEquals(fresh.bind(VIEW, 100).iterate(5, 5), same.iterate(5, 5));
+        assertSameAsFresh(VIEW, deepening, 800);
+        assertSameAsFresh(VIEW, deepening, 1600);
+    }
+}
\ No newline at end of file
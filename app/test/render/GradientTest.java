@@ -0,0 +1,77 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ein <code>Gradient</code> muss zwischen zwei Farben stetig berblenden,
+ * sich nach <code>period</code> Iterationen wiederholen und die Menge mit
+ * der Farbe des Inneren frben.
+ */
+class GradientTest {
+    private static final int MAX_ITER = 200, INTERIOR = 0x123456;
+
+    /**
+     * Ein Feld aus einer Zeile mit den gegltteten Werten <code>mu</code>.
+     */
+    private static IterationField field(float... mu) {
+        IterationField field = new IterationField(mu.length, 1, true);
+        field.setMaxIter(MAX_ITER);
+        for (int i = 0; i < mu.length; ++i) {
+            field.iterations()[i] = Math.min((int)mu[i], MAX_ITER);
+            field.smooth()[i] = mu[i];
+        }
+        return field;
+    }
+
+    @Test
+    void blendIsMonotoneWithinPeriod() {
+        // Von Schwarz nach Wei in der ersten Hlfte, zurck in der zweiten
+        Gradient gradient = new Gradient(new int[] { 0x000000, 0xffffff }, 64, INTERIOR);
+        float[] mu = new float[129];
+        for (int i = 0; i < mu.length; ++i)
+            mu[i] = i * 0.25f;
+        int[] pixels = new int[mu.length];
+        gradient.paint(field(mu), pixels);
+        assertEquals(0x000000, pixels[0]);
+        for (int i = 1; i < mu.length; ++i) {
+            int r = pixels[i] >> 16 & 0xff, g = pixels[i] >> 8 & 0xff, b = pixels[i] & 0xff;
+            assertTrue(r == g && g == b, Integer.toHexString(pixels[i]));
+            assertTrue(r >= (pixels[i - 1] & 0xff), "mu = " + mu[i]);
+        }
+        assertTrue((pixels[128] & 0xff) > 0xf0);
+    }
+
+    @Test
+    void colorsRepeatAfterPeriod() {
+        Gradient gradient = new Gradient(new int[] { 0xff0000, 0x00ff00, 0x0000ff }, 30, INTERIOR);
+        int[] pixels = new int[4];
+        gradient.paint(field(2.5f, 32.5f, 62.5f, 92.5f), pixels);
+        for (int i = 1; i < pixels.length; ++i)
+            assertEquals(pixels[0], pixels[i]);
+    }
+
+    @Test
+    void interiorAtMaxIter() {
+        Gradient gradient = new Gradient(new int[] { 0xff0000, 0x00ff00 }, 16, INTERIOR);
+        IterationField field = field(MAX_ITER, MAX_ITER - 0.5f, 3.0f, MAX_ITER);
+        int[] pixels = new int[4];
+        gradient.paint(field, pixels);
+        assertEquals(INTERIOR, pixels[0]);
+        assertTrue(pixels[1] != INTERIOR && pixels[2] != INTERIOR);
+        assertEquals(INTERIOR, pixels[3]);
+
+        // Ohne geglttete Werte entscheidet die ganze Anzahl
+        IterationField plain = new IterationField(3, 1, false);
+        plain.setMaxIter(MAX_ITER);
+        plain.iterations()[0] = MAX_ITER;
+        plain.iterations()[1] = MAX_ITER - 1;
+        plain.iterations()[2] = MAX_ITER + 7;
+        gradient.paint(plain, pixels);
+        assertEquals(INTERIOR, pixels[0]);
+        assertTrue(pixels[1] != INTERIOR);
+        assertEquals(INTERIOR, pixels[2]);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Eine <code>HistogramColoring</code> muss die Farben nach dem Anteil der
+ * Pixel verteilen, die Menge mit der Farbe des Inneren frben und ihre
+ * Tabelle neu berechnen, sobald das Feld einen neuen Inhalt hat.
+ */
+class HistogramColoringTest {
+    private static final int MAX_ITER = 100, INTERIOR = 0x123456;
+    private static final Kernel KERNEL = new DoubleKernel(DoubleKernel.BAILOUT, false);
+
+    /**
+     * Ein Feld aus einer Zeile mit den Iterationen <code>n</code> als
+     * vollstndiges Bild.
+     */
+    private static IterationField field(int... n) {
+        IterationField field = new IterationField(n.length, 1, false);
+        field.setMaxIter(MAX_ITER);
+        System.arraycopy(n, 0, field.iterations(), 0, n.length);
+        field.setContent(new Viewport(0.0, 0.0, 0.01, n.length, 1), KERNEL);
+        return field;
+    }
+
+    private static int gray(int color) {
+        return color & 0xff;
+    }
+
+    @Test
+    void distributionIsMonotone() {
+        // Viele kleine Anzahlen, wenige groe, ein Drittel innen
+        int[] n = new int[3000];
+        for (int i = 0; i < n.length; ++i)
+            n[i] = i < 2000 ? (int)Math.sqrt(i) * 2 + 1 : MAX_ITER;
+        int[] pixels = new int[n.length];
+        new HistogramColoring(new int[] { 0x000000, 0xffffff }, INTERIOR).paint(field(n), pixels);
+        for (int i = 1; i < 2000; ++i) {
+            assertTrue(gray(pixels[i]) >= gray(pixels[i - 1]), "Pixel " + i);
+            if (n[i] == n[i - 1])
+                assertEquals(pixels[i - 1], pixels[i]);
+        }
+        // Die Farbe ist der Anteil der Pixel bis zur eigenen Anzahl
+        assertEquals(0xffffff, pixels[1999]);
+        int half = n[999];
+        int below = 0;
+        for (int i = 0; i < 2000; ++i) {
+            if (n[i] <= half)
+                ++below;
+        }
+        assertEquals(Math.round(255.0 * below / 2000), gray(pixels[999]), 1);
+    }
+
+    @Test
+    void interiorAtMaxIter() {
+        int[] pixels = new int[5];
+        new HistogramColoring(new int[] { 0xff0000, 0x00ff00, 0x0000ff }, INTERIOR)
+            .paint(field(MAX_ITER, 5, MAX_ITER + 20, 7, MAX_ITER - 1), pixels);
+        assertEquals(INTERIOR, pixels[0]);
+        assertEquals(INTERIOR, pixels[2]);
+        assertNotEquals(INTERIOR, pixels[1]);
+        assertNotEquals(INTERIOR, pixels[3]);
+        // Der hufigste Wert auerhalb der Menge erhlt die letzte Farbe
+        assertEquals(0x0000ff, pixels[4]);
+    }
+
+    @Test
+    void newContentRebuildsTable() {
+        HistogramColoring coloring = new HistogramColoring(new int[] { 0x000000, 0xffffff }, INTERIOR);
+        IterationField field = field(1, 2, 3, 4);
+        int[] first = new int[4], again = new int[4], fresh = new int[4];
+        coloring.paint(field, first);
+        // Ohne neuen Inhalt bleibt die Tabelle, auch wenn sich Iterationen ndern
+        field.iterations()[0] = 4;
+        coloring.paint(field, again);
+        assertEquals(first[1], again[1]);
+        // Ein neuer Ausschnitt ist ein neuer Inhalt, wie nach einer Berechnung
+        field.setContent(new Viewport(0.0, 0.0, 0.01, 4, 1), KERNEL);
+        coloring.paint(field, fresh);
+        assertTrue(gray(fresh[1]) < gray(first[1]), Integer.toHexString(fresh[1]));
+    }
+}
\ No newline at end of file
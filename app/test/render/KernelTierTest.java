@@ -0,0 +1,104 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Dort, wo sich zwei Genauigkeitsstufen berschneiden, mssen ihre Kernel
+ * fast berall dieselbe Anzahl der Iterationen liefern. Abweichungen gibt
+ * es nur an einzelnen Pixeln nahe am Rand der Menge, wo sich Rundungsfehler
+ * aufschaukeln. Die Vector-API-Kernel mssen genau gleich rechnen.
+ */
+class KernelTierTest {
+    private static final double BAILOUT = DoubleKernel.BAILOUT;
+    private static final int MAX_ITER = 2000;
+
+    // Um den Misiurewicz-Punkt i wchst die Anzahl der Iterationen beim
+    // Hineinzoomen nur langsam, es gibt in jeder Tiefe Pixel auerhalb
+    private static final BigDecimal CENTER_REAL = BigDecimal.ZERO, CENTER_IMAG = BigDecimal.ONE;
+
+    private final RenderEngine engine = new RenderEngine(2);
+
+    @AfterEach
+    void shutdown() {
+        engine.shutdown();
+    }
+
+    private static Viewport around(double step, int size) {
+        BigDecimal half = new BigDecimal(step * size / 2);
+        return new Viewport(CENTER_REAL.subtract(half), CENTER_IMAG.subtract(half), step, size, size);
+    }
+
+    private IterationField render(Viewport view, Kernel kernel) {
+        IterationField field = new IterationField(view.width(), view.height(), true);
+        engine.render(view, kernel, MAX_ITER, field);
+        return field;
+    }
+
+    /**
+     * Mindestens <code>share</code> der Pixel haben dieselbe Anzahl.
+     */
+    private void assertAgree(Viewport view, Kernel expected, Kernel actual, double share) {
+        int[] a = render(view, expected).iterations(), b = render(view, actual).iterations();
+        int same = 0;
+        for (int i = 0; i < a.length; ++i) {
+            if (a[i] == b[i])
+                ++same;
+        }
+        assertTrue(same >= share * a.length, same + " von " + a.length + " Pixeln gleich");
+    }
+
+    @Test
+    void vectorKernelsEqualScalarKernels() {
+        Viewport view = new Viewport(-2.0, -1.25, 2.5 / 200, 301, 200);
+        IterationField scalar = render(view, new DoubleKernel(BAILOUT, true));
+        IterationField vector = render(view, DoubleKernel.vectorized(BAILOUT, true));
+        assertArrayEquals(scalar.iterations(), vector.iterations());
+        assertArrayEquals(scalar.smooth(), vector.smooth());
+
+        scalar = render(view, new FloatKernel(BAILOUT, true));
+        vector = render(view, FloatKernel.vectorized(BAILOUT, true));
+        assertArrayEquals(scalar.iterations(), vector.iterations());
+        assertArrayEquals(scalar.smooth(), vector.smooth());
+    }
+
+    @Test
+    void floatAgreesWithDoubleOnOverview() {
+        Viewport view = new Viewport(-2.0, -1.25, 2.5 / 200, 300, 200);
+        assertEquals(Precision.FLOAT, Precision.required(view));
+        assertAgree(view, new DoubleKernel(BAILOUT, true), new FloatKernel(BAILOUT, true), 0.99);
+    }
+
+    @Test
+    void doubleDoubleAgreesWithDoubleAtDoubleLimit() {
+        Viewport view = around(2e-12, 100);
+        assertEquals(Precision.DOUBLE, Precision.required(view));
+        assertAgree(view, new DoubleDoubleKernel(BAILOUT, true), new DoubleKernel(BAILOUT, true), 0.99);
+    }
+
+    @Test
+    void perturbationAgreesWithDoubleDoubleAtDoubleDoubleLimit() {
+        for (double step : new double[] { 1e-25, 1e-28 }) {
+            Viewport view = around(step, 100);
+            assertEquals(Precision.DOUBLE_DOUBLE, Precision.required(view));
+            assertAgree(view, new DoubleDoubleKernel(BAILOUT, false), new PerturbationKernel(BAILOUT), 0.99);
+        }
+    }
+
+    @Test
+    void autoKernelChoosesTierByDepth() {
+        Kernel auto = new AutoKernel(BAILOUT, true);
+        for (double step : new double[] { 1e-6, 1e-20, 1e-30 }) {
+            Viewport view = around(step, 64);
+            Kernel tier = step > 1e-10 ? new DoubleKernel(BAILOUT, true)
+                : step > 1e-28 ? new DoubleDoubleKernel(BAILOUT, true) : new PerturbationKernel(BAILOUT);
+            assertArrayEquals(render(view, tier).iterations(), render(view, auto).iterations());
+        }
+    }
+}
\ No newline at end of file
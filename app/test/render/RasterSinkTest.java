@@ -0,0 +1,138 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Was <code>PngSink</code> und <code>PpmSink</code> schreiben, muss sich
+ * wieder zu denselben Pixeln lesen lassen, auch wenn das Bild in Streifen
+ * ungleicher Hhe ankommt.
+ */
+class RasterSinkTest {
+    private final RenderEngine engine = new RenderEngine(2);
+
+    @AfterEach
+    void shutdown() {
+        engine.shutdown();
+    }
+
+    /**
+     * Teils zufllige Pixel, die schlecht komprimieren, teils Verlufe.
+     */
+    private static int[] pixels(int width, int height) {
+        Random random = new Random(1);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; ++i)
+            pixels[i] = random.nextInt(4) == 0 ? random.nextInt() & 0xffffff : i % 977 * 17;
+        return pixels;
+    }
+
+    private static void write(RasterSink sink, int[] pixels, int width, int height, int... strips)
+        throws IOException {
+        sink.start(width, height);
+        int y = 0;
+        for (int rows : strips) {
+            sink.write(pixels, y * width, rows);
+            y += rows;
+        }
+        sink.finish();
+    }
+
+    private static int[] decodePng(byte[] png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    /**
+     * ImageIO liest kein PPM, der Kopf von P6 ist aber einfach.
+     */
+    private static int[] decodePpm(byte[] ppm, int width, int height) {
+        byte[] header = ("P6\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII);
+        assertArrayEquals(header, Arrays.copyOf(ppm, header.length));
+        assertEquals(header.length + 3 * width * height, ppm.length);
+        int[] pixels = new int[width * height];
+        for (int i = 0, o = header.length; i < pixels.length; ++i, o += 3)
+            pixels[i] = 0xff000000 | (ppm[o] & 0xff) << 16 | (ppm[o + 1] & 0xff) << 8 | ppm[o + 2] & 0xff;
+        return pixels;
+    }
+
+    private static int[] opaque(int[] pixels) {
+        int[] argb = new int[pixels.length];
+        for (int i = 0; i < pixels.length; ++i)
+            argb[i] = 0xff000000 | pixels[i];
+        return argb;
+    }
+
+    @Test
+    void pngDecodesToSamePixels() throws IOException {
+        // Breiter als ein IDAT-Chunk, damit jede Zeile mehrere Chunks fllt
+        int width = 30000, height = 7;
+        int[] pixels = pixels(width, height);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(new PngSink(out, 1), pixels, width, height, 3, 1, 3);
+        assertArrayEquals(opaque(pixels), decodePng(out.toByteArray()));
+    }
+
+    @Test
+    void ppmDecodesToSamePixels() throws IOException {
+        int width = 301, height = 50;
+        int[] pixels = pixels(width, height);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(new PpmSink(out), pixels, width, height, 17, 33);
+        assertArrayEquals(opaque(pixels), decodePpm(out.toByteArray(), width, height));
+    }
+
+    @Test
+    void pngRejectsSizesItCannotEncode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class, () -> new PngSink(out).start(Integer.MAX_VALUE / 3 + 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PngSink(out).start(0, 10));
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void sinksCheckRowCount() throws IOException {
+        int[] pixels = pixels(10, 4);
+        PngSink png = new PngSink(new ByteArrayOutputStream());
+        png.start(10, 3);
+        assertThrows(IllegalStateException.class, () -> png.write(pixels, 0, 4));
+        PpmSink ppm = new PpmSink(new ByteArrayOutputStream());
+        ppm.start(10, 3);
+        ppm.write(pixels, 0, 2);
+        assertThrows(IllegalStateException.class, ppm::finish);
+    }
+
+    /**
+     * In Streifen berechnet und geschrieben entsteht dasselbe Bild wie am
+     * Stck. Der Pixelabstand ist eine Zweierpotenz, damit die Koordinaten
+     * der Streifen exakt mit denen des ganzen Ausschnitts bereinstimmen.
+     */
+    @Test
+    void stripRendererWritesWholeImage() throws IOException {
+        Viewport view = new Viewport(-2.0, -1.25, 1.0 / 128, 300, 200);
+        Kernel kernel = new DoubleKernel(DoubleKernel.BAILOUT, true);
+        Palette palette = Palette.cyclic(new int[] { 0xff0000, 0x00ff00, 0x0000ff }, 0);
+        int[] expected = new int[view.width() * view.height()];
+        engine.render(view, kernel, 500, palette, expected);
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(), ppm = new ByteArrayOutputStream();
+        StripRenderer strips = new StripRenderer(engine, 37, 2);
+        strips.render(view, kernel, 500, palette, false, new PngSink(png));
+        strips.render(view, kernel, 500, palette, false, new PpmSink(ppm));
+        assertArrayEquals(opaque(expected), decodePng(png.toByteArray()));
+        assertArrayEquals(opaque(expected), decodePpm(ppm.toByteArray(), view.width(), view.height()));
+    }
+}
\ No newline at end of file
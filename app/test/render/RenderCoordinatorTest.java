@@ -0,0 +1,130 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ein ber Worker verteilter Ausschnitt muss genau dasselbe Ergebnis haben
+ * wie eine <code>RenderEngine</code> im selben Prozess, auch wenn ein
+ * Worker unterwegs abbricht.
+ */
+class RenderCoordinatorTest {
+    private static final int MAX_ITER = 500;
+    private static final Viewport VIEW = new Viewport(-0.7563 - 0.0025, 0.0935 - 0.0025 * 200 / 300,
+                                                      0.005 / 300, 300, 200);
+
+    private final RenderEngine engine = new RenderEngine(2);
+    private final List<RenderEngine> engines = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private RenderCoordinator coordinator;
+
+    @AfterEach
+    void shutdown() throws Exception {
+        if (coordinator != null)
+            coordinator.close();
+        for (Thread t : workers)
+            t.join(5000);
+        for (RenderEngine e : engines)
+            e.shutdown();
+        engine.shutdown();
+    }
+
+    private static Kernel kernel(String name) {
+        switch (name) {
+        case "double": return new DoubleKernel(DoubleKernel.BAILOUT, true);
+        case "float":  return new FloatKernel(DoubleKernel.BAILOUT, true);
+        default: throw new IllegalArgumentException("Unbekannter Kernel: " + name);
+        }
+    }
+
+    private void startWorker() {
+        RenderEngine e = new RenderEngine(1);
+        engines.add(e);
+        RenderWorker worker = new RenderWorker(e, RenderCoordinatorTest::kernel);
+        Thread t = new Thread(() -> {
+            try {
+                worker.run("localhost", coordinator.port());
+            } catch (IOException ex) {
+                // Der Koordinator wurde geschlossen
+            }
+        }, "RenderWorker");
+        t.setDaemon(true);
+        t.start();
+        workers.add(t);
+    }
+
+    private IterationField local(String kernel, boolean smooth) {
+        IterationField field = new IterationField(VIEW.width(), VIEW.height(), smooth);
+        engine.render(VIEW, kernel(kernel), MAX_ITER, field);
+        return field;
+    }
+
+    private static void assertEqualFields(IterationField expected, IterationField actual) {
+        assertArrayEquals(expected.iterations(), actual.iterations());
+        if (expected.smooth() != null)
+            assertArrayEquals(expected.smooth(), actual.smooth());
+        assertEquals(MAX_ITER, actual.maxIter());
+    }
+
+    @Test
+    void distributedEqualsLocal() throws IOException {
+        coordinator = new RenderCoordinator(0, 64, 30000);
+        startWorker();
+        startWorker();
+        for (String kernel : new String[] { "double", "float" }) {
+            for (boolean smooth : new boolean[] { true, false }) {
+                IterationField field = new IterationField(VIEW.width(), VIEW.height(), smooth);
+                coordinator.render(VIEW, kernel, MAX_ITER, field);
+                assertEqualFields(local(kernel, smooth), field);
+            }
+        }
+    }
+
+    @Test
+    void leasesOfLostWorkerAreReissued() throws Exception {
+        coordinator = new RenderCoordinator(0, 64, 30000);
+        IterationField field = new IterationField(VIEW.width(), VIEW.height(), true);
+        try (Socket socket = new Socket("localhost", coordinator.port())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(WireFormat.MAGIC);
+            out.writeInt(WireFormat.VERSION);
+            out.flush();
+            CompletableFuture<Void> render = CompletableFuture.runAsync(() -> {
+                try {
+                    coordinator.render(VIEW, "double", MAX_ITER, field);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            // Der Worker nimmt seine ersten Rechtecke an und bricht dann ab
+            assertTrue(socket.getInputStream().read() >= 0);
+            socket.close();
+            startWorker();
+            render.get(30, TimeUnit.SECONDS);
+        }
+        assertEqualFields(local("double", true), field);
+        assertFalse(coordinator.toString().contains(", 0 neu vergeben"), coordinator.toString());
+    }
+
+    @Test
+    void unknownKernelIsRejected() throws IOException {
+        coordinator = new RenderCoordinator(0, 64, 30000);
+        startWorker();
+        IterationField field = new IterationField(VIEW.width(), VIEW.height(), false);
+        assertThrows(IOException.class, () -> coordinator.render(VIEW, "unbekannt", MAX_ITER, field));
+    }
+}
\ No newline at end of file
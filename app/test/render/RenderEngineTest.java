@@ -0,0 +1,428 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Die <code>RenderEngine</code> muss in jedem Modus dieselben Pixel liefern
+ * wie die ursprngliche Schleife ber alle Pixel.
+ */
+class RenderEngineTest {
+    private static final int MAX_ITER = 500;
+
+    // Die bersicht, ein Ausschnitt am Rand und einer ohne Kachelraster
+    private static final Viewport[] VIEWS = {
+        new Viewport(-2.0, -1.25, 2.5 / 200, 300, 200),
+        new Viewport(-0.7563 - 0.00125, 0.0935 - 0.00125, 0.0025 / 200, 200, 200),
+        new Viewport(-1.8, -0.1, 0.003, 77, 45),
+    };
+
+    private final RenderEngine engine = new RenderEngine(2);
+
+    @AfterEach
+    void shutdown() {
+        engine.shutdown();
+    }
+
+    /**
+     * Die Schleife aus der ersten Version von <code>MandelbrotComponent</code>
+     * mit <code>Complex</code>, hier mit <code>double</code> ausgeschrieben.
+     */
+    static int[] baseline(Viewport view, int maxIter) {
+        int[] field = new int[view.width() * view.height()];
+        for (int y = 0; y < view.height(); ++y) {
+            for (int x = 0; x < view.width(); ++x) {
+                double cr = view.real(x), ci = view.imag(y), zr = cr, zi = ci;
+                int n = 0;
+                while (n < maxIter && !(Math.sqrt(zr * zr + zi * zi) > 2)) {
+                    double r = zr * zr - zi * zi + cr;
+                    zi = zr * zi + zi * zr + ci;
+                    zr = r;
+                    ++n;
+                }
+                field[y * view.width() + x] = n;
+            }
+        }
+        return field;
+    }
+
+    static IterationField render(RenderEngine engine, Viewport view, Kernel kernel, int maxIter) {
+        IterationField field = new IterationField(view.width(), view.height(), true);
+        engine.render(view, kernel, maxIter, field);
+        return field;
+    }
+
+    @Test
+    void tiledEngineEqualsBaseline() {
+        engine.setSymmetric(false);
+        for (Viewport view : VIEWS)
+            assertArrayEquals(baseline(view, MAX_ITER),
+                              render(engine, view, new DoubleKernel(DoubleKernel.BAILOUT_ABS, false), MAX_ITER)
+                                  .iterations());
+    }
+
+    @Test
+    void interiorChecksKeepPixels() {
+        for (Viewport view : VIEWS)
+            assertArrayEquals(baseline(view, MAX_ITER),
+                              render(engine, view, new DoubleKernel(DoubleKernel.BAILOUT_ABS, true), MAX_ITER)
+                                  .iterations());
+    }
+
+    /**
+     * Mit Unterteilung und mit groben Durchgngen, einzeln und zusammen,
+     * stehen am Ende dieselben Iterationen und gegltteten Werte im Feld.
+     */
+    @Test
+    void subdivisionAndProgressivePassesEndAtFullRender() {
+        Kernel kernel = new DoubleKernel(DoubleKernel.BAILOUT_ABS, true);
+        for (Viewport view : VIEWS) {
+            IterationField full = render(engine, view, kernel, MAX_ITER);
+            for (int mode = 1; mode < 4; ++mode) {
+                engine.setSubdivide((mode & 1) != 0);
+                engine.setProgressive((mode & 2) != 0);
+                IterationField field = render(engine, view, kernel, MAX_ITER);
+                assertArrayEquals(full.iterations(), field.iterations());
+                assertArrayEquals(full.smooth(), field.smooth());
+            }
+            engine.setSubdivide(false);
+            engine.setProgressive(false);
+        }
+    }
+
+    /**
+     * Jeder Durchgang meldet sich, der letzte als fertig.
+     */
+    @Test
+    void progressivePassesAreReported() throws InterruptedException {
+        engine.setProgressive(true);
+        Viewport view = VIEWS[0];
+        IterationField field = new IterationField(view.width(), view.height(), true);
+        List<Boolean> updates = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        engine.submit(view, new DoubleKernel(DoubleKernel.BAILOUT_ABS, true), MAX_ITER, field, finished -> {
+            updates.add(finished);
+            if (finished)
+                done.countDown();
+        });
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(false, false, true), updates);
+        assertArrayEquals(baseline(view, MAX_ITER), field.iterations());
+    }
+
+    /**
+     * Ein Kernel, der beim ersten Pixel wartet, bis <code>release</code>
+     * geffnet wird.
+     */
+    private static Kernel blocking(CountDownLatch started, CountDownLatch release) {
+        return (cr, ci, maxIter) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * Ein neuer Auftrag verwirft den laufenden: Dessen Listener hrt nichts
+     * mehr, sein Feld gilt nicht als vollstndig, und der neue wird fertig.
+     */
+    @Test
+    void newerSubmitCancelsRunningFrame() throws InterruptedException {
+        Viewport view = VIEWS[0];
+        CountDownLatch started = new CountDownLatch(1), release = new CountDownLatch(1), done = new CountDownLatch(1);
+        IterationField stale = new IterationField(view.width(), view.height(), true);
+        IterationField fresh = new IterationField(view.width(), view.height(), true);
+        List<Boolean> staleUpdates = new CopyOnWriteArrayList<>();
+        long first = engine.submit(view, blocking(started, release), MAX_ITER, stale, staleUpdates::add);
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        long second = engine.submit(view, new DoubleKernel(DoubleKernel.BAILOUT_ABS, true), MAX_ITER, fresh,
+                                    finished -> {
+                                        if (finished)
+                                            done.countDown();
+                                    });
+        release.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertTrue(second > first);
+        assertEquals(Collections.emptyList(), staleUpdates);
+        assertNull(stale.view());
+        assertEquals(view, fresh.view());
+        assertArrayEquals(baseline(view, MAX_ITER), fresh.iterations());
+    }
+
+    /**
+     * Nach <code>cancel</code> wird der laufende Auftrag nicht mehr gemeldet.
+     */
+    @Test
+    void cancelStopsRunningFrame() throws InterruptedException {
+        Viewport view = VIEWS[2];
+        CountDownLatch started = new CountDownLatch(1), release = new CountDownLatch(1), done = new CountDownLatch(1);
+        IterationField field = new IterationField(view.width(), view.height(), false);
+        List<Boolean> updates = new CopyOnWriteArrayList<>();
+        engine.submit(view, blocking(started, release), MAX_ITER, field, updates::add);
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        engine.cancel();
+        release.countDown();
+        // Auftrge laufen nacheinander; ist dieser fertig, ist der verworfene beendet
+        engine.submit(view, new DoubleKernel(DoubleKernel.BAILOUT_ABS, true), MAX_ITER,
+                      new IterationField(view.width(), view.height(), false), finished -> done.countDown());
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(Collections.emptyList(), updates);
+        assertNull(field.view());
+    }
+
+    /**
+     * Mit und ohne Spiegelung entstehen dieselben Pixel, fr jeden Kernel,
+     * wenn die Achse auf einer Zeile, zwischen zwei Zeilen oder knapp
+     * daneben liegt.
+     */
+    @Test
+    void mirrorEqualsDirectComputation() {
+        double bailout = DoubleKernel.BAILOUT;
+        Kernel[] kernels = {
+            new DoubleKernel(bailout, true), new FloatKernel(bailout, true), DoubleKernel.vectorized(bailout, true),
+            FloatKernel.vectorized(bailout, true), new DoubleDoubleKernel(bailout, true),
+            new DeepeningKernel(bailout, true), new PerturbationKernel(bailout),
+        };
+        // 2,5 / 256 ist exakt, bei 2,5 / 200 werden die Koordinaten erst durch Viewport symmetrisch
+        for (double step : new double[] { 2.5 / 256, 2.5 / 200 }) {
+            for (double shift : new double[] { 0, 0.5, 1.0 / 512 }) {
+                Viewport view = new Viewport(-2.0, -1.25 + shift * step, step, 300, 256);
+                for (Kernel kernel : kernels) {
+                    engine.setSymmetric(false);
+                    IterationField direct = render(engine, view, kernel, MAX_ITER);
+                    engine.setSymmetric(true);
+                    IterationField mirrored = render(engine, view, kernel, MAX_ITER);
+                    assertArrayEquals(direct.iterations(), mirrored.iterations());
+                    assertArrayEquals(direct.smooth(), mirrored.smooth());
+                }
+            }
+        }
+    }
+
+    /**
+     * Ein Kernel, der die berechneten Pixel in <code>pixels</code> zhlt.
+     */
+    static Kernel counting(Kernel kernel, AtomicInteger pixels) {
+        return new Kernel() {
+            public int iterate(double cr, double ci, int maxIter) {
+                return kernel.iterate(cr, ci, maxIter);
+            }
+
+            public Bound bind(Viewport v, int maxIter) {
+                Bound bound = kernel.bind(v, maxIter);
+                return new Bound() {
+                    public int iterate(int x, int y) {
+                        pixels.incrementAndGet();
+                        return bound.iterate(x, y);
+                    }
+
+                    public int iterate(int x, int y, float[] smooth, int index) {
+                        pixels.incrementAndGet();
+                        return bound.iterate(x, y, smooth, index);
+                    }
+
+                    public boolean mirrors(int y, int mirror) {
+                        return bound.mirrors(y, mirror);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Ein Kernel, der in <code>counts</code> zhlt, wie oft jeder Pixel
+     * berechnet wird.
+     */
+    static Kernel perPixel(Kernel kernel, AtomicIntegerArray counts) {
+        return new Kernel() {
+            public int iterate(double cr, double ci, int maxIter) {
+                return kernel.iterate(cr, ci, maxIter);
+            }
+
+            public Bound bind(Viewport v, int maxIter) {
+                Bound bound = kernel.bind(v, maxIter);
+                return new Bound() {
+                    public int iterate(int x, int y) {
+                        counts.incrementAndGet(y * v.width() + x);
+                        return bound.iterate(x, y);
+                    }
+
+                    public int iterate(int x, int y, float[] smooth, int index) {
+                        counts.incrementAndGet(y * v.width() + x);
+                        return bound.iterate(x, y, smooth, index);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Mit Unterteilung werden die Punkte der groben Durchgnge und die aus
+     * dem vorigen Bild einer Zoomfahrt nicht noch einmal berechnet.
+     */
+    @Test
+    void subdivisionSkipsKnownPixels() {
+        Kernel kernel = new DoubleKernel(DoubleKernel.BAILOUT_ABS, true);
+        engine.setSymmetric(false);
+        engine.setSubdivide(true);
+        for (Viewport view : VIEWS) {
+            IterationField full = render(engine, view, kernel, MAX_ITER);
+            AtomicIntegerArray counts = new AtomicIntegerArray(view.width() * view.height());
+            engine.setProgressive(true);
+            IterationField field = render(engine, view, perPixel(kernel, counts), MAX_ITER);
+            engine.setProgressive(false);
+            assertArrayEquals(full.iterations(), field.iterations());
+            for (int i = 0; i < counts.length(); ++i)
+                assertTrue(counts.get(i) <= 1, "Pixel " + i % view.width() + "," + i / view.width());
+
+            // Jeder zweite Punkt jeder zweiten Zeile steht schon im Feld
+            counts = new AtomicIntegerArray(view.width() * view.height());
+            engine.render(view, perPixel(kernel, counts), MAX_ITER, field, 2, 0, 0, 0, 0);
+            assertArrayEquals(full.iterations(), field.iterations());
+            for (int i = 0; i < counts.length(); ++i) {
+                int x = i % view.width(), y = i / view.width();
+                assertTrue(counts.get(i) <= (x % 2 == 0 && y % 2 == 0 ? 0 : 1), "Pixel " + x + "," + y);
+            }
+        }
+    }
+
+    /**
+     * Liegt die Achse auf einer Zeile oder zwischen zwei Zeilen, wird die
+     * kleinere Seite kopiert statt berechnet, auch bei einem dezimalen
+     * Pixelabstand wie in den Startansichten.
+     */
+    @Test
+    void mirroredRowsAreNotComputed() {
+        Viewport[] views = {
+            new Viewport(-2.0, -1.25, 2.5 / 256, 300, 256),
+            // MandelbrotComponent und das Applet
+            new Viewport(-2.0, -1.2, 0.005, 600, 500),
+            new Viewport(-1.25, -1.25, 0.005, 500, 500),
+            // Die Achse zwischen zwei Zeilen
+            new Viewport(-2.0, -0.0025 - 0.005 * 99, 0.005, 200, 300),
+        };
+        // Die berechneten Zeilen: bis zur Achse und hinter dem Spiegelbild der ersten Zeile
+        int[] rows = { 256 - 127, 500 - 240, 500 - 249, 300 - 100 };
+        Kernel[] kernels = {
+            new DoubleKernel(DoubleKernel.BAILOUT, true),
+            (cr, ci, maxIter) -> new DoubleKernel(DoubleKernel.BAILOUT, true).iterate(cr, ci, maxIter),
+        };
+        for (int v = 0; v < views.length; ++v) {
+            Viewport view = views[v];
+            assertTrue(view.axis() >= 0);
+            for (Kernel kernel : kernels) {
+                AtomicInteger pixels = new AtomicInteger();
+                assertArrayEquals(baseline(view, MAX_ITER),
+                                  render(engine, view, counting(kernel, pixels), MAX_ITER).iterations());
+                assertEquals(view.width() * rows[v], pixels.get());
+            }
+        }
+    }
+
+    /**
+     * Die Pixel von <code>view</code> werden in das Feld <code>field</code>
+     * berechnet, das das Bild von <code>old</code> enthlt. Es muss der
+     * vollstndigen Berechnung entsprechen, die bernommenen Pixel drfen nur
+     * abweichen, wo ihre Koordinaten in beiden Ausschnitten nicht bitgenau
+     * gleich sind. Der Kernel darf genau die nicht bernommenen Pixel
+     * berechnen. Die Anzahl der abweichenden Pixel wird zurckgegeben.
+     */
+    private int assertReuseEqualsFullRender(Viewport old, Viewport view, int dx, int dy, int scale, int reused) {
+        engine.setSymmetric(false);
+        AtomicInteger pixels = new AtomicInteger();
+        Kernel kernel = counting(new DoubleKernel(DoubleKernel.BAILOUT, true), pixels);
+        IterationField field = new IterationField(old.width(), old.height(), true);
+        engine.render(old, kernel, MAX_ITER, field);
+        pixels.set(0);
+        engine.render(view, kernel, MAX_ITER, field);
+        assertEquals(view.width() * view.height() - reused, pixels.get());
+
+        IterationField full = render(engine, view, new DoubleKernel(DoubleKernel.BAILOUT, true), MAX_ITER);
+        int differences = 0;
+        for (int y = 0; y < view.height(); ++y) {
+            for (int x = 0; x < view.width(); ++x) {
+                int i = y * view.width() + x;
+                if (field.iterations()[i] == full.iterations()[i]
+                    && Float.compare(field.smooth()[i], full.smooth()[i]) == 0)
+                    continue;
+                // Der neue Pixel (x, y) ist der alte (dx + scale * x, dy + scale * y)
+                int ox = dx + scale * x, oy = dy + scale * y;
+                assertTrue(ox >= 0 && ox < old.width() && oy >= 0 && oy < old.height()
+                           && (old.real(ox) != view.real(x) || old.imag(oy) != view.imag(y)),
+                           "Pixel " + x + "," + y);
+                ++differences;
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * Beim Verschieben um ganze Pixel wird nur der neu sichtbare Rand
+     * berechnet.
+     */
+    @Test
+    void panReusesPixels() {
+        // Ein Pixelabstand von 2,5 / 256: alle Koordinaten sind exakt
+        double step = 2.5 / 256;
+        Viewport old = new Viewport(-2.0, -1.25, step, 300, 200);
+        Viewport view = new Viewport(-2.0 + 17 * step, -1.25 - 9 * step, step, 300, 200);
+        assertEquals(0, assertReuseEqualsFullRender(old, view, 17, -9, 1, (300 - 17) * (200 - 9)));
+        view = new Viewport(-2.0 - 40 * step, -1.25 + 3 * step, step, 300, 200);
+        assertEquals(0, assertReuseEqualsFullRender(old, view, -40, 3, 1, (300 - 40) * (200 - 3)));
+
+        // Der dezimale Pixelabstand der Startansicht: die Koordinaten werden aufaddiert
+        BigDecimal decimal = new BigDecimal("0.005");
+        old = new Viewport(new BigDecimal("-2.0"), new BigDecimal("-1.2"), 0.005, 600, 500);
+        view = new Viewport(old.startRealExact().add(decimal.multiply(BigDecimal.valueOf(25))),
+                            old.startImagExact().subtract(decimal.multiply(BigDecimal.valueOf(12))), 0.005, 600, 500);
+        int differences = assertReuseEqualsFullRender(old, view, 25, -12, 1, (600 - 25) * (500 - 12));
+        // Nur vereinzelte Pixel auf dem Rand der Menge
+        assertTrue(differences < 600 * 500 / 1000, differences + " Abweichungen");
+    }
+
+    /**
+     * Beim Herauszoomen um den Faktor 2 wird jeder zweite Pixel des alten
+     * Bildes bernommen.
+     */
+    @Test
+    void zoomOutReusesPixels() {
+        double step = 2.5 / 256;
+        Viewport old = new Viewport(-1.5, -0.75, step, 300, 200);
+        // Der Startpunkt liegt 100 und 60 alte Pixel vor dem alten
+        Viewport view = new Viewport(-1.5 - 100 * step, -0.75 - 60 * step, 2 * step, 300, 200);
+        // bernommen werden die Spalten 50 bis 199 und die Zeilen 30 bis 129
+        assertEquals(0, assertReuseEqualsFullRender(old, view, -100, -60, 2, 150 * 100));
+    }
+
+    @Test
+    void paletteRenderEqualsField() {
+        Viewport view = VIEWS[0];
+        Kernel kernel = new DoubleKernel(DoubleKernel.BAILOUT_ABS, true);
+        Palette palette = Palette.cyclic(new int[] { 0xff0000, 0x00ff00, 0x0000ff }, 0);
+        int[] pixels = new int[view.width() * view.height()], expected = new int[pixels.length];
+        engine.render(view, kernel, MAX_ITER, palette, pixels);
+        int[] field = baseline(view, MAX_ITER);
+        for (int i = 0; i < field.length; ++i)
+            expected[i] = palette.color(field[i], MAX_ITER);
+        assertArrayEquals(expected, pixels);
+    }
+}
\ No newline at end of file
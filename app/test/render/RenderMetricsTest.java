@@ -0,0 +1,137 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Die Iterationen von <code>RenderMetrics</code> zhlen nur, was der Kernel
+ * berechnet hat. Pixel aus dem Cache, aus dem vorigen Bild, aus
+ * gleichfrmigen Flchen und aus dem Spiegelbild haben eigene Zhler, die
+ * zusammen alle Pixel ergeben.
+ */
+class RenderMetricsTest {
+    private static final int MAX_ITER = 500;
+    private static final double STEP = 2.5 / 256;
+
+    private final RenderEngine engine = new RenderEngine(2);
+    private final RenderMetrics metrics = new RenderMetrics();
+    private final AtomicLong pixels = new AtomicLong(), iterations = new AtomicLong();
+    private final Kernel kernel = counting(new DoubleKernel(DoubleKernel.BAILOUT, true));
+
+    @AfterEach
+    void shutdown() {
+        engine.shutdown();
+    }
+
+    /**
+     * Ein Kernel, der die berechneten Pixel und ihre Iterationen zhlt.
+     */
+    private Kernel counting(Kernel kernel) {
+        return new Kernel() {
+            public int iterate(double cr, double ci, int maxIter) {
+                return kernel.iterate(cr, ci, maxIter);
+            }
+
+            public Bound bind(Viewport v, int maxIter) {
+                Bound bound = kernel.bind(v, maxIter);
+                return new Bound() {
+                    public int iterate(int x, int y) {
+                        return counted(bound.iterate(x, y));
+                    }
+
+                    public int iterate(int x, int y, float[] smooth, int index) {
+                        return counted(bound.iterate(x, y, smooth, index));
+                    }
+
+                    public boolean mirrors(int y, int mirror) {
+                        return bound.mirrors(y, mirror);
+                    }
+                };
+            }
+        };
+    }
+
+    private int counted(int n) {
+        pixels.incrementAndGet();
+        iterations.addAndGet(n);
+        return n;
+    }
+
+    /**
+     * Die Zhler eines fertigen Bildes werden mit dem Kernel verglichen und
+     * ergeben zusammen alle Pixel des Ausschnitts.
+     */
+    private void render(Viewport view, IterationField field) {
+        metrics.reset();
+        pixels.set(0);
+        iterations.set(0);
+        engine.render(view, kernel, MAX_ITER, field);
+        assertEquals(1, metrics.getFrames());
+        assertEquals(view.width() * view.height(), metrics.getPixels());
+        assertEquals(pixels.get(), metrics.getComputedPixels());
+        assertEquals(iterations.get(), metrics.getIterations());
+        assertEquals(metrics.getPixels(), metrics.getComputedPixels() + metrics.getCachedPixels()
+                     + metrics.getReusedPixels() + metrics.getFilledPixels() + metrics.getMirroredPixels(),
+                     metrics.toString());
+    }
+
+    @Test
+    void onlyComputedPixelsCountIterations() {
+        engine.setMetrics(metrics);
+        engine.setTileCache(new TileCache(1 << 24));
+        engine.setSubdivide(true);
+        // Die reelle Achse liegt auf Zeile 128
+        Viewport view = new Viewport(-2.0, -1.25, STEP, 300, 256);
+        IterationField field = new IterationField(view.width(), view.height(), true);
+        render(view, field);
+        assertEquals(0, metrics.getCachedPixels());
+        assertEquals(0, metrics.getReusedPixels());
+        assertTrue(metrics.getFilledPixels() > 0);
+        assertEquals(300 * (256 - 128 - 1), metrics.getMirroredPixels());
+
+        // Dasselbe Bild in ein neues Feld: die vollstndigen Kacheln kommen aus dem Cache
+        render(view, new IterationField(view.width(), view.height(), true));
+        assertTrue(metrics.getCacheHits() > 0);
+        assertTrue(metrics.getCachedPixels() > 0);
+        assertTrue(metrics.getCachedPixels() <= metrics.getCacheHits() * RenderEngine.TILE_SIZE
+                   * RenderEngine.TILE_SIZE);
+        assertEquals(0, metrics.getReusedPixels());
+
+        // Verschoben in das alte Feld: der Rest des vorigen Bildes wird bernommen
+        engine.setTileCache(null);
+        Viewport moved = new Viewport(-2.0 + 17 * STEP, -1.25 - 9 * STEP, STEP, 300, 256);
+        render(moved, field);
+        assertEquals(0, metrics.getCachedPixels());
+        assertTrue(metrics.getReusedPixels() > 0);
+        assertTrue(metrics.getComputedPixels() < metrics.getPixels() / 2, metrics.toString());
+    }
+
+    @Test
+    void countersAreVisibleOverJmx() throws Exception {
+        engine.setMetrics(metrics);
+        Viewport view = new Viewport(-2.0, -1.25, STEP, 300, 256);
+        render(view, new IterationField(view.width(), view.height(), false));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("render:type=RenderMetrics,name=" + ObjectName.quote("Test"));
+        metrics.register("Test");
+        try {
+            for (String attribute : new String[] { "Pixels", "Iterations", "ComputedPixels", "CachedPixels",
+                                                   "ReusedPixels", "FilledPixels", "MirroredPixels" })
+                assertTrue(server.getAttribute(name, attribute) instanceof Long, attribute);
+            assertEquals(metrics.getComputedPixels(), server.getAttribute(name, "ComputedPixels"));
+            assertEquals(metrics.getMirroredPixels(), server.getAttribute(name, "MirroredPixels"));
+            assertEquals(metrics.getIterations(), server.getAttribute(name, "Iterations"));
+            assertEquals(metrics.getComputedPercent(), server.getAttribute(name, "ComputedPercent"));
+        } finally {
+            metrics.unregister("Test");
+        }
+    }
+}
\ No newline at end of file
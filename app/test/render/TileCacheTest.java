@@ -0,0 +1,116 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Treffer, Fehlschlge und Verdrngung des <code>TileCache</code>, allein und
+ * in der <code>RenderEngine</code>, deren Bilder mit Cache dieselben bleiben.
+ */
+class TileCacheTest {
+    private static final int PIXELS = RenderEngine.TILE_SIZE * RenderEngine.TILE_SIZE;
+    private static final double STEP = 0.0025 / 150;
+    private static final Kernel KERNEL = new DoubleKernel(DoubleKernel.BAILOUT, true);
+
+    private final RenderEngine engine = new RenderEngine(2), plain = new RenderEngine(2);
+
+    @AfterEach
+    void shutdown() {
+        engine.shutdown();
+        plain.shutdown();
+    }
+
+    private static TileCache.Key key(int maxIter, int column) {
+        Viewport view = new Viewport(-0.75, 0.1, STEP, 64, 64);
+        return TileCache.grid(view, KERNEL, maxIter).key(column, 0);
+    }
+
+    private static TileCache.Tile tile() {
+        return new TileCache.Tile(new int[PIXELS], new float[PIXELS]);
+    }
+
+    @Test
+    void hitsAndMisses() {
+        TileCache cache = new TileCache(1 << 20);
+        TileCache.Tile tile = tile();
+        assertNull(cache.get(key(100, 0)));
+        cache.put(key(100, 0), tile);
+        assertSame(tile, cache.get(key(100, 0)));
+        // Eine andere Kachel und ein anderes Limit sind andere Schlssel
+        assertNull(cache.get(key(100, 1)));
+        assertNull(cache.get(key(200, 0)));
+        assertEquals(1, cache.hits());
+        assertEquals(3, cache.misses());
+        assertEquals(1, cache.size());
+        assertEquals(tile.bytes(), cache.bytes());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        TileCache cache = new TileCache(2 * tile().bytes());
+        cache.put(key(100, 0), tile());
+        cache.put(key(100, 1), tile());
+        assertNotNull(cache.get(key(100, 0)));
+        cache.put(key(100, 2), tile());
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+        assertNull(cache.get(key(100, 1)));
+        assertNotNull(cache.get(key(100, 0)));
+        assertNotNull(cache.get(key(100, 2)));
+        assertTrue(cache.bytes() <= cache.budget());
+    }
+
+    private void assertSameAsPlain(Viewport view, int maxIter) {
+        IterationField cached = new IterationField(view.width(), view.height(), true);
+        IterationField expected = new IterationField(view.width(), view.height(), true);
+        engine.render(view, KERNEL, maxIter, cached);
+        plain.render(view, KERNEL, maxIter, expected);
+        assertArrayEquals(expected.iterations(), cached.iterations());
+        assertArrayEquals(expected.smooth(), cached.smooth());
+    }
+
+    private static Viewport panned(int dx) {
+        return new Viewport(-0.7563 + dx * STEP, 0.0935, STEP, 200, 150);
+    }
+
+    @Test
+    void engineReusesTilesOfEarlierViews() {
+        TileCache cache = new TileCache(64 << 20);
+        engine.setTileCache(cache);
+        assertSameAsPlain(panned(0), 1000);
+        assertEquals(0, cache.hits());
+        long stored = cache.size();
+        assertTrue(stored > 0);
+
+        // Derselbe Ausschnitt kommt ganz aus dem Cache
+        assertSameAsPlain(panned(0), 1000);
+        assertEquals(stored, cache.hits());
+
+        // Verschoben um zwei Kacheln sind die berlappenden Kacheln Treffer
+        long hits = cache.hits();
+        assertSameAsPlain(panned(64), 1000);
+        assertTrue(cache.hits() > hits);
+
+        // Ein anderes Limit trifft nichts
+        hits = cache.hits();
+        assertSameAsPlain(panned(0), 500);
+        assertEquals(hits, cache.hits());
+    }
+
+    @Test
+    void engineStaysCorrectWhenEvicting() {
+        TileCache cache = new TileCache(4 * tile().bytes());
+        engine.setTileCache(cache);
+        assertSameAsPlain(panned(0), 1000);
+        assertSameAsPlain(panned(-32), 1000);
+        assertTrue(cache.evictions() > 0);
+        assertTrue(cache.bytes() <= cache.budget());
+    }
+}
\ No newline at end of file
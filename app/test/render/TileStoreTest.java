@@ -0,0 +1,174 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Kacheln einer <code>TileStore</code>-Pyramide mssen nach dem Schreiben,
+ * nach dem Ersetzen und nach erneutem ffnen dieselben Werte liefern.
+ */
+class TileStoreTest {
+    private static final int SIZE = RenderEngine.TILE_SIZE, MAX_ITER = 300;
+    // Kopf und Eintrag des Index
+    private static final long INDEX_BYTES = 16, RECORD_BYTES = 24;
+    private static final BigDecimal ORIGIN_REAL = BigDecimal.valueOf(-2), ORIGIN_IMAG = BigDecimal.valueOf(-1.5);
+
+    private final RenderEngine engine = new RenderEngine(2);
+    private final Kernel kernel = new DoubleKernel(DoubleKernel.BAILOUT, true);
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void shutdown() {
+        engine.shutdown();
+    }
+
+    private IterationField expected(TileStore store, int level, long tx, long ty) {
+        IterationField field = new IterationField(SIZE, SIZE, true);
+        engine.render(store.viewport(level, tx, ty), kernel, MAX_ITER, field);
+        return field;
+    }
+
+    private static IterationField read(TileStore store, int level, long tx, long ty) {
+        IterationField field = new IterationField(SIZE, SIZE, true);
+        store.get(level, tx, ty).copyTo(field);
+        return field;
+    }
+
+    private void assertTile(TileStore store, int level, long tx, long ty) {
+        IterationField expected = expected(store, level, tx, ty), actual = read(store, level, tx, ty);
+        assertArrayEquals(expected.iterations(), actual.iterations());
+        assertArrayEquals(expected.smooth(), actual.smooth());
+        assertEquals(MAX_ITER, actual.maxIter());
+    }
+
+    @Test
+    void tilesSurviveReopening() throws IOException {
+        try (TileStore store = TileStore.create(dir, ORIGIN_REAL, ORIGIN_IMAG, 3.0, MAX_ITER, true)) {
+            assertTrue(store.render(engine, kernel, 0, 0, 0));
+            for (long ty = 0; ty < 4; ++ty) {
+                for (long tx = 0; tx < 4; ++tx)
+                    assertTrue(store.render(engine, kernel, 2, tx, ty));
+            }
+            assertFalse(store.render(engine, kernel, 2, 1, 1));
+            assertEquals(17, store.size());
+            assertTile(store, 0, 0, 0);
+            assertTile(store, 2, 3, 1);
+            assertNull(store.get(1, 0, 0));
+        }
+
+        assertTrue(TileStore.exists(dir));
+        try (TileStore store = TileStore.open(dir)) {
+            assertEquals(17, store.size());
+            assertEquals(MAX_ITER, store.maxIter());
+            assertTrue(store.hasSmooth());
+            assertTile(store, 0, 0, 0);
+            for (long ty = 0; ty < 4; ++ty) {
+                for (long tx = 0; tx < 4; ++tx)
+                    assertTile(store, 2, tx, ty);
+            }
+            assertFalse(store.contains(1, 0, 0));
+        }
+    }
+
+    @Test
+    void putReplacesTile() throws IOException {
+        try (TileStore store = TileStore.create(dir, ORIGIN_REAL, ORIGIN_IMAG, 3.0, MAX_ITER, true)) {
+            store.render(engine, kernel, 1, 1, 0);
+            IterationField other = expected(store, 1, 0, 1);
+            store.put(1, 1, 0, other);
+            store.put(1, 1, 0, other);
+            assertEquals(1, store.size());
+            assertArrayEquals(other.iterations(), read(store, 1, 1, 0).iterations());
+            assertArrayEquals(other.smooth(), read(store, 1, 1, 0).smooth());
+        }
+        // Die ersetzte Kachel behlt ihren Platz
+        assertEquals(INDEX_BYTES + RECORD_BYTES, Files.size(dir.resolve("tiles.idx")));
+        try (TileStore store = TileStore.open(dir)) {
+            assertArrayEquals(expected(store, 1, 0, 1).iterations(), read(store, 1, 1, 0).iterations());
+        }
+    }
+
+    @Test
+    void concurrentRenderComputesTileOnce() throws Exception {
+        int threads = 4;
+        AtomicInteger pixels = new AtomicInteger();
+        Kernel counting = RenderEngineTest.counting(kernel, pixels);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try (TileStore store = TileStore.create(dir, ORIGIN_REAL, ORIGIN_IMAG, 3.0, MAX_ITER, true)) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; ++i) {
+                results.add(workers.submit(() -> {
+                    start.await();
+                    return store.render(engine, counting, 2, 1, 2);
+                }));
+            }
+            start.countDown();
+            int rendered = 0;
+            for (Future<Boolean> f : results) {
+                if (f.get(30, TimeUnit.SECONDS))
+                    ++rendered;
+            }
+            assertEquals(1, rendered);
+            assertEquals(1, store.size());
+            assertTrue(pixels.get() <= SIZE * SIZE, pixels.get() + " Pixel");
+            assertTile(store, 2, 1, 2);
+        } finally {
+            workers.shutdown();
+        }
+        assertEquals(INDEX_BYTES + RECORD_BYTES, Files.size(dir.resolve("tiles.idx")));
+    }
+
+    @Test
+    void directoryIsLockedUntilClosed() throws IOException {
+        TileStore store = TileStore.create(dir, ORIGIN_REAL, ORIGIN_IMAG, 3.0, MAX_ITER, true);
+        try {
+            assertThrows(IOException.class, () -> TileStore.open(dir));
+        } finally {
+            store.close();
+        }
+        TileStore.open(dir).close();
+    }
+
+    @Test
+    void storeWithoutSmoothValues() throws IOException {
+        try (TileStore store = TileStore.create(dir, ORIGIN_REAL, ORIGIN_IMAG, 3.0, MAX_ITER, false)) {
+            store.render(engine, kernel, 3, 5, 2);
+            assertNull(store.get(3, 5, 2).smooth());
+            assertArrayEquals(expected(store, 3, 5, 2).iterations(), read(store, 3, 5, 2).iterations());
+        }
+    }
+
+    @Test
+    void rejectsInvalidTiles() throws IOException {
+        try (TileStore store = TileStore.create(dir, ORIGIN_REAL, ORIGIN_IMAG, 3.0, MAX_ITER, true)) {
+            assertThrows(IllegalArgumentException.class, () -> store.viewport(1, 2, 0));
+            assertThrows(IllegalArgumentException.class,
+                         () -> store.put(0, 0, 0, new IterationField(SIZE, SIZE, false)));
+        }
+        assertThrows(IOException.class, () -> TileStore.create(dir, ORIGIN_REAL, ORIGIN_IMAG, 3.0, MAX_ITER, true));
+    }
+}
\ No newline at end of file
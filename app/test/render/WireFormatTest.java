@@ -0,0 +1,87 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Kodierte Iterationen mssen nach dem Dekodieren bitgenau gleich sein, auch
+ * bei groen Sprngen und besonderen <code>float</code>-Werten.
+ */
+class WireFormatTest {
+
+    private static IterationField roundTrip(IterationField region) throws IOException {
+        IterationField decoded = new IterationField(region.width(), region.height(), region.smooth() != null);
+        WireFormat.decode(WireFormat.encode(region), decoded);
+        return decoded;
+    }
+
+    private static void assertBitsEqual(float[] expected, float[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; ++i)
+            assertEquals(Float.floatToRawIntBits(expected[i]), Float.floatToRawIntBits(actual[i]), "Index " + i);
+    }
+
+    @Test
+    void renderedRegionSurvives() throws IOException {
+        RenderEngine engine = new RenderEngine(2);
+        try {
+            IterationField region = new IterationField(96, 64, true);
+            Viewport view = new Viewport(-2.1, -1.2, 2.4 / 200, 200, 200);
+            engine.render(view, new DoubleKernel(DoubleKernel.BAILOUT, true), 500, region, 32, 64);
+            IterationField decoded = roundTrip(region);
+            assertArrayEquals(region.iterations(), decoded.iterations());
+            assertBitsEqual(region.smooth(), decoded.smooth());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void extremeValuesSurvive() throws IOException {
+        IterationField region = new IterationField(8, 2, true);
+        int[] iterations = { 0, Integer.MAX_VALUE, Integer.MIN_VALUE, -1, 1, Integer.MAX_VALUE, 0, 127,
+                             128, -128, 16383, 16384, Integer.MIN_VALUE, Integer.MAX_VALUE, 42, 42 };
+        float[] smooth = { 0f, -0f, Float.NaN, Float.intBitsToFloat(0x7fc12345), Float.POSITIVE_INFINITY,
+                           Float.NEGATIVE_INFINITY, Float.MIN_VALUE, -Float.MAX_VALUE, Float.MAX_VALUE, 1.5f,
+                           -1.5f, 1e-30f, 3f, 3f, 0f, Float.intBitsToFloat(0xffffffff) };
+        System.arraycopy(iterations, 0, region.iterations(), 0, iterations.length);
+        System.arraycopy(smooth, 0, region.smooth(), 0, smooth.length);
+        IterationField decoded = roundTrip(region);
+        assertArrayEquals(iterations, decoded.iterations());
+        assertBitsEqual(smooth, decoded.smooth());
+
+        Random random = new Random(1);
+        IterationField noise = new IterationField(64, 64, false);
+        for (int i = 0; i < noise.iterations().length; ++i)
+            noise.iterations()[i] = random.nextInt();
+        assertArrayEquals(noise.iterations(), roundTrip(noise).iterations());
+    }
+
+    @Test
+    void uniformAreaCostsOneBytePerPixel() {
+        IterationField region = new IterationField(32, 32, false);
+        Arrays.fill(region.iterations(), 1000);
+        // Nur der erste Pixel braucht mehr als ein Byte
+        assertEquals(32 * 32 + 1, WireFormat.encode(region).length);
+    }
+
+    @Test
+    void wrongLengthIsRejected() {
+        IterationField region = new IterationField(16, 16, true);
+        Arrays.fill(region.iterations(), 300);
+        byte[] data = WireFormat.encode(region);
+        assertThrows(IOException.class, () -> WireFormat.decode(Arrays.copyOf(data, data.length - 1), region));
+        assertThrows(IOException.class, () -> WireFormat.decode(Arrays.copyOf(data, data.length + 1), region));
+        assertThrows(IOException.class, () -> WireFormat.decode(data, new IterationField(16, 15, true)));
+        byte[] endless = new byte[8];
+        Arrays.fill(endless, (byte)0x80);
+        assertThrows(IOException.class, () -> WireFormat.decode(endless, new IterationField(1, 1, false)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Jedes Bild einer Zoomfahrt muss einer vollstndigen Berechnung seines
+ * Ausschnitts entsprechen, auch mit den von Bild k - m bernommenen Pixeln.
+ * Die Koordinaten entstehen durch fortlaufende Addition; ein bernommener
+ * Pixel darf daher nur abweichen, wo seine Koordinaten in beiden Bildern
+ * nicht bitgenau gleich sind.
+ */
+class ZoomAnimatorTest {
+    private static final int WIDTH = 160, HEIGHT = 120, FRAMES = 25, MAX_ITER = 300;
+
+    private final RenderEngine engine = new RenderEngine(2);
+    private final Kernel kernel = new DoubleKernel(DoubleKernel.BAILOUT, true);
+
+    @AfterEach
+    void shutdown() {
+        engine.shutdown();
+    }
+
+    /**
+     * Die "Farbe" eines Pixels ist seine Anzahl der Iterationen.
+     */
+    private static final Coloring ITERATIONS = (field, pixels) ->
+        System.arraycopy(field.iterations(), 0, pixels, 0, field.iterations().length);
+
+    /**
+     * Die Bilder werden mit vollstndigen Berechnungen verglichen, die Anzahl
+     * der abweichenden Pixel wird zurckgegeben.
+     */
+    private int assertFramesEqualFullRender(BigDecimal centerReal, BigDecimal centerImag, double startRange,
+                                             double endRange) throws IOException {
+        int m = ZoomAnimator.framesPerOctave(startRange, endRange, FRAMES);
+        assertTrue(m > 0);
+        boolean zoomIn = startRange > endRange;
+        List<Viewport> views = new ArrayList<>();
+        List<int[]> frames = new ArrayList<>();
+        long reused = new ZoomAnimator(engine, 3).render(centerReal, centerImag, startRange, endRange, FRAMES,
+                                                         WIDTH, HEIGHT, kernel, MAX_ITER, ITERATIONS, true,
+                                                         (frame, view, pixels) -> {
+            assertEquals(views.size(), frame);
+            views.add(view);
+            frames.add(pixels.clone());
+        });
+        int qw = (WIDTH + 1) / 2, qh = (HEIGHT + 1) / 2, qx = (WIDTH / 2 & ~1) / 2, qy = (HEIGHT / 2 & ~1) / 2;
+        long expected = 0;
+        int differences = 0;
+        for (int k = 0; k < FRAMES; ++k) {
+            Viewport view = views.get(k);
+            assertEquals(ZoomAnimator.viewport(centerReal, centerImag, startRange, endRange, FRAMES, k, WIDTH,
+                                               HEIGHT).step(), view.step());
+            IterationField full = new IterationField(WIDTH, HEIGHT, true);
+            engine.render(view, kernel, MAX_ITER, full);
+            // bernommene Pixel, deren Koordinaten sich in beiden Bildern unterscheiden
+            boolean[] shifted = new boolean[WIDTH * HEIGHT];
+            // Wechselt die ntige Genauigkeit, wird nichts bernommen
+            if (k >= m && Precision.required(views.get(k - m)) == Precision.required(view)) {
+                Viewport source = views.get(k - m);
+                expected += qw * qh;
+                for (int j = 0; j < qh; ++j) {
+                    for (int i = 0; i < qw; ++i) {
+                        int x = zoomIn ? 2 * i : qx + i, y = zoomIn ? 2 * j : qy + j;
+                        int sx = zoomIn ? qx + i : 2 * i, sy = zoomIn ? qy + j : 2 * j;
+                        shifted[y * WIDTH + x] = source.real(sx) != view.real(x) || source.imag(sy) != view.imag(y);
+                    }
+                }
+            }
+            int[] pixels = frames.get(k);
+            for (int i = 0; i < pixels.length; ++i) {
+                if (pixels[i] != full.iterations()[i]) {
+                    assertTrue(shifted[i], "Bild " + k + ", Pixel " + i % WIDTH + "," + i / WIDTH);
+                    ++differences;
+                }
+            }
+        }
+        assertTrue(expected > 0);
+        assertEquals(expected, reused);
+        return differences;
+    }
+
+    @Test
+    void zoomInEqualsFullRender() throws IOException {
+        int differences = assertFramesEqualFullRender(new BigDecimal("-0.75"), BigDecimal.ZERO, 3, 0.05);
+        // Nur vereinzelte Pixel auf dem Rand der Menge
+        assertTrue(differences < FRAMES * WIDTH * HEIGHT / 10000, differences + " Abweichungen");
+    }
+
+    @Test
+    void zoomOutEqualsFullRender() throws IOException {
+        int differences = assertFramesEqualFullRender(new BigDecimal("-0.75"), new BigDecimal("0.25"), 0.125, 2);
+        assertTrue(differences < FRAMES * WIDTH * HEIGHT / 10000, differences + " Abweichungen");
+    }
+
+    @Test
+    void exactCoordinatesAreCarriedExactly() throws IOException {
+        // Ein Schritt von 2^-6 und ein Faktor 2 pro Bild: alle Koordinaten sind exakt
+        assertEquals(0, assertFramesEqualFullRender(new BigDecimal("-0.75"), new BigDecimal("0.125"), 120.0 / 64,
+                                                    Math.scalb(120.0 / 64, 1 - FRAMES)));
+    }
+}
\ No newline at end of file
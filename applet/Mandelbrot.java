@@ -4,22 +4,54 @@
  */
 import java.applet.Applet;
 import java.awt.Color;
+import java.awt.EventQueue;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+
+import render.AutoKernel;
+import render.Coloring;
+import render.DoubleKernel;
+import render.Gradient;
+import render.HistogramColoring;
+import render.IterationField;
+import render.Kernel;
+import render.Palette;
+import render.RenderEngine;
+import render.TileCache;
+import render.Viewport;
 
 public class Mandelbrot
-    extends Applet implements MouseListener, MouseMotionListener {
+    extends Applet implements MouseListener, MouseMotionListener, KeyListener {
 
-    private Image   image, backBuffer;
+    private BufferedImage image;
+    private int[]   pixels;
+    private IterationField field;
+    // Die zuletzt gezeigte Kopie von field; gefrbt wird nur im Event-Thread
+    private IterationField shown;
+    private int     coloring = 0;
+    private Image   backBuffer;
     private int     iterations = 50;
-    private Complex start = new Complex(-1.25, -1.25);
+    private BigDecimal startReal = BigDecimal.valueOf(-1.25), startImag = BigDecimal.valueOf(-1.25);
     private double  range = 2.5, step, whMax;
     private int     width, height;
     private Point   rectStart = null, rectEnd;
+    private RenderEngine engine;
+    private Kernel kernel;
+    // Frhere Ausschnitte, mit der Rcktaste geht es zurck
+    private final ArrayDeque<View> history = new ArrayDeque<View>();
+
+    // Der Referenzorbit tiefer Zooms braucht Speicher und Zeit pro Iteration
+    private static final int MAX_ITERATIONS = 1 << 16;
 
     private static final Color[] palette = {
         Color.YELLOW,
@@ -33,6 +65,15 @@ public class Mandelbrot
         Color.BLACK, // Mandelbrotmenge
     };
 
+    private static final Palette lookup = createLookup();
+
+    // Mit 'c' wird zwischen den Frbungen gewechselt, ohne neu zu rechnen
+    private static final Coloring[] colorings = {
+        lookup,
+        new Gradient(colors(), 4 * (palette.length - 1), palette[palette.length - 1].getRGB()),
+        new HistogramColoring(colors(), palette[palette.length - 1].getRGB()),
+    };
+
     public void init() {
         String param = getParameter("iterations");
         if (param != null)
@@ -45,24 +86,41 @@ public class Mandelbrot
         param = getParameter("start");
         if (param != null) {
             String[] d = param.split(",");
-            start.set(Double.parseDouble(d[0]), Double.parseDouble(d[1]));
+            startReal = new BigDecimal(d[0].trim());
+            startImag = new BigDecimal(d[1].trim());
         }
 
+        param = getParameter("interiorChecks");
+        // Der Mittelklick erhht das Limit bei gleichem Ausschnitt, ab dem zweiten
+        // Mal werden offene Pixel dann nur weiter iteriert
+        kernel = new AutoKernel(DoubleKernel.BAILOUT, param == null || Boolean.parseBoolean(param),
+                                Boolean.parseBoolean(getParameter("simd")), true);
+
         width = getWidth();
         height = getHeight();
         whMax = Math.max(width, height);
 
         step = range / whMax;
 
-        image = createImage(width, height);
+        engine = new RenderEngine();
+        engine.setSubdivide(Boolean.parseBoolean(getParameter("subdivide")));
+        engine.setProgressive(true);
+        param = getParameter("cache");
+        engine.setTileCache(new TileCache((param != null ? Long.parseLong(param) : 32) << 20));
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        field = new IterationField(width, height, true);
         backBuffer = createImage(width, height);
         addMouseListener(this);
         addMouseMotionListener(this);
+        addKeyListener(this);
     }
 
     public void destroy() {
         removeMouseListener(this);
         removeMouseMotionListener(this);
+        removeKeyListener(this);
+        engine.shutdown();
     }
 
     public void start() {
@@ -94,59 +152,76 @@ public class Mandelbrot
         g.drawLine(max.x, min.y, max.x, max.y);
     }
 
+    private static int[] colors() {
+        int[] colors = new int[palette.length - 1];
+        for (int i = 0; i < colors.length; ++i)
+            colors[i] = palette[i].getRGB();
+        return colors;
+    }
+
+    private static Palette createLookup() {
+        return Palette.cyclic(colors(), palette[palette.length - 1].getRGB());
+    }
+
     private void drawMandelbrot() {
-        Graphics g = image.getGraphics();
-        Complex c = start;
-        for (int y = 0; y < height; ++y) {
-            int lastX = 0, color = 0, lastColor = 0;
-            for (int x = 0; x < width; ++x) {
-                int iter = mandelbrot(c, iterations);
-                if (iter < 0)
-                    color = palette.length - 1;
-                else
-                    color = mandelbrot(c, iterations) % (palette.length - 1);
-                if (color != lastColor) {
-                    g.setColor(palette[lastColor]);
-                    g.drawLine(lastX, y, x - 1, y);
-                    lastColor = color;
-                    lastX = x;
-                }
-                c = c.add(step);
-            }
-            g.setColor(palette[color]);
-            g.drawLine(lastX, y, width - 1, y);
-            c.real(start.real());
-            c = c.addImag(step);
-        }
+        engine.submit(new Viewport(startReal, startImag, step, width, height), kernel, iterations, field,
+                      finished -> {
+                          // Zwischen den Durchgngen ruht field, danach schreibt die Engine weiter
+                          IterationField copy = field.copy();
+                          EventQueue.invokeLater(() -> {
+                              shown = copy;
+                              recolor();
+                              if (finished)
+                                  showStatus(engine.getTileCache().toString());
+                          });
+                      });
+    }
+
+    private void remember() {
+        history.push(new View(startReal, startImag, range, iterations));
+    }
+
+    private void recolor() {
+        if (shown != null)
+            colorings[coloring].paint(shown, pixels);
+        repaint();
     }
 
-    private int mandelbrot(Complex c, int maxIter) {
-        /*
-        Complex z = c;
-        int n = 0;
-        while (n < maxIter) {
-            if (z.abs() > 2)
-                return n; // Wahrscheinlich divergent
-            z = z.multiply(z).add(c);
-            ++n;
+    public void keyTyped(KeyEvent e) {
+        if (e.getKeyChar() == 'c') {
+            coloring = (coloring + 1) % colorings.length;
+            recolor();
+        } else if (e.getKeyChar() == '\b' && !history.isEmpty()) {
+            // Die Kacheln des frheren Ausschnitts liegen noch im Cache
+            View view = history.pop();
+            startReal = view.startReal;
+            startImag = view.startImag;
+            range = view.range;
+            iterations = view.iterations;
+            step = range / whMax;
+            drawMandelbrot();
+            repaint();
         }
-        return -1; // Wahrscheinlich konvergent
-        */
-        
-        // Optimized
-        double zr = c.real(), zi = c.imag(),
-               cr = c.real(), ci = c.imag();
-        int n = 0;
-        while (n < maxIter) {
-            if (zr * zr + zi * zi > 4)
-                return n; // Wahrscheinlich divergent
-            double tmp = 2 * zr * zi + ci;
-            zr = zr * zr - zi * zi + cr;
-            zi = tmp;
-            ++n;
+    }
+
+    public void keyPressed(KeyEvent e) {
+        // Mit den Pfeiltasten wird um ein Viertel verschoben, der Rest des
+        // Bildes wird dabei bernommen
+        int dx = 0, dy = 0;
+        switch (e.getKeyCode()) {
+        case KeyEvent.VK_LEFT:  dx = -width / 4;  break;
+        case KeyEvent.VK_RIGHT: dx = width / 4;   break;
+        case KeyEvent.VK_UP:    dy = -height / 4; break;
+        case KeyEvent.VK_DOWN:  dy = height / 4;  break;
+        default: return;
         }
-        return -1; // Wahrscheinlich konvergent
+        remember();
+        startReal = startReal.add(new BigDecimal(dx * step));
+        startImag = startImag.add(new BigDecimal(dy * step));
+        drawMandelbrot();
+        repaint();
     }
+    public void keyReleased(KeyEvent e) {}
 
     public void mouseClicked(MouseEvent e) {}
     public void mousePressed(MouseEvent e) {}
@@ -156,17 +231,18 @@ public class Mandelbrot
     public void mouseReleased(MouseEvent e) {
         if (e.getButton() == e.BUTTON1 && rectStart != null)
         {
+            remember();
             if (rectEnd.x < rectStart.x)
-                start = start.add(rectEnd.x / whMax * range);
+                startReal = startReal.add(new BigDecimal(rectEnd.x / whMax * range));
             else
-                start = start.add(rectStart.x / whMax * range);
+                startReal = startReal.add(new BigDecimal(rectStart.x / whMax * range));
 
             if (rectEnd.y < rectStart.y)
-                start = start.addImag(rectEnd.y / whMax * range);
+                startImag = startImag.add(new BigDecimal(rectEnd.y / whMax * range));
             else
-                start = start.addImag(rectStart.y / whMax * range);
+                startImag = startImag.add(new BigDecimal(rectStart.y / whMax * range));
 
-	    iterations *= 2;
+	    iterations = Math.min(iterations * 2, MAX_ITERATIONS);
             range = range / whMax * Math.abs(rectStart.x - rectEnd.x);
             step = range / whMax;
 	    
@@ -174,9 +250,21 @@ public class Mandelbrot
             drawMandelbrot();
             repaint();
         }
+        else if (e.getButton() == e.BUTTON2)
+        {
+            remember();
+            // Gleicher Ausschnitt, offene Pixel werden nur weiter iteriert
+            iterations = Math.min(iterations * 2, MAX_ITERATIONS);
+            drawMandelbrot();
+            repaint();
+        }
         else if (e.getButton() == e.BUTTON3)
         {
-            start = start.add(e.getX() / whMax * range - range).addImag(e.getY() / whMax * range - range);
+            // Das alte Bild wird verkleinert bernommen, da die Verschiebung
+            // ganzzahlig in alten Pixeln ist
+            remember();
+            startReal = startReal.add(new BigDecimal(e.getX() / whMax * range - range));
+            startImag = startImag.add(new BigDecimal(e.getY() / whMax * range - range));
             range *= 2;
             step = range / whMax;
             drawMandelbrot();
@@ -198,4 +286,17 @@ public class Mandelbrot
             rectEnd = e.getPoint();
         repaint();
     }
+
+    private static final class View {
+        final BigDecimal startReal, startImag;
+        final double range;
+        final int iterations;
+
+        View(BigDecimal startReal, BigDecimal startImag, double range, int iterations) {
+            this.startReal = startReal;
+            this.startImag = startImag;
+            this.range = range;
+            this.iterations = iterations;
+        }
+    }
 }
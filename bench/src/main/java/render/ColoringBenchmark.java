@@ -0,0 +1,82 @@
+package render;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Misst das Einfrben eines fertigen Felds von 1000 x 1000 Pixeln, also
+ * die Zeit pro Megapixel fr einen Wechsel der Farben.
+ *
+ * <code>HistogramColoring</code> behlt die Tabelle eines Feldes, solange
+ * dessen Inhalt gleich bleibt. Vor jedem Aufruf erhlt das Feld deshalb
+ * abwechselnd einen von zwei gleichen Ausschnitten, so dass
+ * <code>histogram</code> beide Durchgnge misst wie nach einer neuen
+ * Berechnung.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColoringBenchmark {
+    private static final int SIZE = 1000;
+    private static final int[] COLORS = {0xFFFF00, 0xFFC800, 0xFF0000, 0xFFAFAF, 0xFF00FF, 0x00FF00, 0x00FFFF, 0x0000FF};
+
+    @Param({"FULL", "SEAHORSE"})
+    public ReferenceView view;
+
+    private IterationField field;
+    private Kernel kernel;
+    private Viewport[] views;
+    private int invocation;
+    private final int[] pixels = new int[SIZE * SIZE];
+    private final Coloring palette = Palette.cyclic(COLORS, 0);
+    private final Coloring gradient = new Gradient(COLORS, 32, 0);
+    private final Coloring histogram = new HistogramColoring(COLORS, 0);
+
+    @Setup
+    public void setup() {
+        field = new IterationField(SIZE, SIZE, true);
+        kernel = new DoubleKernel(DoubleKernel.BAILOUT, true);
+        RenderEngine engine = new RenderEngine();
+        views = new Viewport[] { view.viewport(SIZE, SIZE), view.viewport(SIZE, SIZE) };
+        engine.render(views[0], kernel, 1000, field);
+        engine.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void invalidate() {
+        field.setContent(views[++invocation & 1], kernel);
+    }
+
+    @Benchmark
+    public int[] palette() {
+        palette.paint(field, pixels);
+        return pixels;
+    }
+
+    @Benchmark
+    public int[] gradient() {
+        gradient.paint(field, pixels);
+        return pixels;
+    }
+
+    @Benchmark
+    public int[] histogram() {
+        histogram.paint(field, pixels);
+        return pixels;
+    }
+}
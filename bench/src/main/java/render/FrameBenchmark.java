@@ -0,0 +1,70 @@
+package render;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Berechnet ganze Bilder mit der <code>RenderEngine</code> auf allen Prozessoren.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameBenchmark {
+
+    @Param({"FULL", "SEAHORSE", "INTERIOR"})
+    public ReferenceView view;
+
+    @Param({"320x240", "640x480", "1280x960"})
+    public String size;
+
+    @Param({"100", "1000"})
+    public int maxIter;
+
+    @Param({"false", "true"})
+    public boolean interiorChecks;
+
+    @Param({"false", "true"})
+    public boolean subdivide;
+
+    private RenderEngine engine;
+    private Viewport viewport;
+    private int[] field;
+    private Kernel kernel;
+
+    @Setup
+    public void setup() {
+        String[] wh = size.split("x");
+        viewport = view.viewport(Integer.parseInt(wh[0]), Integer.parseInt(wh[1]));
+        field = new int[viewport.width() * viewport.height()];
+        engine = new RenderEngine();
+        engine.setSubdivide(subdivide);
+        kernel = new DoubleKernel(DoubleKernel.BAILOUT, interiorChecks);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public int[] frame(Throughput t) {
+        engine.render(viewport, kernel, maxIter, field);
+        t.count(field, field.length);
+        return field;
+    }
+}
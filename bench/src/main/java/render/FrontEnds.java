@@ -0,0 +1,27 @@
+package render;
+
+import java.lang.reflect.Field;
+
+/**
+ * Zugriff auf den Kernel der Anwendung.
+ * Die Klasse liegt im Default-Package, daher wird das Feld einmal ber
+ * Reflection gelesen; gerechnet wird danach ohne Reflection.
+ */
+final class FrontEnds {
+
+    private FrontEnds() { }
+
+    /**
+     * Der Kernel aus <code>MandelbrotComponent.COMPLEX_KERNEL</code>, der mit
+     * <code>Complex</code>-Objekten rechnet.
+     */
+    static Kernel componentKernel() {
+        try {
+            Field f = Class.forName("MandelbrotComponent").getDeclaredField("COMPLEX_KERNEL");
+            f.setAccessible(true);
+            return (Kernel)f.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
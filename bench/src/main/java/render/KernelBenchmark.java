@@ -0,0 +1,108 @@
+package render;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vergleicht die einzelnen Kernel auf einem Raster von 64 x 64 Punkten,
+ * ohne Threads und ohne Einfrben. Der <code>Complex</code>-Kernel der
+ * Anwendung liest den Schalter fr die Tests auf innere Punkte aus der
+ * Property <code>mandelbrot.interiorChecks</code>.
+ *
+ * Da nur ein Thread rechnet, ist der Durchsatz der Durchsatz pro Prozessor.
+ * Der Vektor-Kernel berechnet ganze Zeilen, dafr wird das Modul
+ * <code>jdk.incubator.vector</code> geladen. Die <code>float</code>-Kernel
+ * rechnen ungenauer und sind nur fr bersichtsbilder gedacht.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class KernelBenchmark {
+    private static final int SIZE = 64;
+
+    @Param({"FULL", "SEAHORSE", "INTERIOR"})
+    public ReferenceView view;
+
+    @Param({"100", "1000"})
+    public int maxIter;
+
+    @Param({"false", "true"})
+    public boolean interiorChecks;
+
+    private Kernel complex, scalar, scalarFloat;
+    private Kernel.Bound vector, vectorFloat;
+
+    private final double[] real = new double[SIZE], imag = new double[SIZE];
+    private final int[] field = new int[SIZE * SIZE];
+
+    @Setup
+    public void setup() {
+        complex = FrontEnds.componentKernel();
+        scalar = new DoubleKernel(DoubleKernel.BAILOUT, interiorChecks);
+        Viewport v = view.viewport(SIZE, SIZE);
+        vector = DoubleKernel.vectorized(DoubleKernel.BAILOUT, interiorChecks).bind(v, maxIter);
+        scalarFloat = new FloatKernel(DoubleKernel.BAILOUT, interiorChecks);
+        vectorFloat = FloatKernel.vectorized(DoubleKernel.BAILOUT, interiorChecks).bind(v, maxIter);
+        for (int i = 0; i < SIZE; ++i) {
+            real[i] = v.real(i);
+            imag[i] = v.imag(i);
+        }
+    }
+
+    @Benchmark
+    public int[] complexObject(Throughput t) {
+        for (int y = 0; y < SIZE; ++y)
+            for (int x = 0; x < SIZE; ++x)
+                field[y * SIZE + x] = complex.iterate(real[x], imag[y], maxIter);
+        t.count(field, field.length);
+        return field;
+    }
+
+    @Benchmark
+    public int[] scalarDouble(Throughput t) {
+        for (int y = 0; y < SIZE; ++y)
+            for (int x = 0; x < SIZE; ++x)
+                field[y * SIZE + x] = scalar.iterate(real[x], imag[y], maxIter);
+        t.count(field, field.length);
+        return field;
+    }
+
+    @Benchmark
+    public int[] vectorDouble(Throughput t) {
+        for (int y = 0; y < SIZE; ++y)
+            vector.iterateRow(y, 0, SIZE, field, y * SIZE);
+        t.count(field, field.length);
+        return field;
+    }
+
+    @Benchmark
+    public int[] scalarFloat(Throughput t) {
+        for (int y = 0; y < SIZE; ++y)
+            for (int x = 0; x < SIZE; ++x)
+                field[y * SIZE + x] = scalarFloat.iterate(real[x], imag[y], maxIter);
+        t.count(field, field.length);
+        return field;
+    }
+
+    @Benchmark
+    public int[] vectorFloat(Throughput t) {
+        for (int y = 0; y < SIZE; ++y)
+            vectorFloat.iterateRow(y, 0, SIZE, field, y * SIZE);
+        t.count(field, field.length);
+        return field;
+    }
+}
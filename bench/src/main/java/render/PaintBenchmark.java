@@ -0,0 +1,94 @@
+package render;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vergleicht das frhere Zeichnen mit <code>setColor</code>/<code>drawLine</code>
+ * mit dem direkten Schreiben in den Datenpuffer. Die Iterationen werden
+ * einmal vorab berechnet, gemessen wird nur das Einfrben.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBenchmark {
+    private static final int WIDTH = 640, HEIGHT = 480, MAX_ITER = 100;
+
+    @Param({"FULL", "SEAHORSE"})
+    public ReferenceView view;
+
+    private final int[] field = new int[WIDTH * HEIGHT];
+    private BufferedImage image;
+    private Graphics graphics;
+    private int[] pixels;
+    private Palette palette;
+
+    @Setup
+    public void setup() {
+        RenderEngine engine = new RenderEngine();
+        engine.render(view.viewport(WIDTH, HEIGHT), new DoubleKernel(DoubleKernel.BAILOUT, false), MAX_ITER, field);
+        engine.shutdown();
+
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = image.getGraphics();
+        pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+
+        int[] colors = new int[MAX_ITER + 1];
+        for (int i = 0; i < colors.length; ++i) {
+            int value = (int)(i / (double)MAX_ITER * 255);
+            colors[i] = (value << 16) | (value << 8) | value;
+        }
+        palette = Palette.remaining(colors);
+    }
+
+    /**
+     * Das Zeichnen wie in der frheren <code>MandelbrotComponent.run()</code>.
+     */
+    @Benchmark
+    public BufferedImage drawLine(Throughput t) {
+        for (int y = 0; y < HEIGHT; ++y) {
+            int lastX = 0, value = 0, lastValue = -1;
+            for (int x = 0; x < WIDTH; ++x) {
+                value = (int)((MAX_ITER - field[y * WIDTH + x]) / (double)MAX_ITER * 255);
+                if (value != lastValue) {
+                    if (lastValue != -1) {
+                        graphics.setColor(new Color(lastValue, lastValue, lastValue));
+                        graphics.drawLine(lastX, y, x - 1, y);
+                    }
+                    lastValue = value;
+                    lastX = x;
+                }
+            }
+            graphics.setColor(new Color(value, value, value));
+            graphics.drawLine(lastX, y, WIDTH - 1, y);
+        }
+        t.pixels += field.length;
+        return image;
+    }
+
+    @Benchmark
+    public int[] raster(Throughput t) {
+        for (int i = 0; i < field.length; ++i)
+            pixels[i] = palette.color(field[i], MAX_ITER);
+        t.pixels += field.length;
+        return pixels;
+    }
+}
@@ -0,0 +1,94 @@
+package render;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vergleicht die genauen Kernel auf einem Raster von 16 x 16 Punkten bei
+ * einem Pixelabstand von 1e-24, wo <code>double</code> nicht mehr reicht.
+ * Der Ausschnitt liegt am Rand der Menge, so dass die Iterationszahlen
+ * schwanken. <code>BigDecimal</code> rechnet mit 32 Stellen, also etwa so
+ * genau wie Double-Double.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrecisionBenchmark {
+    private static final int SIZE = 16;
+    private static final double STEP = 1e-24;
+    private static final BigDecimal CENTER_REAL = new BigDecimal("-0.1");
+    private static final BigDecimal CENTER_IMAG = new BigDecimal("0.878059455318631379837637643");
+    private static final MathContext DIGITS = new MathContext(32);
+
+    @Param({"1000"})
+    public int maxIter;
+
+    private Viewport view;
+
+    private final int[] field = new int[SIZE * SIZE];
+
+    @Setup
+    public void setup() {
+        BigDecimal offset = new BigDecimal(STEP * SIZE / 2);
+        view = new Viewport(CENTER_REAL.subtract(offset), CENTER_IMAG.subtract(offset), STEP, SIZE, SIZE);
+    }
+
+    @Benchmark
+    public int[] doubleDouble(Throughput t) {
+        return run(new DoubleDoubleKernel(DoubleKernel.BAILOUT, false).bind(view, maxIter), t);
+    }
+
+    @Benchmark
+    public int[] perturbation(Throughput t) {
+        return run(new PerturbationKernel(DoubleKernel.BAILOUT).bind(view, maxIter), t);
+    }
+
+    @Benchmark
+    public int[] bigDecimal(Throughput t) {
+        BigDecimal step = new BigDecimal(STEP), two = BigDecimal.valueOf(2);
+        for (int y = 0; y < SIZE; ++y) {
+            BigDecimal ci = view.startImagExact().add(step.multiply(BigDecimal.valueOf(y)));
+            for (int x = 0; x < SIZE; ++x) {
+                BigDecimal cr = view.startRealExact().add(step.multiply(BigDecimal.valueOf(x)));
+                BigDecimal zr = cr, zi = ci;
+                int n = 0;
+                while (n < maxIter) {
+                    double r = zr.doubleValue(), i = zi.doubleValue();
+                    if (r * r + i * i > DoubleKernel.BAILOUT)
+                        break;
+                    BigDecimal tmp = two.multiply(zr).multiply(zi, DIGITS).add(ci, DIGITS);
+                    zr = zr.multiply(zr, DIGITS).subtract(zi.multiply(zi, DIGITS), DIGITS).add(cr, DIGITS);
+                    zi = tmp;
+                    ++n;
+                }
+                field[y * SIZE + x] = n;
+            }
+        }
+        t.count(field, field.length);
+        return field;
+    }
+
+    private int[] run(Kernel.Bound kernel, Throughput t) {
+        for (int y = 0; y < SIZE; ++y)
+            for (int x = 0; x < SIZE; ++x)
+                field[y * SIZE + x] = kernel.iterate(x, y);
+        t.count(field, field.length);
+        return field;
+    }
+}
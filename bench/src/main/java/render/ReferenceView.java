@@ -0,0 +1,31 @@
+package render;
+
+/**
+ * Feste Ausschnitte, auf denen alle Benchmarks laufen.
+ */
+public enum ReferenceView {
+    /** Die ganze Mandelbrotmenge wie beim Start der Anwendung */
+    FULL(-0.75, 0.0, 2.5),
+    /** Das Seepferdchental, viele Punkte mit hoher Iterationszahl am Rand */
+    SEAHORSE(-0.7453, 0.1127, 0.0065),
+    /** Ein Ausschnitt im Inneren der Hauptkardioide, jeder Punkt luft bis maxIter */
+    INTERIOR(-0.2, 0.0, 0.2);
+
+    private final double centerReal, centerImag, range;
+
+    ReferenceView(double centerReal, double centerImag, double range) {
+        this.centerReal = centerReal;
+        this.centerImag = centerImag;
+        this.range = range;
+    }
+
+    /**
+     * Der Ausschnitt wird fr ein Bild der Gre <code>width</code> x
+     * <code>height</code> erzeugt, wobei <code>range</code> auf die krzere
+     * Seite passt.
+     */
+    public Viewport viewport(int width, int height) {
+        double step = range / Math.min(width, height);
+        return new Viewport(centerReal - step * width / 2, centerImag - step * height / 2, step, width, height);
+    }
+}
@@ -0,0 +1,30 @@
+package render;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Zustzliche Zhler, die JMH als Pixel/s und Iterationen/s ausgibt.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+    public long pixels, iterations;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        pixels = 0;
+        iterations = 0;
+    }
+
+    void count(int[] field, int length) {
+        long sum = 0;
+        for (int i = 0; i < length; ++i)
+            sum += field[i];
+        pixels += length;
+        iterations += sum;
+    }
+}